@@ -1,5 +1,5 @@
 /*
- * Copyright 2024-2025 JTaccuino Contributors
+ * Copyright 2024-2026 JTaccuino Contributors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,7 +22,9 @@ import javafx.scene.Scene;
 import javafx.scene.image.Image;
 import javafx.stage.Screen;
 import javafx.stage.Stage;
+import org.jtaccuino.app.common.AutosaveService;
 import org.jtaccuino.app.ui.WindowSystem;
+import org.jtaccuino.jshell.ReactiveJShellPool;
 
 public class Studio extends Application {
 
@@ -50,6 +52,7 @@ public class Studio extends Application {
 
     @Override
     public void start(Stage stage) throws Exception {
+        ReactiveJShellPool.getDefault().prestart();
         var node = WindowSystem.getDefault().getNode();
         var scene = new Scene(node);
         scene.getStylesheets().add(this.getClass().getResource("/jtaccuino.css").toExternalForm());
@@ -60,6 +63,8 @@ public class Studio extends Application {
         stage.getIcons().add(new Image("notebook-svgrepo-com_256.png"));
         stage.setOnCloseRequest((event) -> {
             WindowSystem.getDefault().shutdown();
+            ReactiveJShellPool.getDefault().shutdown();
+            AutosaveService.getDefault().shutdown();
         });
         stage.show();
     }
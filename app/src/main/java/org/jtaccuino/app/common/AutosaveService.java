@@ -0,0 +1,247 @@
+/*
+ * Copyright 2026 JTaccuino Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jtaccuino.app.common;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javafx.collections.ListChangeListener;
+import javafx.util.Subscription;
+import org.jtaccuino.app.common.internal.NotebookJournal;
+import org.jtaccuino.app.persistence.PersistenceManager;
+import org.jtaccuino.core.ui.api.CellData;
+
+/**
+ * Journals unsaved changes of open notebooks in the background. Changed cells
+ * are tracked through their observables and appended to a per notebook journal
+ * on a virtual thread every {@code jtaccuino.autosave.interval} seconds
+ * (default 30, 0 disables autosave). An explicit save writes the notebook file
+ * and drops the journal, so does closing the notebook without saving it.
+ * Reading a notebook with a journal left over (e.g. after a crash or quitting
+ * with unsaved changes) recovers the journaled changes, unless the notebook
+ * file was changed since the journal was written.
+ */
+public final class AutosaveService {
+
+    private static final Duration INTERVAL = Duration.ofSeconds(Long.getLong("jtaccuino.autosave.interval", 30));
+
+    private static final AutosaveService DEFAULT = new AutosaveService();
+
+    public static AutosaveService getDefault() {
+        return DEFAULT;
+    }
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("Autosave").factory());
+    private final Map<NotebookImpl, Tracking> trackings = new ConcurrentHashMap<>();
+
+    private AutosaveService() {
+        if (INTERVAL.isPositive()) {
+            var unused = executor.scheduleWithFixedDelay(this::flushAll, INTERVAL.toMillis(), INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * The journal file of the notebook stored at the given uri, null for
+     * notebooks without a local file.
+     */
+    static Path journalPath(URI uri) {
+        if (null == uri || !"file".equalsIgnoreCase(uri.getScheme())) {
+            return null;
+        }
+        var name = UUID.nameUUIDFromBytes(uri.toString().getBytes(StandardCharsets.UTF_8)) + ".jsonl";
+        return PersistenceManager.getConfigBaseDirectory().resolve("journals").resolve(name);
+    }
+
+    /**
+     * The version of the notebook file at the given uri, null for notebooks
+     * without a local file.
+     */
+    private static NotebookJournal.Base base(URI uri) {
+        return null == uri || !"file".equalsIgnoreCase(uri.getScheme()) ? null : NotebookJournal.Base.of(Path.of(uri));
+    }
+
+    /**
+     * Applies a journal left over for the notebook at the given uri to its
+     * cells. A journal written for another version of the notebook file (e.g.
+     * as it was changed by another application) is discarded.
+     *
+     * @return the recovered cells, empty if there were no changes to recover
+     */
+    static Optional<List<CellData>> recover(URI uri, List<CellData> cells) {
+        var journal = journalPath(uri);
+        if (null != journal && Files.exists(journal)) {
+            try {
+                var recovered = NotebookJournal.replay(journal, cells, base(uri));
+                if (recovered.isEmpty()) {
+                    Logger.getLogger(AutosaveService.class.getName()).log(Level.WARNING,
+                            "Discarding unsaved changes of {0}, the notebook file was changed since", uri);
+                    Files.deleteIfExists(journal);
+                }
+                return recovered;
+            } catch (Exception ex) {
+                Logger.getLogger(AutosaveService.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        }
+        return Optional.empty();
+    }
+
+    void track(NotebookImpl notebook) {
+        var uri = notebook.getStorage().getURI().orElse(null);
+        // without autosave changes are only tracked to mark the notebook dirty
+        var tracking = new Tracking(new NotebookJournal(INTERVAL.isPositive() ? journalPath(uri) : null, base(uri)),
+                () -> notebook.setDirty(true));
+        notebook.getCells().forEach(tracking::watch);
+        notebook.getCells().addListener(tracking);
+        trackings.put(notebook, tracking);
+    }
+
+    /**
+     * Stops tracking the notebook. Pending changes are written to its journal
+     * to be recovered when the notebook is opened again, unless they are
+     * discarded.
+     */
+    void untrack(NotebookImpl notebook, boolean discardUnsavedChanges) {
+        var tracking = trackings.remove(notebook);
+        if (null != tracking) {
+            notebook.getCells().removeListener(tracking);
+            tracking.unwatchAll();
+            if (discardUnsavedChanges) {
+                tracking.journal.clearChanges();
+                executor.execute(() -> reset(tracking.journal, null, null));
+            } else {
+                executor.execute(() -> flush(tracking.journal));
+            }
+        }
+    }
+
+    /**
+     * Drops the journaled changes after the notebook was saved explicitly,
+     * further changes are journaled for the (possibly new) location of the
+     * notebook.
+     */
+    void saved(NotebookImpl notebook) {
+        var tracking = trackings.get(notebook);
+        if (null != tracking) {
+            tracking.journal.clearChanges();
+            var uri = notebook.getStorage().getURI().orElse(null);
+            var newPath = INTERVAL.isPositive() ? journalPath(uri) : null;
+            var newBase = base(uri);
+            executor.execute(() -> reset(tracking.journal, newPath, newBase));
+        }
+        notebook.setDirty(false);
+    }
+
+    /**
+     * Writes all pending changes and stops the autosave thread, waits a few
+     * seconds at most.
+     */
+    public void shutdown() {
+        executor.execute(this::flushAll);
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                Logger.getLogger(AutosaveService.class.getName()).log(Level.WARNING, "Autosave did not finish in time");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flushAll() {
+        trackings.values().forEach(tracking -> flush(tracking.journal));
+    }
+
+    private static void reset(NotebookJournal journal, Path newPath, NotebookJournal.Base newBase) {
+        try {
+            journal.reset(newPath, newBase);
+        } catch (Exception ex) {
+            Logger.getLogger(AutosaveService.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    private static void flush(NotebookJournal journal) {
+        try {
+            journal.flush();
+        } catch (Exception ex) {
+            Logger.getLogger(AutosaveService.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    /**
+     * The listeners recording changes of one notebook, only used on the fx
+     * thread.
+     */
+    private static final class Tracking implements ListChangeListener<CellData> {
+
+        private final NotebookJournal journal;
+        private final Runnable onChange;
+        private final Map<CellData, Subscription> cellSubscriptions = new HashMap<>();
+
+        Tracking(NotebookJournal journal, Runnable onChange) {
+            this.journal = journal;
+            this.onChange = onChange;
+        }
+
+        void watch(CellData cell) {
+            cellSubscriptions.put(cell, cell.sourceProperty().subscribe((o, n) -> cellChanged(cell))
+                    .and(cell.typeProperty().subscribe((o, n) -> cellChanged(cell)))
+                    .and(cell.getOutputData().subscribe(() -> cellChanged(cell))));
+        }
+
+        private void cellChanged(CellData cell) {
+            journal.cellChanged(cell);
+            onChange.run();
+        }
+
+        void unwatch(CellData cell) {
+            var subscription = cellSubscriptions.remove(cell);
+            if (null != subscription) {
+                subscription.unsubscribe();
+            }
+        }
+
+        void unwatchAll() {
+            cellSubscriptions.values().forEach(Subscription::unsubscribe);
+            cellSubscriptions.clear();
+        }
+
+        @Override
+        public void onChanged(ListChangeListener.Change<? extends CellData> change) {
+            while (change.next()) {
+                change.getRemoved().forEach(this::unwatch);
+                change.getAddedSubList().forEach(cell -> {
+                    watch(cell);
+                    journal.cellChanged(cell);
+                });
+            }
+            journal.orderChanged(change.getList());
+            onChange.run();
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2024-2025 JTaccuino Contributors
+ * Copyright 2024-2026 JTaccuino Contributors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,6 +21,8 @@ import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Optional;
 import java.util.UUID;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
 import javafx.beans.property.ReadOnlyStringProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
@@ -29,6 +31,7 @@ import javafx.collections.ObservableList;
 import org.jtaccuino.app.common.internal.IpynbFormatOperations;
 import org.jtaccuino.core.ui.api.CellData;
 import org.jtaccuino.core.ui.api.Notebook;
+import org.jtaccuino.jshell.extensions.dependency.DependencyLock;
 
 public class NotebookImpl implements Notebook {
 
@@ -115,11 +118,15 @@ public class NotebookImpl implements Notebook {
 
     private final StringProperty displayNameProperty = new SimpleStringProperty();
     private final StringProperty locationProperty = new SimpleStringProperty();
+    private final ReadOnlyBooleanWrapper dirtyProperty = new ReadOnlyBooleanWrapper();
     private final ObservableList<CellData> cells = FXCollections.observableArrayList();
 
+    private final DependencyLock dependencyLock;
+
     private Storage storage;
 
-    NotebookImpl(IpynbFormatOperations ipynb, String displayName, URI uri) {
+    NotebookImpl(IpynbFormatOperations ipynb, DependencyLock dependencyLock, String displayName, URI uri) {
+        this.dependencyLock = dependencyLock;
         this.displayNameProperty.set(displayName);
         this.cells.addAll(null != ipynb ? ipynb.toCellDataList()
                 : Arrays.asList(new CellData[]{CellData.of(CellData.Type.CODE, null, UUID.randomUUID())}));
@@ -137,6 +144,7 @@ public class NotebookImpl implements Notebook {
         } else {
             throw new IllegalArgumentException("Unsupported URIs scheme " + uri.getScheme());
         }
+        AutosaveService.getDefault().track(this);
     }
 
     @Override
@@ -144,6 +152,11 @@ public class NotebookImpl implements Notebook {
         return this.storage;
     }
 
+    @Override
+    public DependencyLock getDependencyLock() {
+        return this.dependencyLock;
+    }
+
     @Override
     public ObservableList<CellData> getCells() {
         return this.cells;
@@ -170,27 +183,53 @@ public class NotebookImpl implements Notebook {
     }
 
     @Override
-    public void save() {
-        this.storage.getURI().ifPresent(uri
-                -> NotebookPersistence.INSTANCE.toFile(Path.of(uri).toFile(), cells)
-        );
+    public ReadOnlyBooleanProperty dirtyProperty() {
+        return dirtyProperty.getReadOnlyProperty();
+    }
+
+    @Override
+    public boolean isDirty() {
+        return dirtyProperty.get();
+    }
+
+    void setDirty(boolean dirty) {
+        dirtyProperty.set(dirty);
+    }
+
+    @Override
+    public boolean save() {
+        var written = this.storage.getURI()
+                .map(uri -> NotebookPersistence.INSTANCE.toFile(Path.of(uri).toFile(), cells, true, dependencyLock))
+                .orElse(false);
+        if (written) {
+            AutosaveService.getDefault().saved(this);
+        }
+        return written;
     }
 
     @Override
     public void saveAs(File selectedFile) {
-        NotebookPersistence.INSTANCE.toFile(selectedFile, cells);
+        var written = NotebookPersistence.INSTANCE.toFile(selectedFile, cells, true, dependencyLock);
         this.storage = new FileStorageImpl(selectedFile);
         this.displayNameProperty.set(selectedFile.getName());
         this.locationProperty.set(this.storage.getURI().get().toString());
+        if (written) {
+            AutosaveService.getDefault().saved(this);
+        }
     }
 
     @Override
     public void export(ExportMode exportMode, File selectedFile) {
         switch (exportMode) {
             case NO_OUTPUTS ->
-                NotebookPersistence.INSTANCE.toFile(selectedFile, cells, false);
+                NotebookPersistence.INSTANCE.toFile(selectedFile, cells, false, dependencyLock);
             case MARKDOWN ->
                 throw new IllegalArgumentException("Markdown export not yet supported");
         }
     }
+
+    @Override
+    public void close(boolean discardUnsavedChanges) {
+        AutosaveService.getDefault().untrack(this, discardUnsavedChanges);
+    }
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2025 JTaccuino Contributors
+ * Copyright 2025-2026 JTaccuino Contributors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,31 +15,39 @@
  */
 package org.jtaccuino.app.common;
 
-import jakarta.json.bind.Jsonb;
-import jakarta.json.bind.JsonbBuilder;
-import jakarta.json.bind.JsonbConfig;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
-import java.util.function.Predicate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import org.jtaccuino.app.common.internal.IpynbFormat;
+import javafx.application.Platform;
+import org.jtaccuino.app.common.internal.IpynbReader;
+import org.jtaccuino.app.common.internal.IpynbWriter;
 import org.jtaccuino.app.studio.util.Util;
 import org.jtaccuino.core.ui.api.CellData;
-import static org.jtaccuino.core.ui.api.CellData.Type.CODE;
-
-import static org.jtaccuino.core.ui.api.CellData.Type.MARKDOWN;
+import org.jtaccuino.core.ui.api.SheetManager;
+import org.jtaccuino.core.ui.api.StatusDisplayer;
+import org.jtaccuino.jshell.extensions.dependency.DependencyLock;
 
 public class NotebookPersistence {
 
     public static NotebookPersistence INSTANCE = NotebookPersistence.singleton();
 
+    private static final Executor READER = r -> Thread.ofVirtual().name("NotebookReader").start(r);
+
+    private static final long COMPACT_THRESHOLD = Long.getLong("jtaccuino.notebook.compactThreshold", 16) * 1024 * 1024;
+
+    private static final Map<String, Object> NOTEBOOK_METADATA = notebookMetadata();
+
     private static NotebookPersistence singleton() {
         return new NotebookPersistence();
     }
@@ -47,72 +55,126 @@ public class NotebookPersistence {
     private NotebookPersistence() {
     }
 
+    private static Map<String, Object> notebookMetadata() {
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("kernel_info", Map.of("name", "JTaccuino", "version", "0.1"));
+        metadata.put("language_info", Map.of("name", "Java", "version", System.getProperty("java.specification.version")));
+        return Collections.unmodifiableMap(metadata);
+    }
+
     public NotebookImpl of() {
-        return new NotebookImpl(null, "Scratch", (URI) null);
+        return new NotebookImpl(null, new DependencyLock(), "Scratch", (URI) null);
     }
 
     public NotebookImpl of(URI uri) {
-        var jsonb = JsonbBuilder.create();
         try (InputStreamReader reader = new InputStreamReader(uri.toURL().openStream(), StandardCharsets.UTF_8)) {
-            IpynbFormat ipynb = jsonb.fromJson(reader, IpynbFormat.class);
-            return new NotebookImpl(ipynb, Util.getFileNamePartOf(uri.toString()), uri);
+            var ipynb = IpynbReader.read(reader);
+            var recovered = AutosaveService.recover(uri, ipynb.cells());
+            var cells = recovered.orElseGet(ipynb::cells);
+            var dependencyLock = DependencyLock.fromMetadata(ipynb.metadata().get(DependencyLock.METADATA_KEY));
+            // locked artifacts are fetched while the notebook is shown, before the first cell is executed
+            var unused = dependencyLock.prefetchAsync();
+            var notebook = new NotebookImpl(() -> cells, dependencyLock, Util.getFileNamePartOf(uri.toString()), uri);
+            notebook.setDirty(recovered.isPresent());
+            return notebook;
         } catch (Exception ex) {
             Logger.getLogger(NotebookPersistence.class.getName()).log(Level.SEVERE, null, ex);
-        } finally {
-            try {
-                jsonb.close();
-            } catch (Exception ex) {
-                Logger.getLogger(NotebookPersistence.class.getName()).log(Level.SEVERE, null, ex);
-            }
         }
 
         return null;
     }
 
-    public void toFile(File selectedFile, List<CellData> cells) {
-        toFile(selectedFile, cells, true);
+    /**
+     * Reads the notebook on a background thread.
+     *
+     * @return a future completing with the notebook or null if it could not
+     * be read
+     */
+    public CompletableFuture<NotebookImpl> ofAsync(URI uri) {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            var notebook = of(uri);
+            Logger.getLogger(NotebookPersistence.class.getName()).log(Level.FINE,
+                    () -> "Read notebook " + uri + " in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+            return notebook;
+        }, READER);
     }
 
-    public void toFile(File selectedFile, List<CellData> cells, boolean includeOutput) {
-        var config = new JsonbConfig();
-        config.setProperty(JsonbConfig.FORMATTING, true);
-        Jsonb jsonb = JsonbBuilder.create(config);
-        try {
-            jsonb.toJson(toIpynbFormat(cells, includeOutput), new FileWriter(selectedFile, StandardCharsets.UTF_8));
-            jsonb.close();
-        } catch (Exception ex) {
-            Logger.getLogger(NotebookPersistence.class.getName()).log(Level.SEVERE, null, ex);
+    /**
+     * Reads the notebook on a background thread and opens it on the fx
+     * thread afterwards.
+     */
+    public CompletableFuture<Void> openAsync(URI uri) {
+        return openAsync(List.of(uri));
+    }
+
+    /**
+     * Reads all notebooks in parallel on background threads and opens them on
+     * the fx thread in the given order.
+     */
+    public CompletableFuture<Void> openAsync(List<URI> uris) {
+        var notebooks = uris.stream().map(this::ofAsync).toList();
+        CompletableFuture<Void> opened = CompletableFuture.completedFuture(null);
+        for (var notebook : notebooks) {
+            opened = opened.thenCombineAsync(notebook, (v, n) -> {
+                if (null != n) {
+                    SheetManager.getDefault().open(n);
+                    if (n.isDirty()) {
+                        StatusDisplayer.display("Recovered unsaved changes of notebook " + n.getDisplayName() + ".");
+                    }
+                }
+                return null;
+            }, Platform::runLater);
         }
+        return opened.exceptionally(t -> {
+            Logger.getLogger(NotebookPersistence.class.getName()).log(Level.SEVERE, null, t);
+            return null;
+        });
     }
 
-    private IpynbFormat toIpynbFormat(List<CellData> cells, boolean includeOutput) {
-        return new IpynbFormat(
-                Map.of(
-                        "kernel_info", Map.of("name", "JTaccuino", "version", "0.1"),
-                        "language_info", Map.of("name", "Java", "version", System.getProperty("java.specification.version"))),
-                4, 5,
-                cells.stream()
-                        .filter(Predicate.not(CellData::isEmpty))
-                        .map(c -> convertToNotebookCell(c, includeOutput))
-                        .toList());
+    public boolean toFile(File selectedFile, List<CellData> cells) {
+        return toFile(selectedFile, cells, true, new DependencyLock());
+    }
+
+    /**
+     * Writes the notebook together with its dependency lock, returns whether
+     * it was written.
+     */
+    public boolean toFile(File selectedFile, List<CellData> cells, boolean includeOutput, DependencyLock dependencyLock) {
+        var metadata = NOTEBOOK_METADATA;
+        dependencyLock.retainUsed(cells.stream().map(CellData::getSource).toList());
+        if (!dependencyLock.isEmpty()) {
+            metadata = new LinkedHashMap<>(NOTEBOOK_METADATA);
+            metadata.put(DependencyLock.METADATA_KEY, dependencyLock.toMetadata());
+        }
+        var writer = new IpynbWriter(metadata, includeOutput, includeOutput && isLarge(cells));
+        try {
+            writer.write(selectedFile.toPath(), cells);
+            return true;
+        } catch (IOException ex) {
+            Logger.getLogger(NotebookPersistence.class.getName()).log(Level.SEVERE, null, ex);
+            return false;
+        }
     }
 
-    private IpynbFormat.Cell convertToNotebookCell(CellData cellData, boolean includeOutput) {
-        return switch (cellData.getType()) {
-            case CODE ->
-                new IpynbFormat.CodeCell(
-                cellData.getId().toString(),
-                cellData.getType().name().toLowerCase(Locale.ENGLISH),
-                Map.of(),
-                cellData.getSource(),
-                includeOutput ? cellData.getOutputData().stream().map(IpynbFormat.Output::from).toList() : List.of(),
-                0);
-            case MARKDOWN ->
-                new IpynbFormat.MarkdownCell(
-                cellData.getId().toString(),
-                cellData.getType().name().toLowerCase(Locale.ENGLISH),
-                Map.of(),
-                cellData.getSource());
-        };
+    /**
+     * Notebooks with outputs larger than the compact threshold are written
+     * without pretty printing.
+     */
+    private static boolean isLarge(List<CellData> cells) {
+        long outputSize = 0;
+        for (CellData cell : cells) {
+            for (CellData.OutputData outputData : cell.getOutputData()) {
+                outputSize += switch (outputData) {
+                    case CellData.MimeTypeBasedOutputData od ->
+                        od.mimeBundle().values().stream().mapToLong(String::length).sum()
+                        // inlined as base64
+                        + od.binaryBundle().values().stream().mapToLong(blob -> blob.getSize() / 3L * 4L).sum();
+                    case CellData.StreamBasedOutputData od ->
+                        od.data().length();
+                };
+            }
+        }
+        return outputSize > COMPACT_THRESHOLD;
     }
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2024-2025 JTaccuino Contributors
+ * Copyright 2024-2026 JTaccuino Contributors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,6 +25,7 @@ import jakarta.json.bind.serializer.DeserializationContext;
 import jakarta.json.bind.serializer.JsonbDeserializer;
 import jakarta.json.stream.JsonParser;
 import java.lang.reflect.Type;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -114,8 +115,9 @@ public record IpynbFormat(Map<String, Object> metadata, int nbformat, int nbform
 
         @Override
         public CellData.OutputData toOutputData() {
-            return CellData.OutputData.of(
+            return CellData.OutputData.ofStream(
                     CellData.OutputData.OutputType.of(output_type()),
+                    name,
                     text);
         }
     }
@@ -148,9 +150,9 @@ public record IpynbFormat(Map<String, Object> metadata, int nbformat, int nbform
         static Output from(CellData.OutputData outputData) {
             return switch (outputData) {
                 case CellData.MimeTypeBasedOutputData od when CellData.OutputData.OutputType.DISPLAY_DATA == od.type() ->
-                    new DisplayDataOutput(outputData.type().toOutputType(), od.mimeBundle(), Map.of());
+                    new DisplayDataOutput(outputData.type().toOutputType(), od.inlinedMimeBundle(), Map.of());
                 case CellData.MimeTypeBasedOutputData od when CellData.OutputData.OutputType.EXECUTION_DATA == od.type() ->
-                    new ExecuteResultOutput(outputData.type().toOutputType(), od.mimeBundle(), Map.of(), null);
+                    new ExecuteResultOutput(outputData.type().toOutputType(), od.inlinedMimeBundle(), Map.of(), null);
                 default -> null;
             };
         }
@@ -249,6 +251,8 @@ public record IpynbFormat(Map<String, Object> metadata, int nbformat, int nbform
     }
 
     private static Map<String,String> extractMimeBundle(JsonObject jsonObject) {
-        return jsonObject.entrySet().stream().collect(Collectors.toMap(e -> e.getKey(), e -> multilineOrArrayToString(e.getValue())));
+        // keeps the order of the entries
+        return jsonObject.entrySet().stream().collect(Collectors.toMap(e -> e.getKey(), e -> multilineOrArrayToString(e.getValue()),
+                (first, second) -> second, LinkedHashMap::new));
     }
 }
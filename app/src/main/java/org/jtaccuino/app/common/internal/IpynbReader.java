@@ -0,0 +1,263 @@
+/*
+ * Copyright 2026 JTaccuino Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jtaccuino.app.common.internal;
+
+import jakarta.json.Json;
+import jakarta.json.stream.JsonParser;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import org.jtaccuino.core.ui.api.CellData;
+
+/**
+ * Reads an ipynb document token by token directly into {@link CellData},
+ * without building a json object tree or intermediate records. Strings (e.g.
+ * base64 encoded images) are only materialized once.
+ *
+ * @param metadata the notebook metadata
+ * @param cells the cells of the notebook
+ */
+public record IpynbReader(Map<String, Object> metadata, List<CellData> cells) implements IpynbFormatOperations {
+
+    public static IpynbReader read(Reader reader) {
+        try (var parser = Json.createParser(reader)) {
+            expect(parser, JsonParser.Event.START_OBJECT);
+            Map<String, Object> metadata = Map.of();
+            List<CellData> cells = List.of();
+            while (parser.next() == JsonParser.Event.KEY_NAME) {
+                switch (parser.getString()) {
+                    case "metadata" -> {
+                        parser.next();
+                        metadata = asMap(readValue(parser));
+                    }
+                    case "cells" ->
+                        cells = readCells(parser);
+                    default ->
+                        skipValue(parser);
+                }
+            }
+            return new IpynbReader(metadata, cells);
+        }
+    }
+
+    @Override
+    public List<CellData> toCellDataList() {
+        return cells();
+    }
+
+    private static List<CellData> readCells(JsonParser parser) {
+        expect(parser, JsonParser.Event.START_ARRAY);
+        List<CellData> cells = new ArrayList<>();
+        while (parser.next() == JsonParser.Event.START_OBJECT) {
+            cells.add(readCell(parser));
+        }
+        return cells;
+    }
+
+    private static CellData readCell(JsonParser parser) {
+        String type = null;
+        String id = null;
+        String source = null;
+        List<CellData.OutputData> outputs = List.of();
+        while (parser.next() == JsonParser.Event.KEY_NAME) {
+            switch (parser.getString()) {
+                case "cell_type" -> {
+                    parser.next();
+                    type = parser.getString();
+                }
+                case "id" -> {
+                    parser.next();
+                    // Mandatory since nbformat v4.5. Did not exist prior to that
+                    id = parser.getString();
+                }
+                case "source" ->
+                    source = readMultilineString(parser);
+                case "outputs" ->
+                    outputs = readOutputs(parser);
+                default ->
+                    skipValue(parser);
+            }
+        }
+        var uuid = Optional.ofNullable(id).map(UUID::fromString).orElseGet(UUID::randomUUID);
+        return switch (type) {
+            case "code" ->
+                CellData.of(CellData.Type.CODE, source, uuid, outputs);
+            case "markdown" ->
+                CellData.of(CellData.Type.MARKDOWN, source, uuid);
+            case null ->
+                throw new IllegalStateException("Cell without cell_type found");
+            default ->
+                throw new IllegalStateException("Unsupported cell type found: " + type);
+        };
+    }
+
+    static List<CellData.OutputData> readOutputs(JsonParser parser) {
+        expect(parser, JsonParser.Event.START_ARRAY);
+        List<CellData.OutputData> outputs = new ArrayList<>();
+        while (parser.next() == JsonParser.Event.START_OBJECT) {
+            outputs.add(readOutput(parser));
+        }
+        return outputs;
+    }
+
+    private static CellData.OutputData readOutput(JsonParser parser) {
+        String outputType = null;
+        Map<String, String> data = Map.of();
+        String text = null;
+        String name = null;
+        while (parser.next() == JsonParser.Event.KEY_NAME) {
+            switch (parser.getString()) {
+                case "output_type" -> {
+                    parser.next();
+                    outputType = parser.getString();
+                }
+                case "name" -> {
+                    parser.next();
+                    name = parser.getString();
+                }
+                case "data" ->
+                    data = readMimeBundle(parser);
+                case "text" ->
+                    text = readMultilineString(parser);
+                default ->
+                    skipValue(parser);
+            }
+        }
+        return switch (outputType) {
+            case "execute_result", "display_data" ->
+                CellData.OutputData.of(CellData.OutputData.OutputType.of(outputType), data);
+            case "stream" ->
+                CellData.OutputData.ofStream(CellData.OutputData.OutputType.of(outputType), name, text);
+            case "error" ->
+                CellData.OutputData.of(CellData.OutputData.OutputType.of(outputType), Map.of());
+            case null ->
+                throw new IllegalStateException("Output without output_type found");
+            default ->
+                throw new IllegalStateException("Unsupported output type found: " + outputType);
+        };
+    }
+
+    private static Map<String, String> readMimeBundle(JsonParser parser) {
+        expect(parser, JsonParser.Event.START_OBJECT);
+        Map<String, String> mimeBundle = new LinkedHashMap<>();
+        while (parser.next() == JsonParser.Event.KEY_NAME) {
+            var mimeType = parser.getString();
+            mimeBundle.put(mimeType, readMultilineString(parser));
+        }
+        return Collections.unmodifiableMap(mimeBundle);
+    }
+
+    /**
+     * Reads a string stored either as a single string or as an array of
+     * lines.
+     */
+    static String readMultilineString(JsonParser parser) {
+        return switch (parser.next()) {
+            case VALUE_STRING ->
+                parser.getString();
+            case START_ARRAY -> {
+                StringBuilder sb = null;
+                String first = null;
+                while (parser.next() != JsonParser.Event.END_ARRAY) {
+                    var line = currentString(parser);
+                    if (null == first) {
+                        first = line;
+                    } else {
+                        if (null == sb) {
+                            sb = new StringBuilder(first);
+                        }
+                        sb.append(line);
+                    }
+                }
+                yield null != sb ? sb.toString() : null != first ? first : "";
+            }
+            default ->
+                throw new IllegalStateException("Unsupported conversion to String from " + parser.getValue());
+        };
+    }
+
+    private static String currentString(JsonParser parser) {
+        if (parser.currentEvent() != JsonParser.Event.VALUE_STRING) {
+            throw new IllegalStateException("Unsupported conversion to String from " + parser.getValue());
+        }
+        return parser.getString();
+    }
+
+    private static Object readValue(JsonParser parser) {
+        return switch (parser.currentEvent()) {
+            case START_OBJECT -> {
+                Map<String, Object> map = new LinkedHashMap<>();
+                while (parser.next() == JsonParser.Event.KEY_NAME) {
+                    var key = parser.getString();
+                    parser.next();
+                    map.put(key, readValue(parser));
+                }
+                yield map;
+            }
+            case START_ARRAY -> {
+                List<Object> list = new ArrayList<>();
+                while (parser.next() != JsonParser.Event.END_ARRAY) {
+                    list.add(readValue(parser));
+                }
+                yield list;
+            }
+            case VALUE_STRING ->
+                parser.getString();
+            case VALUE_NUMBER ->
+                parser.getBigDecimal();
+            case VALUE_TRUE ->
+                true;
+            case VALUE_FALSE ->
+                false;
+            case VALUE_NULL ->
+                null;
+            default ->
+                throw new IllegalStateException("Unexpected json token " + parser.currentEvent());
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            return Collections.unmodifiableMap((Map<String, Object>) map);
+        }
+        throw new IllegalStateException("Unsupported metadata " + value);
+    }
+
+    private static void skipValue(JsonParser parser) {
+        switch (parser.next()) {
+            case START_OBJECT ->
+                parser.skipObject();
+            case START_ARRAY ->
+                parser.skipArray();
+            default -> {
+                // scalar values are consumed by next()
+            }
+        }
+    }
+
+    private static void expect(JsonParser parser, JsonParser.Event expected) {
+        var event = parser.next();
+        if (event != expected) {
+            throw new IllegalStateException("Expected " + expected + " but found " + event);
+        }
+    }
+}
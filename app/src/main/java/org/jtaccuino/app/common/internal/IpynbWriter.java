@@ -0,0 +1,227 @@
+/*
+ * Copyright 2026 JTaccuino Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jtaccuino.app.common.internal;
+
+import jakarta.json.Json;
+import jakarta.json.stream.JsonGenerator;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.AclFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jtaccuino.core.ui.api.CellData;
+
+/**
+ * Writes an ipynb document directly from {@link CellData} with a json
+ * generator. The document is written to a temporary file next to the target,
+ * forced to disk and then moved over the target, so an interrupted save never
+ * leaves a truncated notebook behind. The permissions of the target are kept
+ * and a symbolic link target is replaced by writing through the link. If no
+ * file can be created next to the target (e.g. a writable notebook in a
+ * read-only directory), the target is overwritten in place.
+ */
+public final class IpynbWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Map<String, Object> metadata;
+    private final boolean includeOutput;
+    private final boolean compact;
+
+    /**
+     * @param metadata the notebook metadata
+     * @param includeOutput whether cell outputs are written
+     * @param compact whether the json is written without pretty printing
+     */
+    public IpynbWriter(Map<String, Object> metadata, boolean includeOutput, boolean compact) {
+        this.metadata = metadata;
+        this.includeOutput = includeOutput;
+        this.compact = compact;
+    }
+
+    public void write(Path target, List<CellData> cells) throws IOException {
+        // a symbolic link is written through, not replaced
+        var file = Files.exists(target) ? target.toRealPath() : target.toAbsolutePath();
+        var directory = file.getParent();
+        // created like any other new file (i.e. honoring the umask), not owner only like Files.createTempFile
+        var tempFile = directory.resolve("." + file.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        FileChannel tempChannel;
+        try {
+            tempChannel = FileChannel.open(tempFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        } catch (IOException ex) {
+            if (!Files.isWritable(file)) {
+                throw ex;
+            }
+            // no new files can be created in the directory, only the notebook itself is writable
+            Logger.getLogger(IpynbWriter.class.getName()).log(Level.FINE, "Writing notebook " + file + " in place", ex);
+            try (var channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeTo(channel, cells);
+            }
+            return;
+        }
+        try {
+            try (var channel = tempChannel) {
+                writeTo(channel, cells);
+            }
+            if (Files.exists(file)) {
+                copyPermissions(file, tempFile);
+            }
+            try {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            forceDirectory(directory);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private void writeTo(FileChannel channel, List<CellData> cells) throws IOException {
+        var writer = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8), BUFFER_SIZE);
+        var generator = Json.createGeneratorFactory(compact ? Map.of() : Map.of(JsonGenerator.PRETTY_PRINTING, true))
+                .createGenerator(writer);
+        writeNotebook(generator, cells);
+        generator.flush();
+        channel.force(true);
+    }
+
+    /**
+     * Keeps the permissions of the replaced notebook file.
+     */
+    private static void copyPermissions(Path from, Path to) throws IOException {
+        var posix = Files.getFileAttributeView(from, PosixFileAttributeView.class);
+        if (null != posix) {
+            Files.setPosixFilePermissions(to, posix.readAttributes().permissions());
+        }
+        var acl = Files.getFileAttributeView(from, AclFileAttributeView.class);
+        if (null != acl) {
+            Files.getFileAttributeView(to, AclFileAttributeView.class).setAcl(acl.getAcl());
+        }
+    }
+
+    /**
+     * Makes the rename durable, not supported on all platforms (e.g. Windows).
+     */
+    private static void forceDirectory(Path directory) {
+        try (var channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ex) {
+            // best effort only
+        }
+    }
+
+    private void writeNotebook(JsonGenerator generator, List<CellData> cells) {
+        generator.writeStartObject();
+        generator.writeStartArray("cells");
+        for (CellData cell : cells) {
+            if (!cell.isEmpty()) {
+                writeCell(generator, cell);
+            }
+        }
+        generator.writeEnd();
+        generator.writeKey("metadata");
+        writeValue(generator, metadata);
+        generator.write("nbformat", 4);
+        generator.write("nbformat_minor", 5);
+        generator.writeEnd();
+    }
+
+    private void writeCell(JsonGenerator generator, CellData cell) {
+        generator.writeStartObject();
+        generator.write("cell_type", cell.getType().name().toLowerCase(Locale.ENGLISH));
+        if (CellData.Type.CODE == cell.getType()) {
+            generator.write("execution_count", 0);
+        }
+        generator.write("id", cell.getId().toString());
+        generator.writeStartObject("metadata").writeEnd();
+        if (CellData.Type.CODE == cell.getType()) {
+            generator.writeStartArray("outputs");
+            if (includeOutput) {
+                cell.getOutputData().forEach(outputData -> writeOutput(generator, outputData));
+            }
+            generator.writeEnd();
+        }
+        generator.write("source", cell.getSource());
+        generator.writeEnd();
+    }
+
+    static void writeOutput(JsonGenerator generator, CellData.OutputData outputData) {
+        generator.writeStartObject();
+        switch (outputData) {
+            case CellData.MimeTypeBasedOutputData od -> {
+                generator.writeStartObject("data");
+                od.mimeTypes().forEach(mimeType -> generator.write(mimeType, od.inlinedEntry(mimeType)));
+                generator.writeEnd();
+                generator.writeStartObject("metadata").writeEnd();
+                generator.write("output_type", od.type().toOutputType());
+            }
+            case CellData.StreamBasedOutputData od -> {
+                generator.write("name", od.name());
+                generator.write("output_type", "stream");
+                generator.write("text", od.data());
+            }
+        }
+        generator.writeEnd();
+    }
+
+    private static void writeValue(JsonGenerator generator, Object value) {
+        switch (value) {
+            case null ->
+                generator.writeNull();
+            case Map<?, ?> map -> {
+                generator.writeStartObject();
+                map.forEach((k, v) -> {
+                    generator.writeKey(String.valueOf(k));
+                    writeValue(generator, v);
+                });
+                generator.writeEnd();
+            }
+            case List<?> list -> {
+                generator.writeStartArray();
+                list.forEach(v -> writeValue(generator, v));
+                generator.writeEnd();
+            }
+            case Boolean b ->
+                generator.write(b);
+            case Integer i ->
+                generator.write(i);
+            case Long l ->
+                generator.write(l);
+            case BigDecimal bd ->
+                generator.write(bd);
+            case Number n ->
+                generator.write(n.doubleValue());
+            default ->
+                generator.write(value.toString());
+        }
+    }
+}
@@ -0,0 +1,322 @@
+/*
+ * Copyright 2026 JTaccuino Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jtaccuino.app.common.internal;
+
+import jakarta.json.Json;
+import jakarta.json.JsonException;
+import jakarta.json.JsonNumber;
+import jakarta.json.JsonString;
+import jakarta.json.stream.JsonParser;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import org.jtaccuino.core.ui.api.CellData;
+
+/**
+ * Append only journal of the cell changes of a notebook since it was last
+ * saved. Changes are recorded as snapshots of the changed cells on the fx
+ * thread, {@link #flush()} appends them as json lines to the journal file.
+ * Replaying the journal on top of the saved notebook restores the unsaved
+ * state. The journal starts with the last modified time and size of the
+ * notebook file it was written for, it is only replayed on top of that version
+ * of the file.
+ */
+public final class NotebookJournal {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private record CellSnapshot(UUID id, CellData.Type type, String source, List<CellData.OutputData> outputs) {
+    }
+
+    /**
+     * The version of the notebook file a journal was written for.
+     */
+    public record Base(long lastModified, long size) {
+
+        /**
+         * Returns the version of the file, null if it does not exist.
+         */
+        public static Base of(Path file) {
+            try {
+                return new Base(Files.getLastModifiedTime(file).toMillis(), Files.size(file));
+            } catch (IOException ex) {
+                return null;
+            }
+        }
+    }
+
+    private final Map<UUID, CellSnapshot> changedCells = new ConcurrentHashMap<>();
+    private final AtomicReference<List<UUID>> changedOrder = new AtomicReference<>();
+    private volatile Path path;
+    private volatile Base base;
+
+    /**
+     * @param path the journal file, null if the notebook has no local file
+     * @param base the version of the notebook file the changes are based on
+     */
+    public NotebookJournal(Path path, Base base) {
+        this.path = path;
+        this.base = base;
+    }
+
+    public void cellChanged(CellData cell) {
+        if (null == path) {
+            // nothing to journal for notebooks without a local file
+            return;
+        }
+        changedCells.put(cell.getId(), new CellSnapshot(cell.getId(), cell.getType(), cell.getSource(), List.copyOf(cell.getOutputData())));
+    }
+
+    public void orderChanged(List<? extends CellData> cells) {
+        if (null == path) {
+            return;
+        }
+        changedOrder.set(cells.stream().map(CellData::getId).toList());
+    }
+
+    /**
+     * Forgets all recorded changes, e.g. after they were saved to the notebook
+     * file.
+     */
+    public void clearChanges() {
+        changedCells.clear();
+        changedOrder.set(null);
+    }
+
+    /**
+     * Deletes the journal file and continues journaling into the given one,
+     * based on the given version of the notebook file.
+     */
+    public void reset(Path newPath, Base newBase) throws IOException {
+        if (null != path) {
+            Files.deleteIfExists(path);
+        }
+        path = newPath;
+        base = newBase;
+    }
+
+    /**
+     * Appends all changes recorded since the last flush to the journal file,
+     * must not be called concurrently.
+     */
+    public void flush() throws IOException {
+        var journalPath = path;
+        if (null == journalPath || (changedCells.isEmpty() && null == changedOrder.get())) {
+            return;
+        }
+        List<CellSnapshot> cells = new ArrayList<>();
+        // a snapshot replaced concurrently stays for the next flush
+        List.copyOf(changedCells.entrySet()).forEach(entry -> {
+            if (changedCells.remove(entry.getKey(), entry.getValue())) {
+                cells.add(entry.getValue());
+            }
+        });
+        var order = changedOrder.getAndSet(null);
+        Files.createDirectories(journalPath.getParent());
+        try (var channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            var writer = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8), BUFFER_SIZE);
+            if (0 == channel.size()) {
+                writeBase(writer, base);
+            }
+            for (CellSnapshot cell : cells) {
+                writeCell(writer, cell);
+            }
+            if (null != order) {
+                writeOrder(writer, order);
+            }
+            writer.flush();
+            channel.force(false);
+        }
+    }
+
+    private static void writeBase(Writer writer, Base base) throws IOException {
+        try (var generator = Json.createGenerator(new LineWriter(writer))) {
+            generator.writeStartObject();
+            if (null == base) {
+                generator.writeNull("base");
+            } else {
+                generator.writeStartObject("base");
+                generator.write("last_modified", base.lastModified());
+                generator.write("size", base.size());
+                generator.writeEnd();
+            }
+            generator.writeEnd();
+        }
+        writer.write('\n');
+    }
+
+    private static void writeCell(Writer writer, CellSnapshot cell) throws IOException {
+        try (var generator = Json.createGenerator(new LineWriter(writer))) {
+            generator.writeStartObject();
+            generator.write("cell", cell.id().toString());
+            generator.write("cell_type", cell.type().name().toLowerCase(Locale.ENGLISH));
+            if (null == cell.source()) {
+                generator.writeNull("source");
+            } else {
+                generator.write("source", cell.source());
+            }
+            generator.writeStartArray("outputs");
+            cell.outputs().forEach(outputData -> IpynbWriter.writeOutput(generator, outputData));
+            generator.writeEnd();
+            generator.writeEnd();
+        }
+        writer.write('\n');
+    }
+
+    private static void writeOrder(Writer writer, List<UUID> order) throws IOException {
+        try (var generator = Json.createGenerator(new LineWriter(writer))) {
+            generator.writeStartObject();
+            generator.writeStartArray("order");
+            order.forEach(id -> generator.write(id.toString()));
+            generator.writeEnd();
+            generator.writeEnd();
+        }
+        writer.write('\n');
+    }
+
+    /**
+     * Applies the journal to the cells read from the notebook file, unless the
+     * journal was written for another version of the file. A truncated last
+     * entry (e.g. after a crash during a flush) is ignored.
+     *
+     * @param base the version of the notebook file the cells were read from
+     * @return the cells in their journaled order, empty if the journal does
+     * not belong to that version of the file
+     */
+    public static Optional<List<CellData>> replay(Path journal, List<CellData> cells, Base base) throws IOException {
+        Map<UUID, CellData> cellsById = new LinkedHashMap<>();
+        cells.forEach(cell -> cellsById.put(cell.getId(), cell));
+        List<UUID> order = cells.stream().map(CellData::getId).toList();
+        try (BufferedReader reader = Files.newBufferedReader(journal, StandardCharsets.UTF_8)) {
+            var header = reader.readLine();
+            if (null == header || null == base || !base.equals(readBase(header))) {
+                return Optional.empty();
+            }
+            String line;
+            while (null != (line = reader.readLine())) {
+                try (var parser = Json.createParser(new StringReader(line))) {
+                    var replayedOrder = replayEntry(parser, cellsById);
+                    if (null != replayedOrder) {
+                        order = replayedOrder;
+                    }
+                } catch (JsonException | IllegalStateException ex) {
+                    break;
+                }
+            }
+        }
+        List<CellData> replayed = new ArrayList<>();
+        for (UUID id : order) {
+            var cell = cellsById.remove(id);
+            if (null != cell) {
+                replayed.add(cell);
+            }
+        }
+        return Optional.of(replayed);
+    }
+
+    private static Base readBase(String header) {
+        try (var parser = Json.createParser(new StringReader(header))) {
+            if (parser.next() != JsonParser.Event.START_OBJECT || parser.next() != JsonParser.Event.KEY_NAME
+                    || !"base".equals(parser.getString()) || parser.next() != JsonParser.Event.START_OBJECT) {
+                return null;
+            }
+            var base = parser.getObject();
+            return base.get("last_modified") instanceof JsonNumber lastModified && base.get("size") instanceof JsonNumber size
+                    ? new Base(lastModified.longValue(), size.longValue()) : null;
+        } catch (JsonException | IllegalStateException ex) {
+            return null;
+        }
+    }
+
+    private static List<UUID> replayEntry(JsonParser parser, Map<UUID, CellData> cellsById) {
+        if (parser.next() != JsonParser.Event.START_OBJECT) {
+            throw new IllegalStateException("Journal entry is not an object");
+        }
+        UUID id = null;
+        CellData.Type type = null;
+        String source = null;
+        List<CellData.OutputData> outputs = List.of();
+        List<UUID> order = null;
+        while (parser.next() == JsonParser.Event.KEY_NAME) {
+            switch (parser.getString()) {
+                case "cell" -> {
+                    parser.next();
+                    id = UUID.fromString(parser.getString());
+                }
+                case "cell_type" -> {
+                    parser.next();
+                    type = CellData.Type.of(parser.getString());
+                }
+                case "source" ->
+                    source = parser.next() == JsonParser.Event.VALUE_NULL ? null : parser.getString();
+                case "outputs" ->
+                    outputs = IpynbReader.readOutputs(parser);
+                case "order" -> {
+                    parser.next();
+                    order = parser.getArrayStream().map(value -> UUID.fromString(((JsonString) value).getString())).toList();
+                }
+                default ->
+                    throw new IllegalStateException("Unknown journal entry");
+            }
+        }
+        if (null != id) {
+            var cell = cellsById.get(id);
+            if (null == cell) {
+                cellsById.put(id, CellData.of(type, source, id, outputs));
+            } else {
+                cell.typeProperty().set(type);
+                cell.sourceProperty().set(source);
+                cell.getOutputData().setAll(outputs);
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Keeps the journal writer open when a json generator for a single entry
+     * is closed.
+     */
+    private static final class LineWriter extends FilterWriter {
+
+        LineWriter(Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2025 JTaccuino Contributors
+ * Copyright 2025-2026 JTaccuino Contributors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -29,7 +29,7 @@ import org.jtaccuino.app.common.NotebookPersistence;
 
 public class PersistenceManager {
 
-    private static Path getConfigBaseDirectory() {
+    public static Path getConfigBaseDirectory() {
         return Path.of(System.getProperty("user.home"), ".config", "jtaccuino");
     }
 
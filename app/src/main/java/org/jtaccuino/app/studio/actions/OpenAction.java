@@ -1,5 +1,5 @@
 /*
- * Copyright 2025 JTaccuino Contributors
+ * Copyright 2025-2026 JTaccuino Contributors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,7 +19,6 @@ import java.io.File;
 import javafx.event.ActionEvent;
 import javafx.stage.FileChooser;
 import org.jtaccuino.app.common.NotebookPersistence;
-import org.jtaccuino.core.ui.api.SheetManager;
 import org.jtaccuino.app.studio.WindowManager;
 import org.jtaccuino.core.ui.api.AbstractAction;
 
@@ -42,7 +41,7 @@ public final class OpenAction extends AbstractAction {
                 new FileChooser.ExtensionFilter("All Files", "*.*"));
         File selectedFile = fileChooser.showOpenDialog(WindowManager.getDefault().getMainWindow());
         if (null != selectedFile) {
-            SheetManager.getDefault().open(NotebookPersistence.INSTANCE.of(selectedFile.toURI()));
+            var unused = NotebookPersistence.INSTANCE.openAsync(selectedFile.toURI());
         }
     }
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2025 JTaccuino Contributors
+ * Copyright 2025-2026 JTaccuino Contributors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,7 +18,6 @@ package org.jtaccuino.app.studio.actions;
 import javafx.event.ActionEvent;
 import org.jtaccuino.app.common.NotebookPersistence;
 import org.jtaccuino.core.ui.api.AbstractAction;
-import org.jtaccuino.core.ui.api.SheetManager;
 
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -57,7 +56,7 @@ public final class OpenRemoteAction extends AbstractAction {
     private void openRemoteFile(String url) {
         if (Util.isValidUrl(url) && url.toLowerCase(Locale.ROOT).endsWith(".ipynb")) {
             try {
-                SheetManager.getDefault().open(NotebookPersistence.INSTANCE.of(new URI(url)));
+                var unused = NotebookPersistence.INSTANCE.openAsync(new URI(url));
             } catch (URISyntaxException ex) {
                 Logger.getLogger(OpenRemoteAction.class.getName()).log(Level.SEVERE, null, ex);
             }
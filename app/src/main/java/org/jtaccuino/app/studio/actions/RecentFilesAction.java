@@ -1,5 +1,5 @@
 /*
- * Copyright 2025 JTaccuino Contributors
+ * Copyright 2025-2026 JTaccuino Contributors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -45,7 +45,7 @@ public class RecentFilesAction extends AbstractAction implements DynamicAction {
 
         @Override
         public void handle(ActionEvent event) {
-            SheetManager.getDefault().open(NotebookPersistence.INSTANCE.of(uri));
+            var unused = NotebookPersistence.INSTANCE.openAsync(uri);
         }
     }
 
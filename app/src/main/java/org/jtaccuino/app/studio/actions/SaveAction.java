@@ -1,5 +1,5 @@
 /*
- * Copyright 2025 JTaccuino Contributors
+ * Copyright 2025-2026 JTaccuino Contributors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -33,9 +33,10 @@ public final class SaveAction extends SheetAction {
     protected void handle(Sheet sheet) {
         if (!sheet.getNotebook().getStorage().isLocal()) {
             SaveAsAction.INSTANCE.handle(sheet);
-        } else {
-            sheet.getNotebook().save();
+        } else if (sheet.getNotebook().save()) {
             StatusDisplayer.display("Saved notebook " + sheet.getNotebook().getDisplayName() + ".");
+        } else {
+            StatusDisplayer.display("Could not save notebook " + sheet.getNotebook().getDisplayName() + ".");
         }
     }
 }
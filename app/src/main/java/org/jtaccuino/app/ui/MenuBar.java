@@ -1,5 +1,5 @@
 /*
- * Copyright 2025 JTaccuino Contributors
+ * Copyright 2025-2026 JTaccuino Contributors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,6 +23,7 @@ import javafx.scene.control.MenuItem;
 import javafx.scene.control.SeparatorMenuItem;
 import org.jtaccuino.app.studio.actions.AboutAction;
 import org.jtaccuino.app.studio.actions.ExecuteNotebookAction;
+import org.jtaccuino.app.studio.actions.ExecuteOutdatedCellsAction;
 import org.jtaccuino.app.studio.actions.ExportAction;
 import org.jtaccuino.app.studio.actions.NewAction;
 import org.jtaccuino.app.studio.actions.OpenAction;
@@ -32,6 +33,7 @@ import org.jtaccuino.app.studio.actions.OpenRemoteAction;
 import org.jtaccuino.app.studio.actions.ResetAndExecuteNotebookAction;
 import org.jtaccuino.app.studio.actions.SaveAction;
 import org.jtaccuino.app.studio.actions.SaveAsAction;
+import org.jtaccuino.app.studio.actions.StopExecutionAction;
 import org.jtaccuino.core.ui.actions.ChangeCellToJavaAction;
 import org.jtaccuino.core.ui.actions.ChangeCellToMarkdownAction;
 import org.jtaccuino.core.ui.actions.InsertCellAboveAction;
@@ -81,12 +83,16 @@ public class MenuBar {
         );
 
         var executeMenu = createMenuItem(ExecuteNotebookAction.INSTANCE);
+        var executeOutdatedMenu = createMenuItem(ExecuteOutdatedCellsAction.INSTANCE);
+        var stopExecutionMenu = createMenuItem(StopExecutionAction.INSTANCE);
         var resetAndExecuteMenu = createMenuItem(ResetAndExecuteNotebookAction.INSTANCE);
 // Called from RTA for now, do not register to avoid duplicate triggering
 //        var executeCellMenu = createMenuItem(ExecuteCellAction.INSTANCE);
         var runMenu = new Menu("Run");
         runMenu.getItems().addAll(
                 executeMenu,
+                executeOutdatedMenu,
+                stopExecutionMenu,
                 resetAndExecuteMenu
         //                new SeparatorMenuItem(),
         //                executeCellMenu
@@ -1,5 +1,5 @@
 /*
- * Copyright 2025 JTaccuino Contributors
+ * Copyright 2025-2026 JTaccuino Contributors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,20 +15,35 @@
  */
 package org.jtaccuino.app.ui;
 
+import java.net.URI;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import javafx.beans.binding.Bindings;
 import javafx.scene.Node;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
+import javafx.scene.control.ButtonBar;
+import javafx.scene.control.ButtonType;
 import javafx.scene.control.Tab;
 import javafx.scene.control.TabPane;
 import javafx.scene.control.Tooltip;
 import org.jtaccuino.app.common.NotebookPersistence;
 import org.jtaccuino.app.persistence.FilePersistence;
 import org.jtaccuino.app.persistence.PersistenceManager;
+import org.jtaccuino.app.studio.WindowManager;
 import org.jtaccuino.core.ui.Sheet;
 import org.jtaccuino.core.ui.api.SheetManager;
+import org.jtaccuino.core.ui.api.StatusDisplayer;
 
 public class TabbedSheetNotebookUI {
 
     private TabPane sheetPane;
     private Node node;
+    // notebooks of the last session, kept open until they are all loaded
+    private List<URI> restoringUris = List.of();
+    private CompletableFuture<Void> restoring = CompletableFuture.completedFuture(null);
 
     public TabbedSheetNotebookUI() {
         node = createNode();
@@ -63,24 +78,27 @@ public class TabbedSheetNotebookUI {
         if (openFiles.isEmpty()) {
             sheetPane.getTabs().add(new TabSheet(SheetManager.getDefault().of(NotebookPersistence.INSTANCE.of())));
         } else {
-            openFiles.forEach(file -> {
-                SheetManager.getDefault().open(NotebookPersistence.INSTANCE.of(file.uri()));
-            });
+            restoringUris = openFiles.stream().map(FilePersistence.OpenFile::uri).toList();
+            restoring = NotebookPersistence.INSTANCE.openAsync(restoringUris);
         }
     }
 
     void shutdown() {
         var files = FilePersistence.getDefault();
         files.reset();
+        Set<URI> openUris = new LinkedHashSet<>();
+        if (!restoring.isDone()) {
+            // closed before all notebooks of the last session were loaded
+            openUris.addAll(restoringUris);
+        }
         sheetPane.getTabs().stream()
                 .filter(t -> t instanceof TabSheet)
                 .map(t -> (TabSheet) t)
                 .forEach(t -> {
-                    t.sheet.getNotebook().getStorage().getURI().ifPresent(uri
-                            -> files.add(new FilePersistence.OpenFile(uri))
-                    );
+                    t.sheet.getNotebook().getStorage().getURI().ifPresent(openUris::add);
                     t.close(false);
                 });
+        openUris.forEach(uri -> files.add(new FilePersistence.OpenFile(uri)));
         SheetManager.getDefault().getRecentFiles().forEach(rf -> {
             files.add(new FilePersistence.RecentFile(rf.uri()));
         });
@@ -94,18 +112,54 @@ public class TabbedSheetNotebookUI {
 
         TabSheet(Sheet sheet) {
             super(sheet.getNotebook().getDisplayName(), sheet);
-            this.textProperty().bind(sheet.getNotebook().displayNameProperty());
+            var notebook = sheet.getNotebook();
+            this.textProperty().bind(Bindings.createStringBinding(
+                    () -> (notebook.isDirty() ? "* " : "") + notebook.getDisplayName(),
+                    notebook.dirtyProperty(), notebook.displayNameProperty()));
             this.sheet = sheet;
             this.onCloseRequestProperty().set((t) -> {
-                this.close(true);
+                if (confirmClose()) {
+                    this.close(true);
+                } else {
+                    t.consume();
+                }
             });
             sheet.getNotebook().getStorage().getURI().ifPresentOrElse(uri
                     -> this.setTooltip(new Tooltip(uri.toString())),
                     () -> this.setTooltip(new Tooltip("No Location")));
         }
 
-        void close(boolean makeNotebookRecent) {
-            SheetManager.getDefault().close(this.sheet, makeNotebookRecent);
+        /**
+         * Asks whether to save the unsaved changes of a local notebook,
+         * returns false if closing was cancelled or saving failed.
+         */
+        private boolean confirmClose() {
+            var notebook = sheet.getNotebook();
+            if (!notebook.isDirty() || !notebook.getStorage().isLocal()) {
+                return true;
+            }
+            var dontSave = new ButtonType("Don't Save", ButtonBar.ButtonData.NO);
+            var alert = new Alert(Alert.AlertType.CONFIRMATION, null, ButtonType.YES, dontSave, ButtonType.CANCEL);
+            alert.initOwner(WindowManager.getDefault().getMainWindow());
+            alert.setTitle("Unsaved Changes");
+            alert.setHeaderText("Save the changes of notebook " + notebook.getDisplayName() + "?");
+            alert.setContentText("Changes that are not saved are lost.");
+            ((Button) alert.getDialogPane().lookupButton(ButtonType.YES)).setText("Save");
+            var answer = alert.showAndWait().orElse(ButtonType.CANCEL);
+            if (ButtonType.YES == answer && !notebook.save()) {
+                StatusDisplayer.display("Could not save notebook " + notebook.getDisplayName() + ", it is kept open.");
+                return false;
+            }
+            return ButtonType.CANCEL != answer;
+        }
+
+        /**
+         * Closes the sheet, when closed by the user unsaved changes are
+         * discarded, otherwise (e.g. on shutdown) they are recovered when the
+         * notebook is opened again.
+         */
+        void close(boolean closedByUser) {
+            SheetManager.getDefault().close(this.sheet, closedByUser, closedByUser);
         }
     }
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2025 JTaccuino Contributors
+ * Copyright 2025-2026 JTaccuino Contributors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,11 +19,17 @@ import javafx.scene.Node;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import org.jtaccuino.app.studio.actions.ExecuteNotebookAction;
+import org.jtaccuino.app.studio.actions.ExecuteOutdatedCellsAction;
 import org.jtaccuino.app.studio.actions.NewAction;
 import org.jtaccuino.app.studio.actions.OpenAction;
 import org.jtaccuino.app.studio.actions.ResetAndExecuteNotebookAction;
 import org.jtaccuino.app.studio.actions.SaveAction;
+import org.jtaccuino.app.studio.actions.StopExecutionAction;
+import org.jtaccuino.app.studio.actions.ToggleExecutionModeAction;
+import org.jtaccuino.core.ui.Sheet;
+import static org.jtaccuino.core.ui.UiUtils.createSVGToggleToolbarButton;
 import static org.jtaccuino.core.ui.UiUtils.createSVGToolbarButton;
+import org.jtaccuino.core.ui.api.SheetManager;
 
 public class ToolBar {
 
@@ -44,9 +50,14 @@ public class ToolBar {
         var load = createSVGToolbarButton("load-notebook", "Load Notebook", "main-toolbar-button", OpenAction.INSTANCE);
         var save = createSVGToolbarButton("save-notebook", "Save Notebook", "main-toolbar-button", SaveAction.INSTANCE);
         var execute = createSVGToolbarButton("execute-notebook", "Execute Notebook", "main-toolbar-button", ExecuteNotebookAction.INSTANCE);
+        var executionMode = createSVGToggleToolbarButton("execution-mode", "Dependency-Ordered Execution", "main-toolbar-button", ToggleExecutionModeAction.INSTANCE);
+        SheetManager.getDefault().activeSheet().subscribe(sheet
+                -> executionMode.setSelected(null != sheet && Sheet.ExecutionMode.DEPENDENCY_ORDERED == sheet.getExecutionMode()));
+        var executeOutdated = createSVGToolbarButton("execute-outdated-notebook", "Execute Outdated Cells", "main-toolbar-button", ExecuteOutdatedCellsAction.INSTANCE);
+        var stopExecution = createSVGToolbarButton("stop-execution", "Stop Execution", "main-toolbar-button", StopExecutionAction.INSTANCE);
         var resetAndExecute = createSVGToolbarButton("reset-execute-notebook", "Reset Shell And Execute Notebook", "main-toolbar-button", ResetAndExecuteNotebookAction.INSTANCE);
 
-        var toolbar = new HBox(empty, load, save, execute, resetAndExecute);
+        var toolbar = new HBox(empty, load, save, execute, executionMode, executeOutdated, stopExecution, resetAndExecute);
         HBox.setHgrow(toolbar, Priority.NEVER);
         toolbar.maxWidthProperty().bind(toolbar.prefWidthProperty());
         toolbar.getStyleClass().add("main-toolbar");
@@ -1,5 +1,5 @@
 /*
- * Copyright 2025 JTaccuino Contributors
+ * Copyright 2025-2026 JTaccuino Contributors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,15 +22,28 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 import org.jtaccuino.app.common.internal.IpynbFormat;
+import org.jtaccuino.app.common.internal.IpynbReader;
+import org.jtaccuino.app.common.internal.IpynbWriter;
+import org.jtaccuino.app.common.internal.NotebookJournal;
+import org.jtaccuino.core.ui.api.CellData;
+import org.jtaccuino.jshell.extensions.dependency.DependencyLock;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -55,16 +68,219 @@ public class NotebookPersistenceTest {
         nb.saveAs(new File(tempDir, "writtenNotebook.ipynb"));
     }
 
+    @ParameterizedTest
+    @MethodSource("exampleNotebookFiles")
+    void writtenNotebookReadsBackUnchanged(File notebookFile) throws Exception {
+        var cells = readCells(notebookFile);
+        var written = new File(tempDir, "writtenNotebook.ipynb");
+        new IpynbWriter(Map.of(), true, true).write(written.toPath(), cells);
+
+        try (Jsonb jsonb = JsonbBuilder.create(); var reader = new FileReader(written, StandardCharsets.UTF_8)) {
+            var readBack = jsonb.fromJson(reader, IpynbFormat.class).toCellDataList();
+            var expected = cells.stream().filter(c -> !c.isEmpty()).toList();
+            Assertions.assertEquals(expected.size(), readBack.size());
+            for (int i = 0; i < expected.size(); i++) {
+                Assertions.assertEquals(expected.get(i).getId(), readBack.get(i).getId());
+                Assertions.assertEquals(expected.get(i).getSource(), readBack.get(i).getSource());
+                Assertions.assertEquals(expected.get(i).getOutputData(), readBack.get(i).getOutputData());
+            }
+        }
+        Assertions.assertEquals(List.of(written), List.of(tempDir.listFiles()));
+    }
+
+    @Test
+    void writingKeepsPermissionsAndSymbolicLinks() throws Exception {
+        Assumptions.assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        var cells = List.of(CellData.of(CellData.Type.CODE, "var a = 1;", UUID.randomUUID()));
+        var notebook = new File(tempDir, "notebook.ipynb").toPath();
+        Files.writeString(notebook, "{}");
+        var permissions = PosixFilePermissions.fromString("rw-rw-r--");
+        Files.setPosixFilePermissions(notebook, permissions);
+        var link = Files.createSymbolicLink(new File(tempDir, "link.ipynb").toPath(), notebook.getFileName());
+
+        new IpynbWriter(Map.of(), true, false).write(link, cells);
+
+        Assertions.assertTrue(Files.isSymbolicLink(link));
+        Assertions.assertEquals(permissions, Files.getPosixFilePermissions(notebook));
+        Assertions.assertEquals("var a = 1;", readCells(notebook.toFile()).getFirst().getSource());
+        Assertions.assertEquals(2, tempDir.listFiles().length);
+    }
+
+    @Test
+    void writingInPlaceInReadOnlyDirectory() throws Exception {
+        Assumptions.assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        var cells = List.of(CellData.of(CellData.Type.CODE, "var a = 1;", UUID.randomUUID()));
+        var directory = new File(tempDir, "shared").toPath();
+        Files.createDirectory(directory);
+        var notebook = directory.resolve("notebook.ipynb");
+        Files.writeString(notebook, "{}");
+        Files.setPosixFilePermissions(directory, PosixFilePermissions.fromString("r-xr-xr-x"));
+        try {
+            // the directory permissions do not apply to a privileged user
+            Assumptions.assumeFalse(Files.isWritable(directory));
+
+            new IpynbWriter(Map.of(), true, false).write(notebook, cells);
+
+            Assertions.assertEquals("var a = 1;", readCells(notebook.toFile()).getFirst().getSource());
+            try (var files = Files.list(directory)) {
+                Assertions.assertEquals(List.of(notebook), files.toList());
+            }
+        } finally {
+            Files.setPosixFilePermissions(directory, PosixFilePermissions.fromString("rwxr-xr-x"));
+        }
+    }
+
+    @Test
+    void streamOutputsKeepTheirStream() throws Exception {
+        var cell = CellData.of(CellData.Type.CODE, "System.err.println(\"b\");", UUID.randomUUID());
+        cell.getOutputData().add(CellData.OutputData.ofStream(CellData.OutputData.OutputType.DISPLAY_DATA, "stdout", "a\n"));
+        cell.getOutputData().add(CellData.OutputData.ofStream(CellData.OutputData.OutputType.DISPLAY_DATA, "stderr", "b\n"));
+        var written = new File(tempDir, "streams.ipynb");
+        new IpynbWriter(Map.of(), true, true).write(written.toPath(), List.of(cell));
+
+        Assertions.assertEquals(cell.getOutputData(), readCells(written).getFirst().getOutputData());
+        try (Jsonb jsonb = JsonbBuilder.create(); var reader = new FileReader(written, StandardCharsets.UTF_8)) {
+            Assertions.assertEquals(cell.getOutputData(), jsonb.fromJson(reader, IpynbFormat.class).toCellDataList().getFirst().getOutputData());
+        }
+    }
+
+    @Test
+    void binaryOutputsAreInlinedAsBase64() throws Exception {
+        var content = new byte[64 * 1024];
+        new Random(42).nextBytes(content);
+        var cell = CellData.of(CellData.Type.CODE, "display(image);", UUID.randomUUID());
+        cell.getOutputData().add(CellData.OutputData.of(CellData.OutputData.OutputType.DISPLAY_DATA, "image/png", content));
+        var written = new File(tempDir, "binary.ipynb");
+        new IpynbWriter(Map.of(), true, true).write(written.toPath(), List.of(cell));
+
+        var readBack = (CellData.MimeTypeBasedOutputData) readCells(written).getFirst().getOutputData().getFirst();
+        Assertions.assertEquals(cell.getOutputData().getFirst(), readBack);
+        Assertions.assertEquals(Base64.getEncoder().encodeToString(content), readBack.inlinedEntry("image/png"));
+        try (var in = readBack.binaryBundle().get("image/png").asInputStream()) {
+            Assertions.assertArrayEquals(content, in.readAllBytes());
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("exampleNotebookFiles")
+    void journalReplaysUnsavedChanges(File notebookFile) throws Exception {
+        var cells = readCells(notebookFile);
+        var changed = readCells(notebookFile);
+        var base = NotebookJournal.Base.of(notebookFile.toPath());
+        var journalFile = new File(tempDir, "notebook.jsonl").toPath();
+        var journal = new NotebookJournal(journalFile, base);
+        changed.getFirst().sourceProperty().set("changed source");
+        journal.cellChanged(changed.getFirst());
+        journal.flush();
+        var added = CellData.of(CellData.Type.CODE, "var added = 1;", UUID.randomUUID());
+        List<CellData> reordered = new ArrayList<>(changed.subList(1, changed.size()));
+        reordered.add(added);
+        journal.cellChanged(added);
+        journal.orderChanged(reordered);
+        journal.flush();
+        // a truncated entry written by an interrupted flush is ignored
+        Files.writeString(journalFile, "{\"cell\":\"", StandardOpenOption.APPEND);
+
+        var replayed = NotebookJournal.replay(journalFile, cells, base).orElseThrow();
+        Assertions.assertEquals(reordered.stream().map(CellData::getId).toList(), replayed.stream().map(CellData::getId).toList());
+        Assertions.assertEquals("var added = 1;", replayed.getLast().getSource());
+        if (cells.size() > 1) {
+            Assertions.assertEquals(changed.get(1).getSource(), replayed.getFirst().getSource());
+        }
+        Assertions.assertEquals("changed source", cells.getFirst().getSource());
+    }
+
+    @Test
+    void journalOfChangedNotebookFileIsNotReplayed() throws Exception {
+        var notebookFile = locateAllExampleNotebookFiles().getFirst();
+        var cells = readCells(notebookFile);
+        var base = NotebookJournal.Base.of(notebookFile.toPath());
+        var journalFile = new File(tempDir, "notebook.jsonl").toPath();
+        var journal = new NotebookJournal(journalFile, base);
+        var changed = readCells(notebookFile).getFirst();
+        changed.sourceProperty().set("changed source");
+        journal.cellChanged(changed);
+        journal.flush();
+
+        var newerBase = new NotebookJournal.Base(base.lastModified() + 1000, base.size());
+        Assertions.assertTrue(NotebookJournal.replay(journalFile, cells, newerBase).isEmpty());
+        Assertions.assertNotEquals("changed source", cells.getFirst().getSource());
+        Assertions.assertTrue(NotebookJournal.replay(journalFile, cells, base).isPresent());
+        Assertions.assertEquals("changed source", cells.getFirst().getSource());
+    }
+
+    private static List<CellData> readCells(File notebookFile) throws IOException {
+        try (var reader = new FileReader(notebookFile, StandardCharsets.UTF_8)) {
+            return IpynbReader.read(reader).toCellDataList();
+        }
+    }
+
+    @Test
+    void dependencyLockIsStoredInNotebookMetadata() throws Exception {
+        var lock = DependencyLock.fromMetadata(List.of(Map.of(
+                "request", List.of("org.example:lib:[1.0,2.0)"),
+                "artifacts", List.of(
+                        Map.of("depth", 0, "group_id", "org.example", "artifact_id", "lib", "classifier", "",
+                                "base_version", "1.5", "version", "1.5", "path", "/repo/lib-1.5.jar", "sha256", "0123"),
+                        Map.of("depth", 1, "group_id", "org.example", "artifact_id", "base", "classifier", "",
+                                "base_version", "2.0", "version", "2.0", "path", "/repo/base-2.0.jar")))));
+        var written = new File(tempDir, "lockedNotebook.ipynb");
+        var cells = List.of(CellData.of(CellData.Type.CODE, "addDependency(\"org.example:lib:[1.0,2.0)\");", UUID.randomUUID()));
+        Assertions.assertTrue(NotebookPersistence.INSTANCE.toFile(written, cells, true, lock));
+
+        IpynbReader readBack;
+        try (var reader = new FileReader(written, StandardCharsets.UTF_8)) {
+            readBack = IpynbReader.read(reader);
+        }
+        var lockMetadata = lock.toMetadata();
+        Assertions.assertEquals(2, ((List<?>) lockMetadata.getFirst().get("artifacts")).size());
+        Assertions.assertEquals(lockMetadata, DependencyLock.fromMetadata(readBack.metadata().get(DependencyLock.METADATA_KEY)).toMetadata());
+    }
+
+    @Test
+    void unusedDependencyLockEntriesAreDropped() {
+        var lock = DependencyLock.fromMetadata(List.of(
+                Map.of("request", List.of("org.example:lib:1.0"), "artifacts", List.of(
+                        Map.of("depth", 0, "group_id", "org.example", "artifact_id", "lib", "classifier", "",
+                                "base_version", "1.0", "version", "1.0"))),
+                Map.of("request", List.of("org.example:removed:1.0"), "artifacts", List.of(
+                        Map.of("depth", 0, "group_id", "org.example", "artifact_id", "removed", "classifier", "",
+                                "base_version", "1.0", "version", "1.0")))));
+
+        lock.retainUsed(List.of("addDependency(\"org.example:lib:1.0\");", "var a = 1;"));
+
+        Assertions.assertEquals(List.of(List.of("org.example:lib:1.0")),
+                lock.toMetadata().stream().map(entry -> entry.get("request")).toList());
+        lock.retainUsed(List.of());
+        Assertions.assertTrue(lock.isEmpty());
+    }
+
     @ParameterizedTest
     @MethodSource("exampleNotebookFiles")
     void canIpynbFormatReadFileAsIs(File notebookFile) throws Exception {
-        try (Jsonb jsonb = JsonbBuilder.create()) {
-            var ipynb = jsonb.fromJson(new FileReader(notebookFile, StandardCharsets.UTF_8), IpynbFormat.class);
+        try (Jsonb jsonb = JsonbBuilder.create(); var reader = new FileReader(notebookFile, StandardCharsets.UTF_8)) {
+            var ipynb = jsonb.fromJson(reader, IpynbFormat.class);
             System.out.println("ipynb: " + ipynb);
             ipynb.toCellDataList().forEach(System.out::println);
         }
     }
 
+    @ParameterizedTest
+    @MethodSource("exampleNotebookFiles")
+    void streamingReaderMatchesIpynbFormat(File notebookFile) throws Exception {
+        try (Jsonb jsonb = JsonbBuilder.create(); var reader = new FileReader(notebookFile, StandardCharsets.UTF_8)) {
+            var expected = jsonb.fromJson(reader, IpynbFormat.class).toCellDataList();
+            var actual = readCells(notebookFile);
+            Assertions.assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                Assertions.assertEquals(expected.get(i).getId(), actual.get(i).getId());
+                Assertions.assertEquals(expected.get(i).getType(), actual.get(i).getType());
+                Assertions.assertEquals(expected.get(i).getSource(), actual.get(i).getSource());
+                Assertions.assertEquals(expected.get(i).getOutputData(), actual.get(i).getOutputData());
+            }
+        }
+    }
+
     @ParameterizedTest
     @MethodSource("exampleNotebookFiles")
     void canIpynbFormatReadFileConvertedToCompat(File notebookFile) throws Exception {
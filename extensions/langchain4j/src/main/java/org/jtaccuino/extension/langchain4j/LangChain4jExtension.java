@@ -1,5 +1,5 @@
 /*
- * Copyright 2025 JTaccuino Contributors
+ * Copyright 2025-2026 JTaccuino Contributors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -63,7 +63,7 @@ public class LangChain4jExtension implements JShellExtension {
 
     @Override
     public Optional<String> initCodeSnippet() {
-        var dependencies = DEPS.stream().map(dep -> "addDependency(\"" + dep + "\");").collect(Collectors.joining("\n"));
+        var dependencies = DEPS.stream().map(dep -> "\"" + dep + "\"").collect(Collectors.joining(", ", "addDependencies(", ");"));
         var imports = IMPORTS.stream().map(imp -> "import " + imp + ";").collect(Collectors.joining("\n"));
         return Optional.of(dependencies + "\n" + imports);
     }
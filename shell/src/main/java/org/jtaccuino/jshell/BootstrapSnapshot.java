@@ -0,0 +1,86 @@
+/*
+ * Copyright 2026 JTaccuino Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jtaccuino.jshell;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jdk.jshell.Snippet;
+import jdk.jshell.SnippetEvent;
+import org.jtaccuino.jshell.extensions.JShellExtension;
+
+/**
+ * The snippets evaluated while bootstrapping a shell, already split into
+ * complete snippets. Replaying a snapshot skips the source analysis of the
+ * bootstrap code and the generation of the extension init code.
+ *
+ * @param key the environment the snapshot was recorded in
+ * @param uuid the shell uuid used while recording, replaced by the uuid of
+ * the shell the snapshot is replayed into
+ * @param snippetSources the sources of all snippets in evaluation order
+ * @param remoteExtensions the class names of the extensions notified after
+ * each snippet executed by a remote kernel
+ * @param unavailableExtensions the simple class names of the extensions not
+ * available in a remote kernel
+ */
+record BootstrapSnapshot(Key key, UUID uuid, List<String> snippetSources,
+        List<String> remoteExtensions, List<String> unavailableExtensions) {
+
+    /**
+     * Everything the bootstrap code depends on. The init code of extensions
+     * may depend on the available extensions (e.g. the use extension), so
+     * all extension classes are part of the key.
+     */
+    record Key(Runtime.Version jdkVersion, KernelConfiguration.Engine engine,
+            List<String> systemExtensions, List<String> onDemandExtensions) {
+
+        static Key of(KernelConfiguration.Engine engine, List<JShellExtension.Factory> systemExtensionFactories) {
+            return new Key(Runtime.version(), engine,
+                    systemExtensionFactories.stream().map(f -> f.getClass().getName()).toList(),
+                    JShellExtension.Mode.ON_DEMAND.getExtensionClasses().stream().map(Class::getName).sorted().toList());
+        }
+    }
+
+    BootstrapSnapshot {
+        snippetSources = List.copyOf(snippetSources);
+        remoteExtensions = List.copyOf(remoteExtensions);
+        unavailableExtensions = List.copyOf(unavailableExtensions);
+    }
+
+    /**
+     * Evaluates the recorded snippets in the given shell.
+     *
+     * @return whether all snippets were evaluated successfully
+     */
+    boolean replay(ReactiveJShell rjs) {
+        var recordedUuid = uuid.toString();
+        var newUuid = rjs.getUuid().toString();
+        boolean success = true;
+        for (String source : snippetSources) {
+            List<SnippetEvent> events = rjs.evalSnippet(source.replace(recordedUuid, newUuid));
+            boolean isValid = events.stream()
+                    .filter(event -> null == event.causeSnippet())
+                    .allMatch(event -> null == event.exception() && Snippet.Status.VALID == event.status());
+            if (!isValid) {
+                Logger.getLogger(BootstrapSnapshot.class.getName()).log(Level.FINE,
+                        () -> "Replay of bootstrap snippet failed: " + source + " " + events);
+                success = false;
+            }
+        }
+        return success;
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2026 JTaccuino Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jtaccuino.jshell;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import jdk.jshell.SourceCodeAnalysis;
+
+/**
+ * Caches the completion suggestions of the analysis shell per completion
+ * context, i.e. the text before the identifier being completed and the text
+ * after the caret. The suggestions are queried for the context without the
+ * typed part of the identifier, so continued typing is answered by narrowing
+ * the cached suggestions to the typed prefix, without asking the shell again.
+ * Types not in scope are added from the {@link TypeIndex} by their qualified
+ * name. The cache is invalidated by the snippet events of the analysis shell.
+ * <p>
+ * Unless {@code jtaccuino.completion.ranked} is false, the suggestions are not
+ * narrowed by prefix but ranked by {@link CompletionRanker}, also matching camel
+ * humps and subsequences and preferring recently accepted suggestions.
+ */
+final class CompletionIndex {
+
+    private static final int CONTEXT_LIMIT = 16;
+    private static final int INDEXED_TYPES_LIMIT = 50;
+    private static final int RANKED_LIMIT = 100;
+    private static final int RECENT_LIMIT = 256;
+    private static final boolean RANKED = Boolean.parseBoolean(System.getProperty("jtaccuino.completion.ranked", "true"));
+
+    private static record Context(String beforeAnchor, String afterCaret) {
+
+    }
+
+    /**
+     * Suggestions queried for a prefix, sorted by continuation.
+     */
+    private static final class Entry {
+
+        private final String queriedPrefix;
+        private final String[] continuations;
+        private final boolean[] matchesType;
+        private final String[] identifiers;
+        private final long[] masks;
+
+        private Entry(String queriedPrefix, String[] continuations, boolean[] matchesType) {
+            this.queriedPrefix = queriedPrefix;
+            this.continuations = continuations;
+            this.matchesType = matchesType;
+            this.identifiers = new String[continuations.length];
+            this.masks = new long[continuations.length];
+            for (int i = 0; i < continuations.length; i++) {
+                identifiers[i] = CompletionRanker.identifier(continuations[i]);
+                masks[i] = CompletionRanker.mask(identifiers[i]);
+            }
+        }
+
+        boolean contains(String continuation) {
+            int index = firstStartingWith(continuation);
+            return index < continuations.length && continuations[index].equals(continuation);
+        }
+
+        int firstStartingWith(String prefix) {
+            int low = 0;
+            int high = continuations.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (continuations[middle].compareTo(prefix) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    private static record CachedSuggestion(String continuation, boolean matchesType) implements SourceCodeAnalysis.Suggestion {
+
+    }
+
+    private final TypeIndex typeIndex;
+    private final Map<Context, Entry> entries = new LinkedHashMap<>(CONTEXT_LIMIT, 0.75f, true) {
+        @java.io.Serial
+        static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Context, Entry> eldest) {
+            return size() > CONTEXT_LIMIT;
+        }
+    };
+    private long generation;
+    // continuations accepted recently, with the count of accepted continuations when accepted
+    private final Map<String, Long> accepted = new LinkedHashMap<>(RECENT_LIMIT, 0.75f, true) {
+        @java.io.Serial
+        static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > RECENT_LIMIT;
+        }
+    };
+    private long acceptedCount;
+
+    CompletionIndex(TypeIndex typeIndex) {
+        this.typeIndex = typeIndex;
+    }
+
+    /**
+     * Returns the start of the identifier ending at the caret.
+     */
+    static int anchor(String text, int caretPosition) {
+        int anchor = caretPosition;
+        while (anchor > 0 && Character.isJavaIdentifierPart(text.charAt(anchor - 1))) {
+            anchor--;
+        }
+        return anchor;
+    }
+
+    /**
+     * Drops all cached suggestions, e.g. after declarations or imports
+     * changed.
+     */
+    synchronized void invalidate() {
+        generation++;
+        entries.clear();
+    }
+
+    synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Records an accepted suggestion, recently accepted suggestions are
+     * ranked higher.
+     */
+    synchronized void accepted(String continuation) {
+        accepted.put(continuation, ++acceptedCount);
+    }
+
+    private synchronized Map<String, Double> recency() {
+        Map<String, Double> recency = new HashMap<>();
+        accepted.forEach((continuation, acceptedAt) -> recency.put(continuation, 1 - (acceptedCount - acceptedAt) / (double) RECENT_LIMIT));
+        return recency;
+    }
+
+    /**
+     * Answers the completion from the cached suggestions, if the context was
+     * queried before with a prefix of the typed identifier.
+     */
+    Optional<ReactiveJShell.CompletionSuggestion> lookup(String text, int caretPosition) {
+        int anchor = anchor(text, caretPosition);
+        var prefix = text.substring(anchor, caretPosition);
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(new Context(text.substring(0, anchor), text.substring(caretPosition)));
+        }
+        if (null == entry || !prefix.startsWith(entry.queriedPrefix)) {
+            return Optional.empty();
+        }
+        boolean indexedTypes = !prefix.isEmpty() && Character.isUpperCase(prefix.charAt(0))
+                && (0 == anchor || '.' != text.charAt(anchor - 1));
+        return Optional.of(new ReactiveJShell.CompletionSuggestion(RANKED && !prefix.isEmpty()
+                ? ranked(entry, prefix, indexedTypes)
+                : narrowed(entry, prefix, indexedTypes), anchor));
+    }
+
+    private List<SourceCodeAnalysis.Suggestion> narrowed(Entry entry, String prefix, boolean indexedTypes) {
+        List<SourceCodeAnalysis.Suggestion> suggestions = new ArrayList<>();
+        for (int i = entry.firstStartingWith(prefix);
+                i < entry.continuations.length && entry.continuations[i].startsWith(prefix); i++) {
+            suggestions.add(new CachedSuggestion(entry.continuations[i], entry.matchesType[i]));
+        }
+        if (indexedTypes) {
+            typeIndex.typesStartingWith(prefix, INDEXED_TYPES_LIMIT).stream()
+                    .filter(type -> !entry.contains(type.substring(type.lastIndexOf('.') + 1)))
+                    .map(type -> new CachedSuggestion(type, false))
+                    .forEach(suggestions::add);
+        }
+        return suggestions;
+    }
+
+    private List<SourceCodeAnalysis.Suggestion> ranked(Entry entry, String prefix, boolean indexedTypes) {
+        var ranker = new CompletionRanker(prefix, RANKED_LIMIT);
+        var recency = recency();
+        for (int i = 0; i < entry.continuations.length; i++) {
+            ranker.offer(entry.continuations[i], entry.identifiers[i], entry.masks[i], entry.matchesType[i], recency.getOrDefault(entry.continuations[i], 0.0));
+        }
+        if (indexedTypes) {
+            typeIndex.forEachType(ranker.patternMask(), (simpleName, qualifiedName, mask) -> {
+                if (!entry.contains(simpleName)) {
+                    ranker.offer(qualifiedName, simpleName, mask, false, recency.getOrDefault(qualifiedName, 0.0));
+                }
+            });
+        }
+        return ranker.ranked().stream()
+                .<SourceCodeAnalysis.Suggestion>map(ranked -> new CachedSuggestion(ranked.continuation(), ranked.matchesType()))
+                .toList();
+    }
+
+    /**
+     * Caches the suggestions queried for the text before the anchor, the
+     * prefix and the text after the caret, unless the cache was invalidated
+     * since the query was started.
+     */
+    void store(String text, int anchor, int caretPosition, List<SourceCodeAnalysis.Suggestion> suggestions, long queryGeneration) {
+        var sorted = suggestions.stream()
+                .map(suggestion -> new CachedSuggestion(suggestion.continuation(), suggestion.matchesType()))
+                // placeholder declared by the shell, only suggested without a prefix
+                .filter(suggestion -> !suggestion.continuation().startsWith("$JShell$"))
+                .distinct()
+                .sorted(Comparator.comparing(CachedSuggestion::continuation)
+                        .thenComparing(CachedSuggestion::matchesType, Comparator.reverseOrder()))
+                .toList();
+        var continuations = new String[sorted.size()];
+        var matchesType = new boolean[sorted.size()];
+        for (int i = 0; i < continuations.length; i++) {
+            continuations[i] = sorted.get(i).continuation();
+            matchesType[i] = sorted.get(i).matchesType();
+        }
+        var entry = new Entry(text.substring(anchor, caretPosition), continuations, matchesType);
+        synchronized (this) {
+            if (generation == queryGeneration) {
+                entries.put(new Context(text.substring(0, anchor), text.substring(caretPosition)), entry);
+            }
+        }
+    }
+}
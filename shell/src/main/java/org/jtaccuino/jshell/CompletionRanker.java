@@ -0,0 +1,210 @@
+/*
+ * Copyright 2026 JTaccuino Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jtaccuino.jshell;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Ranks completion candidates matching the typed pattern as prefix, by camel
+ * humps (e.g. {@code HM} or {@code HaMa} for {@code HashMap}) or as case
+ * insensitive subsequence. Candidates are first filtered by a precomputed
+ * mask of the characters they contain, only the best candidates are kept in
+ * a bounded heap.
+ */
+final class CompletionRanker {
+
+    static final int NO_MATCH = Integer.MIN_VALUE;
+
+    private static final int PREFIX = 4000;
+    private static final int PREFIX_IGNORING_CASE = 3000;
+    private static final int CAMEL_HUMPS = 2000;
+    private static final int SUBSEQUENCE = 1000;
+    private static final int TYPE_MATCH = 500;
+    private static final int RECENCY = 400;
+
+    private static final Comparator<Ranked> RANKING = Comparator.comparingInt(Ranked::score)
+            .thenComparing(Comparator.comparingInt((Ranked ranked) -> ranked.identifier().length()).reversed())
+            .thenComparing(Ranked::continuation, Comparator.reverseOrder());
+
+    /**
+     * A scored candidate, the continuation is inserted when accepted.
+     */
+    static record Ranked(String continuation, String identifier, boolean matchesType, int score) {
+
+    }
+
+    private final String pattern;
+    private final long patternMask;
+    private final int limit;
+    private final PriorityQueue<Ranked> best;
+
+    CompletionRanker(String pattern, int limit) {
+        this.pattern = pattern;
+        this.patternMask = mask(pattern);
+        this.limit = limit;
+        // the worst of the best candidates at the head
+        this.best = new PriorityQueue<>(limit + 1, RANKING);
+    }
+
+    long patternMask() {
+        return patternMask;
+    }
+
+    /**
+     * Offers a candidate, its mask has to be computed by {@link #mask}.
+     *
+     * @param recency 0 if the candidate was not accepted recently, up to 1 if
+     * it was the last accepted one
+     */
+    void offer(String continuation, String identifier, long mask, boolean matchesType, double recency) {
+        if ((patternMask & ~mask) != 0) {
+            return;
+        }
+        int score = score(pattern, identifier);
+        if (NO_MATCH == score) {
+            return;
+        }
+        score += (matchesType ? TYPE_MATCH : 0) + (int) (recency * RECENCY);
+        if (best.size() < limit) {
+            best.add(new Ranked(continuation, identifier, matchesType, score));
+        } else if (score >= best.peek().score()) {
+            var ranked = new Ranked(continuation, identifier, matchesType, score);
+            if (RANKING.compare(ranked, best.peek()) > 0) {
+                best.poll();
+                best.add(ranked);
+            }
+        }
+    }
+
+    /**
+     * Returns the best candidates offered, best first.
+     */
+    List<Ranked> ranked() {
+        var ranked = new ArrayList<>(best);
+        ranked.sort(RANKING.reversed());
+        return ranked;
+    }
+
+    /**
+     * Returns the mask of the characters contained in the identifier, ignoring
+     * case.
+     */
+    static long mask(String identifier) {
+        long mask = 0;
+        for (int i = 0; i < identifier.length(); i++) {
+            char c = Character.toLowerCase(identifier.charAt(i));
+            if (c >= 'a' && c <= 'z') {
+                mask |= 1L << (c - 'a');
+            } else if (c >= '0' && c <= '9') {
+                mask |= 1L << (26 + c - '0');
+            } else if ('_' == c) {
+                mask |= 1L << 36;
+            } else {
+                mask |= 1L << 37;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the identifier a continuation starts with, e.g. the method name
+     * of {@code substring(}.
+     */
+    static String identifier(String continuation) {
+        int end = 0;
+        while (end < continuation.length() && Character.isJavaIdentifierPart(continuation.charAt(end))) {
+            end++;
+        }
+        return continuation.substring(0, end);
+    }
+
+    /**
+     * Scores how well the pattern matches the identifier, shorter gaps
+     * between the matched characters score higher. Subsequences have to start
+     * at a hump.
+     *
+     * @return the score or {@link #NO_MATCH}
+     */
+    static int score(String pattern, String identifier) {
+        if (identifier.startsWith(pattern)) {
+            return PREFIX - identifier.length();
+        }
+        if (identifier.regionMatches(true, 0, pattern, 0, pattern.length())) {
+            return PREFIX_IGNORING_CASE - identifier.length();
+        }
+        if (matchesCamelHumps(pattern, identifier)) {
+            return CAMEL_HUMPS - identifier.length();
+        }
+        int gaps = 0;
+        int position = 0;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = Character.toLowerCase(pattern.charAt(i));
+            int start = position;
+            // the first character has to start the identifier or one of its humps
+            while (position < identifier.length() && (Character.toLowerCase(identifier.charAt(position)) != c
+                    || (0 == i && 0 != position && !isHumpStart(identifier, position)))) {
+                position++;
+            }
+            if (position == identifier.length()) {
+                return NO_MATCH;
+            }
+            gaps += position - start;
+            position++;
+        }
+        return SUBSEQUENCE - gaps - identifier.length();
+    }
+
+    /**
+     * Matches the pattern against the humps of the identifier, each character
+     * either continues the current hump or starts one of the following humps.
+     * The first character has to match the start of the identifier.
+     */
+    private static boolean matchesCamelHumps(String pattern, String identifier) {
+        if (pattern.isEmpty() || identifier.isEmpty()
+                || Character.toLowerCase(pattern.charAt(0)) != Character.toLowerCase(identifier.charAt(0))) {
+            return false;
+        }
+        int position = 1;
+        for (int i = 1; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (position < identifier.length() && (c == identifier.charAt(position)
+                    || (Character.isLowerCase(c) && c == Character.toLowerCase(identifier.charAt(position)) && !isHumpStart(identifier, position)))) {
+                position++;
+                continue;
+            }
+            while (position < identifier.length()
+                    && !(isHumpStart(identifier, position) && Character.toLowerCase(c) == Character.toLowerCase(identifier.charAt(position)))) {
+                position++;
+            }
+            if (position == identifier.length()) {
+                return false;
+            }
+            position++;
+        }
+        return true;
+    }
+
+    private static boolean isHumpStart(String identifier, int position) {
+        char c = identifier.charAt(position);
+        char previous = identifier.charAt(position - 1);
+        return (Character.isUpperCase(c) && !Character.isUpperCase(previous))
+                || (Character.isLetterOrDigit(c) && !Character.isLetterOrDigit(previous))
+                || (Character.isDigit(c) && !Character.isDigit(previous));
+    }
+}
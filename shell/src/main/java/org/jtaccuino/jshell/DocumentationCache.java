@@ -0,0 +1,282 @@
+/*
+ * Copyright 2026 JTaccuino Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jtaccuino.jshell;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.jar.JarFile;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Javadoc looked up by the signature of the documented element and the origin
+ * of its declaring type, so the analysis shell only has to compute signatures,
+ * which is much cheaper than reading and parsing sources. The origin is the
+ * JDK version for JDK types and the path and checksum of the jar for types of
+ * the class path, so a changed dependency version never serves the javadoc of
+ * another version. Keeps up to {@code 4M} characters of javadoc, least
+ * recently used entries are evicted first. Elements without javadoc are cached
+ * as well, until the class path changes. Elements whose origin is unknown
+ * (e.g. declared by the notebook) are forgotten as soon as the declarations of
+ * the shell change. With {@code jtaccuino.documentation.persistent=true}
+ * javadoc of elements with a known origin is also stored below
+ * {@code ~/jtaccuino/cache/documentation}, per Java version.
+ */
+final class DocumentationCache {
+
+    private static final long CHARACTER_LIMIT = 4L * 1024 * 1024;
+    private static final boolean PERSISTENT = Boolean.getBoolean("jtaccuino.documentation.persistent");
+    private static final Path CACHE_DIRECTORY = Path.of(System.getProperty("user.home"),
+            "jtaccuino", "cache", "documentation", System.getProperty("java.specification.version"));
+    private static final String JDK_ORIGIN = "jdk-" + Runtime.version();
+    // prefix of the keys of elements with an unknown origin
+    private static final String UNKNOWN_ORIGIN = "?";
+    private static final Path JRT_ROOT = FileSystems.getFileSystem(URI.create("jrt:/")).getPath("/");
+
+    // an empty string for elements without javadoc
+    private final Map<String, String> javadocs = new LinkedHashMap<>(64, 0.75f, true);
+    private long characters;
+    private final List<Path> jars = new ArrayList<>();
+    // class file -> origin, empty if unknown
+    private final Map<String, String> origins = new HashMap<>();
+    private final Map<Path, String> jarOrigins = new HashMap<>();
+
+    /**
+     * Returns the cached javadoc of the signature, an empty string if the
+     * element has no javadoc.
+     */
+    synchronized Optional<String> lookup(String signature) {
+        var key = key(signature);
+        var javadoc = javadocs.get(key);
+        if (null == javadoc && PERSISTENT && isPersistent(key)) {
+            javadoc = read(key);
+            if (null != javadoc) {
+                put(key, javadoc);
+            }
+        }
+        return Optional.ofNullable(javadoc);
+    }
+
+    synchronized void store(String signature, String javadoc) {
+        var key = key(signature);
+        var stored = null == javadoc ? "" : javadoc;
+        if (!stored.equals(javadocs.get(key))) {
+            put(key, stored);
+            if (PERSISTENT && isPersistent(key) && !stored.isEmpty() && key.indexOf('\n') < 0) {
+                write(key, stored);
+            }
+        }
+    }
+
+    /**
+     * Adds the jars to the class path the origin of types is looked up in and
+     * forgets the elements without javadoc, e.g. as sources were added.
+     */
+    synchronized void addToClasspath(List<Path> addedJars) {
+        jars.addAll(addedJars);
+        origins.clear();
+        javadocs.entrySet().removeIf(entry -> {
+            if (entry.getValue().isEmpty() || !isPersistent(entry.getKey())) {
+                characters -= entry.getKey().length() + entry.getValue().length();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Forgets the elements with an unknown origin, e.g. as declarations of the
+     * shell changed.
+     */
+    synchronized void invalidateDeclarations() {
+        javadocs.entrySet().removeIf(entry -> {
+            if (!isPersistent(entry.getKey())) {
+                characters -= entry.getKey().length() + entry.getValue().length();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private static boolean isPersistent(String key) {
+        return !key.startsWith(UNKNOWN_ORIGIN);
+    }
+
+    private void put(String key, String javadoc) {
+        var previous = javadocs.put(key, javadoc);
+        characters += key.length() + javadoc.length()
+                - (null == previous ? 0 : key.length() + previous.length());
+        var iterator = javadocs.entrySet().iterator();
+        while (characters > CHARACTER_LIMIT && iterator.hasNext()) {
+            var eldest = iterator.next();
+            characters -= eldest.getKey().length() + eldest.getValue().length();
+            iterator.remove();
+        }
+    }
+
+    private String key(String signature) {
+        var classFile = classFile(signature);
+        var origin = null == classFile ? "" : origins.computeIfAbsent(classFile, this::origin);
+        return (origin.isEmpty() ? UNKNOWN_ORIGIN : origin) + " " + signature;
+    }
+
+    /**
+     * Returns the class file of the top level type declaring the element of
+     * the signature, e.g. {@code java/util/Map.class} for
+     * {@code java.util.Map.Entry<K,V> java.util.Map<K, V>.<K, V>entry(K k, V v)}.
+     * Types are told from packages by their capitalized name, types without
+     * package are looked up in {@code java.lang} as signatures name them
+     * unqualified.
+     *
+     * @return the class file or null if the signature names no type
+     */
+    static String classFile(String signature) {
+        var withoutTypeArguments = new StringBuilder(signature.length());
+        int depth = 0;
+        for (int i = 0; i < signature.length(); i++) {
+            char c = signature.charAt(i);
+            if ('<' == c) {
+                depth++;
+            } else if ('>' == c) {
+                depth--;
+            } else if (0 == depth) {
+                withoutTypeArguments.append(c);
+            }
+        }
+        var header = withoutTypeArguments.toString();
+        int end = header.indexOf('(');
+        if (end < 0) {
+            end = header.indexOf(':');
+        }
+        if (end < 0) {
+            end = header.length();
+        }
+        var name = header.substring(header.lastIndexOf(' ', end - 1) + 1, end);
+        var segments = name.split("\\.", -1);
+        for (int i = 0; i < segments.length; i++) {
+            if (!segments[i].isEmpty() && Character.isUpperCase(segments[i].charAt(0))) {
+                var packagePath = 0 == i ? "java/lang" : String.join("/", Arrays.asList(segments).subList(0, i));
+                return packagePath + "/" + segments[i] + ".class";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the origin of the class file, the JDK or the first jar of the
+     * class path containing it, an empty string if unknown.
+     */
+    private String origin(String classFile) {
+        var jdkPackage = JRT_ROOT.resolve("packages").resolve(classFile.substring(0, classFile.lastIndexOf('/')).replace('/', '.'));
+        if (Files.isDirectory(jdkPackage)) {
+            try (var modules = Files.list(jdkPackage)) {
+                if (modules.anyMatch(module -> Files.exists(JRT_ROOT.resolve("modules").resolve(module.getFileName().toString()).resolve(classFile)))) {
+                    return JDK_ORIGIN;
+                }
+            } catch (IOException ex) {
+                Logger.getLogger(DocumentationCache.class.getName()).log(Level.WARNING, null, ex);
+            }
+        }
+        for (var jar : jars) {
+            try (var jarFile = new JarFile(jar.toFile())) {
+                if (null != jarFile.getEntry(classFile)) {
+                    return jarOrigins.computeIfAbsent(jar, DocumentationCache::jarOrigin);
+                }
+            } catch (IOException ex) {
+                Logger.getLogger(DocumentationCache.class.getName()).log(Level.WARNING, "Could not read " + jar, ex);
+            }
+        }
+        return "";
+    }
+
+    private static String jarOrigin(Path jar) {
+        try (var in = Files.newInputStream(jar)) {
+            var digest = MessageDigest.getInstance("SHA-256");
+            var buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                digest.update(buffer, 0, read);
+            }
+            return jar.toAbsolutePath() + "@" + HexFormat.of().formatHex(digest.digest());
+        } catch (IOException ex) {
+            Logger.getLogger(DocumentationCache.class.getName()).log(Level.WARNING, "Could not read " + jar, ex);
+            return "";
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static String read(String key) {
+        var entry = entryPath(key);
+        if (!Files.exists(entry)) {
+            return null;
+        }
+        try {
+            var content = Files.readString(entry, StandardCharsets.UTF_8);
+            int endOfKey = content.indexOf('\n');
+            return endOfKey < 0 || !content.substring(0, endOfKey).equals(key)
+                    ? null : content.substring(endOfKey + 1);
+        } catch (IOException ex) {
+            Logger.getLogger(DocumentationCache.class.getName()).log(Level.WARNING, "Ignoring unreadable cache entry " + entry, ex);
+            return null;
+        }
+    }
+
+    private static void write(String key, String javadoc) {
+        try {
+            Files.createDirectories(CACHE_DIRECTORY);
+            var entry = entryPath(key);
+            var tempFile = Files.createTempFile(CACHE_DIRECTORY, entry.getFileName().toString(), ".tmp");
+            try {
+                Files.writeString(tempFile, key + "\n" + javadoc, StandardCharsets.UTF_8);
+                try {
+                    Files.move(tempFile, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException ex) {
+                    Files.move(tempFile, entry, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException ex) {
+            Logger.getLogger(DocumentationCache.class.getName()).log(Level.WARNING, null, ex);
+        }
+    }
+
+    private static Path entryPath(String key) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return CACHE_DIRECTORY.resolve(HexFormat.of().formatHex(digest) + ".txt");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
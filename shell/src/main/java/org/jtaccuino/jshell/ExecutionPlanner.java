@@ -0,0 +1,341 @@
+/*
+ * Copyright 2026 JTaccuino Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jtaccuino.jshell;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Builds a dependency graph between notebook cells based on the names the
+ * cells declare and reference. Cells are identified by the uuid of their cell
+ * data, the order of the given cells is the notebook order and the only order
+ * a dependency can point to (a cell can only depend on cells above it).
+ */
+public final class ExecutionPlanner {
+
+    /**
+     * Top-level methods injected by system extensions that change the shell
+     * environment (classpath, active extensions) and therefore influence every
+     * cell evaluated afterwards.
+     */
+    private static final Set<String> ENVIRONMENT_CHANGING_METHODS = Set.of("addDependency", "use");
+
+    private ExecutionPlanner() {
+    }
+
+    public static record CellSource(UUID id, String source) {
+    }
+
+    /**
+     * Names of a single cell as seen by the planner.
+     *
+     * @param declaredVariables variables declared by the cell
+     * @param declaredNames methods and types declared by the cell
+     * @param referenced all identifiers used by the cell
+     * @param barrier whether the cell has to be executed after all cells above
+     * and before all cells below it, e.g. imports or unparseable code
+     */
+    public static record CellNames(Set<String> declaredVariables, Set<String> declaredNames,
+            Set<String> referenced, boolean barrier) {
+
+        public Set<String> declared() {
+            var declared = new HashSet<>(declaredVariables);
+            declared.addAll(declaredNames);
+            return declared;
+        }
+    }
+
+    public static record ExecutionPlan(List<UUID> order, Map<UUID, Set<UUID>> dependencies) {
+
+        public Set<UUID> dependenciesOf(UUID id) {
+            return dependencies.getOrDefault(id, Set.of());
+        }
+
+        /**
+         * Groups the cells into waves, all cells of a wave only depend on cells
+         * of earlier waves and not on each other.
+         */
+        public List<List<UUID>> waves() {
+            Map<UUID, Integer> levels = new HashMap<>();
+            List<List<UUID>> waves = new ArrayList<>();
+            for (UUID id : order) {
+                int level = dependenciesOf(id).stream()
+                        .mapToInt(dependency -> levels.getOrDefault(dependency, -1) + 1)
+                        .max()
+                        .orElse(0);
+                levels.put(id, level);
+                if (waves.size() == level) {
+                    waves.add(new ArrayList<>());
+                }
+                waves.get(level).add(id);
+            }
+            return waves;
+        }
+    }
+
+    /**
+     * Plans the execution of the given cells.
+     *
+     * @param cells the cells in notebook order
+     * @param analyzer extracts the names of a cell source
+     * @param observedDependencies dependencies learned from previous
+     * evaluations (e.g. cells invalidated by the evaluation of another cell),
+     * keyed by the dependent cell
+     * @return the execution plan
+     */
+    public static ExecutionPlan plan(List<CellSource> cells, Function<String, CellNames> analyzer,
+            Map<UUID, Set<UUID>> observedDependencies) {
+        Map<UUID, Set<UUID>> dependencies = new LinkedHashMap<>();
+        Map<String, UUID> lastDeclaration = new HashMap<>();
+        Map<String, List<UUID>> usagesSinceDeclaration = new HashMap<>();
+        Set<String> variables = new HashSet<>();
+        Set<UUID> sinceLastBarrier = new LinkedHashSet<>();
+        Set<UUID> seen = new HashSet<>();
+        UUID lastBarrier = null;
+
+        for (CellSource cell : cells) {
+            var names = analyzer.apply(cell.source());
+            var declared = names.declared();
+            Set<UUID> cellDependencies = new LinkedHashSet<>();
+
+            if (null != lastBarrier) {
+                cellDependencies.add(lastBarrier);
+            }
+            boolean barrier = names.barrier()
+                    || names.referenced().stream().anyMatch(ENVIRONMENT_CHANGING_METHODS::contains);
+            if (barrier) {
+                cellDependencies.addAll(sinceLastBarrier);
+            }
+
+            for (String name : names.referenced()) {
+                if (declared.contains(name)) {
+                    continue;
+                }
+                var declaration = lastDeclaration.get(name);
+                if (null != declaration) {
+                    cellDependencies.add(declaration);
+                }
+                // variables may be mutated by any statement using them, so keep their usages in notebook order
+                if (variables.contains(name)) {
+                    var usages = usagesSinceDeclaration.computeIfAbsent(name, n -> new ArrayList<>());
+                    cellDependencies.addAll(usages);
+                    usages.add(cell.id());
+                }
+            }
+
+            for (String name : declared) {
+                var declaration = lastDeclaration.put(name, cell.id());
+                if (null != declaration) {
+                    cellDependencies.add(declaration);
+                }
+                var usages = usagesSinceDeclaration.put(name, new ArrayList<>());
+                if (null != usages) {
+                    cellDependencies.addAll(usages);
+                }
+            }
+            variables.removeAll(names.declaredNames());
+            variables.addAll(names.declaredVariables());
+
+            observedDependencies.getOrDefault(cell.id(), Set.of()).stream()
+                    .filter(seen::contains)
+                    .forEach(cellDependencies::add);
+
+            cellDependencies.remove(cell.id());
+            dependencies.put(cell.id(), Collections.unmodifiableSet(cellDependencies));
+            seen.add(cell.id());
+
+            if (barrier) {
+                lastBarrier = cell.id();
+                sinceLastBarrier.clear();
+            } else {
+                sinceLastBarrier.add(cell.id());
+            }
+        }
+        return new ExecutionPlan(List.copyOf(dependencies.keySet()), Collections.unmodifiableMap(dependencies));
+    }
+
+    /**
+     * Returns the invalidated cells together with all cells transitively
+     * depending on them by an observed dependency.
+     *
+     * @param invalidated the cells invalidated directly
+     * @param observedDependencies dependencies learned from previous
+     * evaluations, keyed by the dependent cell
+     * @return the invalidated cells and their dependents
+     */
+    public static Set<UUID> invalidationClosure(Set<UUID> invalidated, Map<UUID, ? extends Set<UUID>> observedDependencies) {
+        Set<UUID> closure = new HashSet<>(invalidated);
+        boolean changed;
+        do {
+            changed = false;
+            for (var dependency : observedDependencies.entrySet()) {
+                if (!closure.contains(dependency.getKey())
+                        && dependency.getValue().stream().anyMatch(closure::contains)) {
+                    changed |= closure.add(dependency.getKey());
+                }
+            }
+        } while (changed);
+        return closure;
+    }
+
+    /**
+     * Forgets the observed dependencies of and on cells no longer part of the
+     * notebook.
+     *
+     * @param observedDependencies the modifiable dependencies keyed by the
+     * dependent cell, the sets of the causing cells have to be modifiable too
+     * @param cellIds the cells of the notebook
+     */
+    public static void pruneObservedDependencies(Map<UUID, ? extends Set<UUID>> observedDependencies, Set<UUID> cellIds) {
+        observedDependencies.keySet().retainAll(cellIds);
+        observedDependencies.values().removeIf(causingCellIds -> {
+            causingCellIds.retainAll(cellIds);
+            return causingCellIds.isEmpty();
+        });
+    }
+
+    /**
+     * Orders consecutive method and type declarations so that declarations
+     * are evaluated before the declarations referencing them. JShell compiles
+     * a declaration referencing a not yet declared name as recoverable and
+     * recompiles it (and all its dependents) with every declaration resolving
+     * one of its references, so evaluating a top-down written group in source
+     * order compiles quadratically often. Declarations of the same name keep
+     * their relative order, cycles are broken in source order.
+     *
+     * @param names the declared name of each declaration
+     * @param sources the source of each declaration
+     * @return the indices of the declarations in evaluation order
+     */
+    public static List<Integer> declarationOrder(List<String> names, List<String> sources) {
+        Map<String, List<Integer>> declarers = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            declarers.computeIfAbsent(names.get(i), n -> new ArrayList<>()).add(i);
+        }
+        List<Integer> order = new ArrayList<>(names.size());
+        Set<Integer> visited = new HashSet<>();
+        for (int i = 0; i < names.size(); i++) {
+            visitDeclaration(i, names, sources, declarers, visited, order);
+        }
+        return order;
+    }
+
+    private static void visitDeclaration(int index, List<String> names, List<String> sources,
+            Map<String, List<Integer>> declarers, Set<Integer> visited, List<Integer> order) {
+        if (!visited.add(index)) {
+            return;
+        }
+        // earlier declarations of the same name (overloads or replaced declarations) go first
+        for (int sameName : declarers.get(names.get(index))) {
+            if (sameName < index) {
+                visitDeclaration(sameName, names, sources, declarers, visited, order);
+            }
+        }
+        for (String identifier : new TreeSet<>(identifiers(sources.get(index)))) {
+            if (!identifier.equals(names.get(index))) {
+                for (int declarer : declarers.getOrDefault(identifier, List.of())) {
+                    visitDeclaration(declarer, names, sources, declarers, visited, order);
+                }
+            }
+        }
+        order.add(index);
+    }
+
+    /**
+     * Extracts all identifiers from java source code, skipping comments,
+     * string and character literals as well as member accesses (identifiers
+     * directly following a dot).
+     */
+    public static Set<String> identifiers(String source) {
+        Set<String> identifiers = new HashSet<>();
+        if (null == source) {
+            return identifiers;
+        }
+        int length = source.length();
+        int i = 0;
+        char previousSignificant = ' ';
+        while (i < length) {
+            char c = source.charAt(i);
+            if (c == '/' && i + 1 < length && source.charAt(i + 1) == '/') {
+                i = source.indexOf('\n', i);
+                i = i < 0 ? length : i;
+            } else if (c == '/' && i + 1 < length && source.charAt(i + 1) == '*') {
+                i = source.indexOf("*/", i + 2);
+                i = i < 0 ? length : i + 2;
+            } else if (source.startsWith("\"\"\"", i)) {
+                i = skipTextBlock(source, i + 3);
+                previousSignificant = '"';
+            } else if (c == '"' || c == '\'') {
+                i = skipLiteral(source, i + 1, c);
+                previousSignificant = c;
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int start = i;
+                while (i < length && Character.isJavaIdentifierPart(source.charAt(i))) {
+                    i++;
+                }
+                if (previousSignificant != '.') {
+                    identifiers.add(source.substring(start, i));
+                }
+                previousSignificant = 'a';
+            } else {
+                if (!Character.isWhitespace(c)) {
+                    previousSignificant = c;
+                }
+                i++;
+            }
+        }
+        return identifiers;
+    }
+
+    private static int skipTextBlock(String source, int from) {
+        int i = from;
+        while (i < source.length()) {
+            if (source.charAt(i) == '\\') {
+                i += 2;
+            } else if (source.startsWith("\"\"\"", i)) {
+                return i + 3;
+            } else {
+                i++;
+            }
+        }
+        return source.length();
+    }
+
+    private static int skipLiteral(String source, int from, char delimiter) {
+        int i = from;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == delimiter || c == '\n') {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+        return source.length();
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2026 JTaccuino Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jtaccuino.jshell;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Configuration of the kernels (JShell instances) executing notebook code.
+ *
+ * Read from system properties:
+ * <ul>
+ * <li>{@code jtaccuino.kernel.engine} - {@code local} (default) executes code
+ * inside the Studio JVM, {@code remote} in a separate JVM per kernel</li>
+ * <li>{@code jtaccuino.kernel.heap} - maximum heap of a remote kernel, e.g.
+ * {@code 4g}</li>
+ * <li>{@code jtaccuino.kernel.gc} - garbage collector of a remote kernel, e.g.
+ * {@code ZGC} or {@code G1GC}</li>
+ * <li>{@code jtaccuino.kernel.vmOptions} - additional whitespace separated
+ * options of a remote kernel JVM</li>
+ * <li>{@code jtaccuino.kernel.pool} - number of pre-initialized kernels kept
+ * ready, {@code 0} disables the pool (default 1)</li>
+ * </ul>
+ */
+public record KernelConfiguration(Engine engine, List<String> vmOptions, int poolSize) {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    public static enum Engine {
+        /**
+         * Code is executed in the JVM running the Studio
+         */
+        LOCAL("local"),
+        /**
+         * Code is executed in a separate JVM launched and controlled via JDI
+         */
+        REMOTE("jdi:launch(true)");
+
+        private final String executionEngineSpec;
+
+        Engine(String executionEngineSpec) {
+            this.executionEngineSpec = executionEngineSpec;
+        }
+
+        public String executionEngineSpec() {
+            return executionEngineSpec;
+        }
+    }
+
+    public KernelConfiguration {
+        vmOptions = List.copyOf(vmOptions);
+        if (poolSize < 0) {
+            throw new IllegalArgumentException("Kernel pool size must not be negative: " + poolSize);
+        }
+    }
+
+    public static KernelConfiguration local() {
+        return new KernelConfiguration(Engine.LOCAL, List.of(), 1);
+    }
+
+    public static KernelConfiguration fromSystemProperties() {
+        var engine = "remote".equals(System.getProperty("jtaccuino.kernel.engine", "local").toLowerCase(Locale.ROOT))
+                ? Engine.REMOTE : Engine.LOCAL;
+        List<String> vmOptions = new ArrayList<>();
+        var heap = System.getProperty("jtaccuino.kernel.heap", "").strip();
+        if (!heap.isEmpty()) {
+            vmOptions.add("-Xmx" + heap);
+        }
+        var gc = System.getProperty("jtaccuino.kernel.gc", "").strip();
+        if (!gc.isEmpty()) {
+            vmOptions.add("-XX:+Use" + gc);
+        }
+        var additionalOptions = System.getProperty("jtaccuino.kernel.vmOptions", "").strip();
+        if (!additionalOptions.isEmpty()) {
+            WHITESPACE.splitAsStream(additionalOptions).forEach(vmOptions::add);
+        }
+        int poolSize = 1;
+        try {
+            poolSize = Math.max(0, Integer.parseInt(System.getProperty("jtaccuino.kernel.pool", "1").strip()));
+        } catch (NumberFormatException nfe) {
+            Logger.getLogger(KernelConfiguration.class.getName()).log(Level.WARNING,
+                    "Ignoring invalid kernel pool size: {0}", System.getProperty("jtaccuino.kernel.pool"));
+        }
+        return new KernelConfiguration(engine, vmOptions, poolSize);
+    }
+}
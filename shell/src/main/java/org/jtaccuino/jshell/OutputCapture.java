@@ -0,0 +1,177 @@
+/*
+ * Copyright 2026 JTaccuino Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jtaccuino.jshell;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Routes {@code System.out} and {@code System.err} of code executed by the
+ * local engine to the output of the executing cell. The target is attached to
+ * the thread starting an execution and inherited by all threads created from
+ * it, so output of background threads spawned by a cell lands in that cell.
+ * Output of threads without target, or whose target does not accept it any
+ * more, goes to the original streams.
+ */
+public final class OutputCapture {
+
+    /**
+     * The stream the captured output was written to.
+     */
+    public static enum Stream {
+        STDOUT("stdout"),
+        STDERR("stderr");
+
+        private final String streamName;
+
+        Stream(String streamName) {
+            this.streamName = streamName;
+        }
+
+        /**
+         * Returns the name of the stream as used by ipynb stream outputs.
+         */
+        public String streamName() {
+            return streamName;
+        }
+    }
+
+    /**
+     * Receives the captured output, may be called from any thread.
+     */
+    @FunctionalInterface
+    public static interface Target {
+
+        /**
+         * Writes the text written to the stream, returns false if it was not
+         * accepted, e.g. because the execution it belongs to is outdated.
+         */
+        boolean write(Stream stream, String text);
+    }
+
+    private static final InheritableThreadLocal<Target> TARGET = new InheritableThreadLocal<>();
+
+    private static boolean installed;
+
+    private OutputCapture() {
+    }
+
+    /**
+     * Replaces {@code System.out} and {@code System.err} with routing streams,
+     * subsequent calls have no effect.
+     */
+    static synchronized void install() {
+        if (!installed) {
+            installed = true;
+            System.setOut(routing(System.out, Stream.STDOUT));
+            System.setErr(routing(System.err, Stream.STDERR));
+        }
+    }
+
+    /**
+     * Routes the output of the current thread and all threads created by it
+     * to the target.
+     */
+    public static void attach(Target target) {
+        TARGET.set(target);
+    }
+
+    public static void detach() {
+        TARGET.remove();
+    }
+
+    private static PrintStream routing(PrintStream original, Stream stream) {
+        var charset = original.charset();
+        return new PrintStream(new RoutingOutputStream(original, stream, charset), true, charset);
+    }
+
+    private static final class RoutingOutputStream extends OutputStream {
+
+        private final PrintStream original;
+        private final Stream stream;
+        private final ThreadLocal<ThreadDecoder> decoders;
+
+        RoutingOutputStream(PrintStream original, Stream stream, Charset charset) {
+            this.original = original;
+            this.stream = stream;
+            this.decoders = ThreadLocal.withInitial(() -> new ThreadDecoder(charset));
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            var target = TARGET.get();
+            if (null == target) {
+                original.write(b, off, len);
+                return;
+            }
+            var text = decoders.get().decode(b, off, len);
+            if (!text.isEmpty() && !target.write(stream, text)) {
+                original.print(text);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (null == TARGET.get()) {
+                original.flush();
+            }
+        }
+    }
+
+    /**
+     * Decodes the bytes written by one thread, bytes of an incomplete
+     * character are kept until the next write.
+     */
+    private static final class ThreadDecoder {
+
+        private final CharsetDecoder decoder;
+        private final ByteBuffer incomplete = ByteBuffer.allocate(16);
+
+        ThreadDecoder(Charset charset) {
+            this.decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+
+        String decode(byte[] b, int off, int len) {
+            ByteBuffer input;
+            if (incomplete.position() > 0) {
+                input = ByteBuffer.allocate(incomplete.position() + len);
+                input.put(incomplete.flip()).put(b, off, len).flip();
+                incomplete.clear();
+            } else {
+                input = ByteBuffer.wrap(b, off, len);
+            }
+            var output = CharBuffer.allocate((int) Math.ceil(input.remaining() * (double) decoder.maxCharsPerByte()));
+            decoder.decode(input, output, false);
+            if (input.remaining() <= incomplete.capacity()) {
+                incomplete.put(input);
+            }
+            return output.flip().toString();
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2024-2025 JTaccuino Contributors
+ * Copyright 2024-2026 JTaccuino Contributors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,24 +15,40 @@
  */
 package org.jtaccuino.jshell;
 
+import java.io.File;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Stream;
 import jdk.jshell.DeclarationSnippet;
 import jdk.jshell.Diag;
+import jdk.jshell.ErroneousSnippet;
 import jdk.jshell.ExpressionSnippet;
+import jdk.jshell.ImportSnippet;
 import jdk.jshell.JShell;
+import jdk.jshell.MethodSnippet;
 import jdk.jshell.Snippet;
 import jdk.jshell.SnippetEvent;
 import jdk.jshell.SourceCodeAnalysis;
+import jdk.jshell.TypeDeclSnippet;
 import jdk.jshell.VarSnippet;
 import org.jtaccuino.jshell.extensions.ExtensionManager;
 import org.jtaccuino.jshell.extensions.JShellExtension;
@@ -42,56 +58,134 @@ public class ReactiveJShell {
     private final ExecutorService worker = Executors
             .newSingleThreadExecutor(Thread.ofVirtual().name("ReactiveJShellWorker").factory());
 
-    private final JShell jshell = JShell.builder()
-            .compilerOptions("--enable-preview", "-source", System.getProperty("java.specification.version"),
-                    "--add-modules", "jdk.incubator.vector", "-Xlint:-incubating")
-            .executionEngine("local")
-            .build();
+    // editor features (completion, documentation, highlighting) run against a shadow shell on their own worker,
+    // so they are not blocked by long running evaluations
+    private final ExecutorService analysisWorker = Executors
+            .newSingleThreadExecutor(Thread.ofVirtual().name("ReactiveJShellAnalysisWorker").factory());
+
+    private final LatencyHistogram completionLatency = new LatencyHistogram("Completion");
+    private final LatencyHistogram documentationLatency = new LatencyHistogram("Documentation");
+    private final LatencyHistogram highlightingLatency = new LatencyHistogram("Highlighting");
+
+    private static final long NO_EVALUATION = -1;
+    private static final long STOP_RETRY_MILLIS = 100;
+
+    private final JShell jshell;
+
+    private final JShell analysisShell;
+
+    private final TypeIndex typeIndex = new TypeIndex();
+    private final CompletionIndex completionIndex = new CompletionIndex(typeIndex);
+    private final DocumentationCache documentationCache = new DocumentationCache();
+    private final AtomicLong documentationPrefetch = new AtomicLong();
+    private volatile PrefetchedDocumentation prefetchedDocumentation;
+
+    private final AtomicLong cancellationGeneration = new AtomicLong();
+    private final AtomicLong evaluationCounter = new AtomicLong();
+    private final Set<Long> stoppedEvaluations = ConcurrentHashMap.newKeySet();
+    private final Object stopLock = new Object();
+    private volatile long runningEvaluation = NO_EVALUATION;
 
     private final UUID uuid;
 
-    private ReactiveJShell(UUID uuid) {
+    private final KernelConfiguration configuration;
+
+    // extensions declared by their remote code, notified after each executed snippet
+    private final List<JShellExtension> remoteExtensions = new CopyOnWriteArrayList<>();
+    private final List<String> unavailableExtensions = new CopyOnWriteArrayList<>();
+
+    private ReactiveJShell(UUID uuid, KernelConfiguration configuration) {
         this.uuid = uuid;
+        this.configuration = configuration;
+        var builder = createBuilder()
+                .executionEngine(configuration.engine().executionEngineSpec());
+        if (KernelConfiguration.Engine.REMOTE == configuration.engine()) {
+            List<String> remoteVMOptions = new ArrayList<>(List.of("--enable-preview", "--add-modules", "jdk.incubator.vector"));
+            remoteVMOptions.addAll(configuration.vmOptions());
+            builder.remoteVMOptions(remoteVMOptions.toArray(String[]::new));
+        } else {
+            OutputCapture.install();
+        }
+        this.jshell = builder.build();
+        // only declarations are mirrored into the analysis shell, so no user code is executed in the local engine
+        this.analysisShell = createBuilder()
+                .executionEngine("local")
+                .build();
+        this.analysisShell.onSnippetEvent(event -> {
+            completionIndex.invalidate();
+            documentationCache.invalidateDeclarations();
+        });
+        // warms up the compiler of the analysis shell, so the first completion request is not delayed
+        CompletableFuture.runAsync(() -> queryCompletion("", 0), analysisWorker).exceptionally(this::logThrowable);
+    }
+
+    private static JShell.Builder createBuilder() {
+        return JShell.builder()
+                .compilerOptions("--enable-preview", "-source", System.getProperty("java.specification.version"),
+                        "--add-modules", "jdk.incubator.vector", "-Xlint:-incubating");
     }
 
     public static ReactiveJShell create(UUID uuid) {
-        return new ReactiveJShell(uuid);
+        return create(uuid, KernelConfiguration.local());
+    }
+
+    public static ReactiveJShell create(UUID uuid, KernelConfiguration configuration) {
+        return new ReactiveJShell(uuid, configuration);
     }
 
     public JShell getWrappedShell() {
         return jshell;
     }
 
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    public KernelConfiguration getConfiguration() {
+        return configuration;
+    }
+
     public <T extends JShellExtension> T getExtension(Class<T> extensionClass) {
         return ExtensionManager.lookup(extensionClass, uuid);
     }
 
+    /**
+     * Returns the simple class names of the activated extensions not
+     * available in this shell, as they require the local execution engine.
+     */
+    public List<String> getUnavailableExtensions() {
+        return List.copyOf(unavailableExtensions);
+    }
+
     public EvaluationResult eval(String string) {
+        return eval(string, () -> false);
+    }
+
+    private EvaluationResult eval(String string, BooleanSupplier isStopped) {
         final List<SnippetEvent> snippetEventsCurrentSnippets = new ArrayList<>();
         final List<SnippetEvent> snippetEventsInfluencedSnippets = new ArrayList<>();
+        final List<String> declarationSources = new ArrayList<>();
+        final List<String> declarationNames = new ArrayList<>();
         String remaining = string;
         SourceCodeAnalysis.CompletionInfo completionInfo;
         do {
             completionInfo = jshell.sourceCodeAnalysis().analyzeCompletion(remaining);
             if (completionInfo.completeness().isComplete()) {
-                List<SnippetEvent> newSnippetEvents = jshell.eval(completionInfo.source());
-//                newSnippetEvents.forEach(sne -> System.out.println(sne.previousStatus() + "->" + sne.status()
-//                        + " of " + sne.snippet().id() + " "
-//                        + (sne.causeSnippet() != null ? sne.causeSnippet().id() : "?")
-//                        + sne.snippet().source()));
-                newSnippetEvents.stream()
-                        .filter(event -> null == event.causeSnippet())
-                        .forEach(evt -> {
-                            snippetEventsCurrentSnippets.add(evt);
-                        });
-                newSnippetEvents.stream()
-                        .filter(event -> null != event.causeSnippet())
-                        .forEach(evt -> {
-                            snippetEventsInfluencedSnippets.add(evt);
-                        });
+                var source = completionInfo.source();
+                var declarationName = batchableDeclarationName(source);
+                if (declarationName.isPresent()) {
+                    declarationSources.add(source);
+                    declarationNames.add(declarationName.get());
+                } else {
+                    evalDeclarations(declarationSources, declarationNames, snippetEventsCurrentSnippets, snippetEventsInfluencedSnippets);
+                    collectSnippetEvents(evalExecuting(source), snippetEventsCurrentSnippets, snippetEventsInfluencedSnippets);
+                }
             }
-            remaining = completionInfo.remaining().replaceFirst("\\s*", "");
-        } while (!remaining.isEmpty() && SourceCodeAnalysis.Completeness.DEFINITELY_INCOMPLETE != completionInfo.completeness());
+            remaining = completionInfo.remaining().stripLeading();
+        } while (!remaining.isEmpty() && SourceCodeAnalysis.Completeness.DEFINITELY_INCOMPLETE != completionInfo.completeness()
+                && !isStopped.getAsBoolean());
+        evalDeclarations(declarationSources, declarationNames, snippetEventsCurrentSnippets, snippetEventsInfluencedSnippets);
+        mirrorDeclarations(snippetEventsCurrentSnippets);
 
         if (SourceCodeAnalysis.Completeness.DEFINITELY_INCOMPLETE == completionInfo.completeness()) {
             return new EvaluationResult(List.of(), List.of(), ResultStatus.FAILURE, Optional.empty(), Optional.empty());
@@ -131,10 +225,229 @@ public class ReactiveJShell {
         return new EvaluationResult(snippetEventsCurrentSnippets, snippetEventsInfluencedSnippets, ResultStatus.FAILURE, Optional.empty(), Optional.empty());
     }
 
-    public void evalAsync(Runnable preAction, String codeSnippet, Consumer<EvaluationResult> consumer) {
-        CompletableFuture.runAsync(preAction, worker)
-                .thenRun(() -> consumer.accept(eval(codeSnippet)))
-                .exceptionally(this::logThrowable);
+    /**
+     * Methods and types can be evaluated in any order, variables, statements
+     * and expressions have to be evaluated in source order.
+     */
+    private Optional<String> batchableDeclarationName(String source) {
+        var snippets = sourceCodeAnalysis().sourceToSnippets(source);
+        if (snippets.size() == 1 && snippets.getFirst() instanceof DeclarationSnippet declaration
+                && (Snippet.Kind.METHOD == declaration.kind() || Snippet.Kind.TYPE_DECL == declaration.kind())) {
+            return Optional.of(declaration.name());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Evaluates consecutive method and type declarations in dependency order,
+     * the resulting snippet events are collected in source order.
+     */
+    private void evalDeclarations(List<String> sources, List<String> names,
+            List<SnippetEvent> snippetEventsCurrentSnippets, List<SnippetEvent> snippetEventsInfluencedSnippets) {
+        List<List<SnippetEvent>> eventsBySource = new ArrayList<>(Collections.nCopies(sources.size(), List.of()));
+        for (int index : ExecutionPlanner.declarationOrder(names, sources)) {
+            eventsBySource.set(index, jshell.eval(sources.get(index)));
+        }
+        eventsBySource.forEach(events -> collectSnippetEvents(events, snippetEventsCurrentSnippets, snippetEventsInfluencedSnippets));
+        sources.clear();
+        names.clear();
+    }
+
+    private static void collectSnippetEvents(List<SnippetEvent> newSnippetEvents,
+            List<SnippetEvent> snippetEventsCurrentSnippets, List<SnippetEvent> snippetEventsInfluencedSnippets) {
+//        newSnippetEvents.forEach(sne -> System.out.println(sne.previousStatus() + "->" + sne.status()
+//                + " of " + sne.snippet().id() + " "
+//                + (sne.causeSnippet() != null ? sne.causeSnippet().id() : "?")
+//                + sne.snippet().source()));
+        newSnippetEvents.stream()
+                .filter(event -> null == event.causeSnippet())
+                .forEach(snippetEventsCurrentSnippets::add);
+        newSnippetEvents.stream()
+                .filter(event -> null != event.causeSnippet())
+                .forEach(snippetEventsInfluencedSnippets::add);
+    }
+
+    /**
+     * Evaluates a single complete snippet without any further analysis.
+     */
+    List<SnippetEvent> evalSnippet(String source) {
+        var events = evalExecuting(source);
+        mirrorDeclarations(events.stream().filter(event -> null == event.causeSnippet()).toList());
+        return events;
+    }
+
+    /**
+     * Evaluates a snippet possibly executing code, remote extensions are
+     * notified once it completed.
+     */
+    private List<SnippetEvent> evalExecuting(String source) {
+        var events = jshell.eval(source);
+        remoteExtensions.forEach(JShellExtension::remoteSnippetExecuted);
+        return events;
+    }
+
+    public void addToClasspath(String path) {
+        jshell.addToClasspath(path);
+        var jars = Stream.of(path.split(File.pathSeparator, -1))
+                .filter(entry -> entry.endsWith(".jar"))
+                .map(Path::of)
+                .toList();
+        analysisWorker.execute(() -> {
+            analysisShell.addToClasspath(path);
+            completionIndex.invalidate();
+            documentationCache.addToClasspath(jars);
+        });
+        typeIndex.addJarsAsync(jars);
+    }
+
+    /**
+     * Declares the imports, methods, types and variables of the given events
+     * in the analysis shell. Variables are declared without their initializer,
+     * so no code is executed.
+     */
+    private void mirrorDeclarations(List<SnippetEvent> events) {
+        var mirrorSources = events.stream()
+                .filter(event -> event.status().isActive())
+                .map(event -> switch (event.snippet()) {
+                    case VarSnippet v ->
+                        Optional.of(denotableType(v.typeName()) + " " + v.name() + ";");
+                    case ImportSnippet i ->
+                        Optional.of(i.source());
+                    case MethodSnippet m ->
+                        Optional.of(m.source());
+                    case TypeDeclSnippet t ->
+                        Optional.of(t.source());
+                    default ->
+                        Optional.<String>empty();
+                })
+                .flatMap(Optional::stream)
+                .toList();
+        if (!mirrorSources.isEmpty()) {
+            analysisWorker.execute(() -> mirrorSources.forEach(analysisShell::eval));
+        }
+    }
+
+    private static String denotableType(String typeName) {
+        return typeName.contains("<anonymous") || typeName.contains("&") || typeName.contains("capture#")
+                ? "Object" : typeName;
+    }
+
+    public CompletableFuture<EvaluationResult> evalAsync(Runnable preAction, String codeSnippet, Consumer<EvaluationResult> consumer) {
+        return evalAsync(preAction, codeSnippet, consumer, Duration.ZERO);
+    }
+
+    /**
+     * Evaluates the code on the shell worker. Evaluations still queued when
+     * {@link #cancel()} is called are dropped, the consumer receives a
+     * {@link ResultStatus#CANCELLED} result without snippet events and the
+     * pre action is not run.
+     *
+     * @param timeLimit maximum duration of the evaluation, the evaluation is
+     * stopped and reported as cancelled if exceeded, zero for no limit
+     */
+    public CompletableFuture<EvaluationResult> evalAsync(Runnable preAction, String codeSnippet,
+            Consumer<EvaluationResult> consumer, Duration timeLimit) {
+        long submittedGeneration = cancellationGeneration.get();
+        return CompletableFuture.supplyAsync(() -> {
+            if (submittedGeneration != cancellationGeneration.get()) {
+                return new EvaluationResult(List.of(), List.of(), ResultStatus.CANCELLED, Optional.empty(), Optional.empty());
+            }
+            preAction.run();
+            return evalStoppable(codeSnippet, timeLimit);
+        }, worker)
+                .whenComplete((evaluationResult, t) -> {
+                    if (null == t) {
+                        consumer.accept(evaluationResult);
+                    } else {
+                        logThrowable(t);
+                    }
+                });
+    }
+
+    private EvaluationResult evalStoppable(String codeSnippet, Duration timeLimit) {
+        long evaluation = evaluationCounter.incrementAndGet();
+        runningEvaluation = evaluation;
+        CompletableFuture<Void> timer = null;
+        if (timeLimit.isPositive()) {
+            timer = CompletableFuture.runAsync(() -> stop(evaluation),
+                    CompletableFuture.delayedExecutor(timeLimit.toMillis(), TimeUnit.MILLISECONDS));
+        }
+        try {
+            var evaluationResult = eval(codeSnippet, () -> stoppedEvaluations.contains(evaluation));
+            if (stoppedEvaluations.remove(evaluation)) {
+                // a stopped snippet is reported as valid by jshell
+                return new EvaluationResult(evaluationResult.snippetEventsCurrent(), evaluationResult.snippetEventsOutdated(),
+                        ResultStatus.CANCELLED, Optional.empty(), Optional.empty());
+            }
+            return evaluationResult;
+        } finally {
+            synchronized (stopLock) {
+                runningEvaluation = NO_EVALUATION;
+            }
+            if (null != timer) {
+                timer.cancel(false);
+            }
+        }
+    }
+
+    private void stop(long evaluation) {
+        synchronized (stopLock) {
+            if (NO_EVALUATION == evaluation || runningEvaluation != evaluation) {
+                return;
+            }
+            stoppedEvaluations.add(evaluation);
+            jshell.stop();
+        }
+        // stopping is a no-op while the snippet is still compiled, so repeat until the evaluation is over
+        var unused = CompletableFuture.runAsync(() -> stop(evaluation),
+                CompletableFuture.delayedExecutor(STOP_RETRY_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Stops the running evaluation and drops all evaluations submitted
+     * before.
+     */
+    public void cancel() {
+        cancellationGeneration.incrementAndGet();
+        stop(runningEvaluation);
+    }
+
+    public CompletableFuture<ExecutionPlanner.ExecutionPlan> planAsync(List<ExecutionPlanner.CellSource> cells,
+            Map<UUID, Set<UUID>> observedDependencies) {
+        return CompletableFuture.supplyAsync(
+                () -> ExecutionPlanner.plan(cells, this::analyzeNames, observedDependencies),
+                worker);
+    }
+
+    private ExecutionPlanner.CellNames analyzeNames(String source) {
+        Set<String> declaredVariables = new HashSet<>();
+        Set<String> declaredNames = new HashSet<>();
+        boolean barrier = false;
+        String remaining = null == source ? "" : source.strip();
+        SourceCodeAnalysis.CompletionInfo completionInfo;
+        while (!remaining.isEmpty()) {
+            completionInfo = sourceCodeAnalysis().analyzeCompletion(remaining);
+            if (!completionInfo.completeness().isComplete()) {
+                barrier = true;
+                break;
+            }
+            for (Snippet snippet : sourceCodeAnalysis().sourceToSnippets(completionInfo.source())) {
+                switch (snippet) {
+                    case VarSnippet v ->
+                        declaredVariables.add(v.name());
+                    case DeclarationSnippet d ->
+                        declaredNames.add(d.name());
+                    case ImportSnippet i ->
+                        barrier = true;
+                    case ErroneousSnippet e ->
+                        barrier = true;
+                    default -> {
+                    }
+                }
+            }
+            remaining = completionInfo.remaining().strip();
+        }
+        return new ExecutionPlanner.CellNames(declaredVariables, declaredNames, ExecutionPlanner.identifiers(source), barrier);
     }
 
     private Void logThrowable(Throwable t) {
@@ -142,30 +455,121 @@ public class ReactiveJShell {
         return null;
     }
 
+    /**
+     * Returns the completion suggestions for the caret position, if they can
+     * be narrowed from the suggestions cached for its completion context.
+     */
+    public Optional<CompletionSuggestion> cachedCompletion(String text, int caretPosition) {
+        return completionIndex.lookup(text, caretPosition);
+    }
+
+    /**
+     * Records the accepted completion, recently accepted completions are
+     * ranked higher.
+     */
+    public void completionAccepted(String completion) {
+        completionIndex.accepted(completion);
+    }
+
+    /**
+     * Passes the completion suggestions for the caret position to the
+     * consumer. Cached suggestions are passed on the calling thread, otherwise
+     * the analysis shell is queried for the context without the typed prefix
+     * and the suggestions are cached for narrowing while typing continues.
+     */
     public void completionAsync(String text, int caretPosition,
             Consumer<CompletionSuggestion> consumer) {
-        CompletableFuture.supplyAsync(
-                () -> {
-                    int[] anchor = new int[1];
-                    var completionSuggestions = jshell.sourceCodeAnalysis().completionSuggestions(text, caretPosition, anchor);
-                    return new CompletionSuggestion(completionSuggestions, anchor[0]);
-                },
-                worker)
+        long start = System.nanoTime();
+        var cached = completionIndex.lookup(text, caretPosition);
+        if (cached.isPresent()) {
+            completionLatency.record(start);
+            consumer.accept(cached.get());
+            return;
+        }
+        CompletableFuture.supplyAsync(() -> queryCompletion(text, caretPosition), analysisWorker)
+                .whenComplete((r, t) -> completionLatency.record(start))
                 .thenAccept(consumer)
                 .exceptionally(this::logThrowable);
     }
 
+    private CompletionSuggestion queryCompletion(String text, int caretPosition) {
+        long generation = completionIndex.generation();
+        int anchorPosition = CompletionIndex.anchor(text, caretPosition);
+        var context = text.substring(0, anchorPosition) + text.substring(caretPosition);
+        int[] anchor = new int[1];
+        var completionSuggestions = analysisShell.sourceCodeAnalysis().completionSuggestions(context, anchorPosition, anchor);
+        if (anchor[0] == anchorPosition && !completionSuggestions.isEmpty()) {
+            completionIndex.store(context, anchorPosition, anchorPosition, completionSuggestions, generation);
+        } else {
+            // e.g. no suggestions without a prefix, query the typed prefix instead
+            completionSuggestions = analysisShell.sourceCodeAnalysis().completionSuggestions(text, caretPosition, anchor);
+            if (anchor[0] != anchorPosition) {
+                return new CompletionSuggestion(completionSuggestions, anchor[0]);
+            }
+            completionIndex.store(text, anchorPosition, caretPosition, completionSuggestions, generation);
+        }
+        return completionIndex.lookup(text, caretPosition)
+                .orElseGet(() -> new CompletionSuggestion(List.of(), anchorPosition));
+    }
+
+    /**
+     * Passes the documentation of the element at the caret position to the
+     * consumer. The documentation prefetched for the same text and caret
+     * position is passed on the calling thread.
+     */
     public void documentationAsync(String text, int caretPosition, Consumer<List<Documentation>> consumer) {
-        CompletableFuture.supplyAsync(()
-                -> jshell.sourceCodeAnalysis().documentation(text, caretPosition, true)
-                        .stream()
-                        .map(d -> new Documentation(d.signature(), d.javadoc()))
-                        .toList(),
-                 worker)
+        long start = System.nanoTime();
+        var prefetched = prefetchedDocumentation;
+        if (null != prefetched && prefetched.caretPosition() == caretPosition && prefetched.text().equals(text)
+                && prefetched.generation() == completionIndex.generation()) {
+            documentationLatency.record(start);
+            consumer.accept(prefetched.documentations());
+            return;
+        }
+        CompletableFuture.supplyAsync(() -> queryDocumentation(text, caretPosition), analysisWorker)
+                .whenComplete((r, t) -> documentationLatency.record(start))
                 .thenAccept(consumer)
                 .exceptionally(this::logThrowable);
     }
 
+    /**
+     * Looks up the documentation of the element at the caret position in the
+     * background, e.g. of the completion suggestion about to be accepted.
+     * Only the latest request is processed, earlier ones still waiting are
+     * skipped.
+     */
+    public void prefetchDocumentation(String text, int caretPosition) {
+        long request = documentationPrefetch.incrementAndGet();
+        CompletableFuture.runAsync(() -> {
+            if (request == documentationPrefetch.get()) {
+                long generation = completionIndex.generation();
+                prefetchedDocumentation = new PrefetchedDocumentation(text, caretPosition, generation,
+                        queryDocumentation(text, caretPosition));
+            }
+        }, analysisWorker).exceptionally(this::logThrowable);
+    }
+
+    /**
+     * Computes the signatures of the documented elements only and looks up
+     * their javadoc in the cache, javadoc is computed if any is missing.
+     */
+    private List<Documentation> queryDocumentation(String text, int caretPosition) {
+        var signatures = analysisShell.sourceCodeAnalysis().documentation(text, caretPosition, false);
+        List<Documentation> documentations = new ArrayList<>();
+        for (var signature : signatures) {
+            var javadoc = documentationCache.lookup(signature.signature());
+            if (javadoc.isEmpty()) {
+                var computed = analysisShell.sourceCodeAnalysis().documentation(text, caretPosition, true);
+                computed.forEach(d -> documentationCache.store(d.signature(), d.javadoc()));
+                return computed.stream()
+                        .map(d -> new Documentation(d.signature(), d.javadoc()))
+                        .toList();
+            }
+            documentations.add(new Documentation(signature.signature(), javadoc.get().isEmpty() ? null : javadoc.get()));
+        }
+        return documentations;
+    }
+
     public Stream<Diag> diagnose(Snippet snippet) {
         return jshell.diagnostics(snippet);
     }
@@ -175,18 +579,74 @@ public class ReactiveJShell {
     }
 
     public void highlightingAsync(String text, Consumer<List<SourceCodeAnalysis.Highlight>> consumer) {
-        CompletableFuture.supplyAsync(() -> sourceCodeAnalysis().highlights(text), worker)
-                .thenAccept(consumer)
-                .exceptionally(this::logThrowable);
+        highlightingAsync(text, () -> false, consumer);
+    }
+
+    /**
+     * Requests highlights for the text, the request is skipped if it is
+     * already stale when it is about to be processed.
+     */
+    public void highlightingAsync(String text, BooleanSupplier isStale, Consumer<List<SourceCodeAnalysis.Highlight>> consumer) {
+        long start = System.nanoTime();
+        CompletableFuture.runAsync(() -> {
+            if (!isStale.getAsBoolean()) {
+                var highlights = analysisShell.sourceCodeAnalysis().highlights(text);
+                highlightingLatency.record(start);
+                consumer.accept(highlights);
+            }
+        }, analysisWorker).exceptionally(this::logThrowable);
+    }
+
+    public List<LatencyHistogram> getAnalysisLatencies() {
+        return List.of(completionLatency, documentationLatency, highlightingLatency);
     }
 
     private SourceCodeAnalysis sourceCodeAnalysis() {
         return jshell.sourceCodeAnalysis();
     }
 
-    public void activateExtension(JShellExtension.Factory factory) {
+    JShellExtension registerExtension(JShellExtension.Factory factory) {
         JShellExtension extension = factory.createExtension(this);
         ExtensionManager.register(extension, uuid);
+        return extension;
+    }
+
+    List<String> getRemoteExtensionClasses() {
+        return remoteExtensions.stream().map(extension -> extension.getClass().getName()).toList();
+    }
+
+    /**
+     * Restores the remote extension bookkeeping of a replayed bootstrap
+     * snapshot, the remote code of the extensions is part of the replayed
+     * snippets.
+     */
+    void restoreExtensions(List<JShellExtension> extensions, List<String> remoteExtensionClasses, List<String> unavailable) {
+        extensions.stream()
+                .filter(extension -> remoteExtensionClasses.contains(extension.getClass().getName()))
+                .forEach(remoteExtensions::add);
+        unavailableExtensions.addAll(unavailable);
+    }
+
+    public void activateExtension(JShellExtension.Factory factory) {
+        JShellExtension extension = registerExtension(factory);
+        if (KernelConfiguration.Engine.REMOTE == configuration.engine()
+                && (extension.shellVariableName().isPresent() || extension.initCodeSnippet().isPresent())) {
+            // the shell variables are looked up in the ExtensionManager of the Studio JVM, not reachable from a remote kernel
+            extension.remoteCodeSnippet().ifPresentOrElse(remoteCodeSnippet -> {
+                if (this.eval(remoteCodeSnippet).status().isSuccess()) {
+                    remoteExtensions.add(extension);
+                } else {
+                    Logger.getLogger(ReactiveJShell.class.getName()).log(Level.WARNING,
+                            "Extension {0} failed to load remote code", extension.getClass().getName());
+                    unavailableExtensions.add(extension.getClass().getSimpleName());
+                }
+            }, () -> {
+                Logger.getLogger(ReactiveJShell.class.getName()).log(Level.INFO,
+                        "Extension {0} requires the local execution engine, not available in remote kernel", extension.getClass().getName());
+                unavailableExtensions.add(extension.getClass().getSimpleName());
+            });
+            return;
+        }
         extension.shellVariableName().ifPresent(shellVariablename -> {
             String extensionVarInit = "var " + shellVariablename + " = org.jtaccuino.jshell.extensions.ExtensionManager.lookup(" + extension.getClass().getName() + ".class, _$jsci$uuid)";
             this.eval(extensionVarInit);
@@ -214,10 +674,19 @@ public class ReactiveJShell {
         System.out.println("Worker Execution Service Shutdown Complete");
         System.out.println("Shutting-Down JShell");
         jshell.stop();
+        jshell.close();
+        analysisWorker.execute(analysisShell::close);
+        analysisWorker.shutdown();
+        getAnalysisLatencies().stream()
+                .filter(histogram -> histogram.count() > 0)
+                .forEach(System.out::println);
         ExtensionManager.cleanup(uuid);
         System.out.println("JShell Shutdown complete");
     }
 
+    private static record PrefetchedDocumentation(String text, int caretPosition, long generation, List<Documentation> documentations) {
+    }
+
     public static record CompletionSuggestion(List<SourceCodeAnalysis.Suggestion> suggestions, int anchor) {
     }
 
@@ -226,7 +695,7 @@ public class ReactiveJShell {
     }
 
     public static enum ResultStatus {
-        SUCCESS(true), FAILURE(false);
+        SUCCESS(true), FAILURE(false), CANCELLED(false);
 
         private final boolean isSuccess;
 
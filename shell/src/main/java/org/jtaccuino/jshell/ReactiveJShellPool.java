@@ -0,0 +1,109 @@
+/*
+ * Copyright 2026 JTaccuino Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jtaccuino.jshell;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps a number of started and initialized shells ready, so opening or
+ * resetting a notebook does not have to wait for the start of a kernel and the
+ * evaluation of the init snippets.
+ */
+public final class ReactiveJShellPool {
+
+    private static final ReactiveJShellPool DEFAULT = new ReactiveJShellPool(KernelConfiguration.fromSystemProperties());
+
+    private final ExecutorService starter = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("ReactiveJShellPoolStarter", 0).factory());
+    private final ConcurrentLinkedQueue<CompletableFuture<ReactiveJShell>> warmShells = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final KernelConfiguration configuration;
+    private volatile boolean isShutdown;
+
+    public static ReactiveJShellPool getDefault() {
+        return DEFAULT;
+    }
+
+    public ReactiveJShellPool(KernelConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    public KernelConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * Starts filling the pool up to its configured size.
+     */
+    public void prestart() {
+        refill();
+    }
+
+    /**
+     * Takes a shell out of the pool, falling back to creating a new one on the
+     * caller thread if none is available. The pool is refilled in the
+     * background.
+     */
+    public ReactiveJShell acquire() {
+        var warmShell = warmShells.poll();
+        if (null != warmShell) {
+            pending.decrementAndGet();
+        }
+        refill();
+        if (null != warmShell) {
+            try {
+                return warmShell.join();
+            } catch (RuntimeException e) {
+                Logger.getLogger(ReactiveJShellPool.class.getName()).log(Level.SEVERE, null, e);
+            }
+        }
+        return ReactiveJShellProvider.createInitializedShell(configuration);
+    }
+
+    private void refill() {
+        while (!isShutdown && pending.get() < configuration.poolSize()) {
+            if (pending.incrementAndGet() > configuration.poolSize()) {
+                pending.decrementAndGet();
+                return;
+            }
+            warmShells.add(CompletableFuture.supplyAsync(
+                    () -> ReactiveJShellProvider.createInitializedShell(configuration), starter));
+        }
+    }
+
+    public void shutdown() {
+        isShutdown = true;
+        starter.shutdown();
+        List<CompletableFuture<ReactiveJShell>> remaining = new ArrayList<>();
+        CompletableFuture<ReactiveJShell> warmShell;
+        while (null != (warmShell = warmShells.poll())) {
+            remaining.add(warmShell);
+        }
+        remaining.forEach(f -> f.thenAccept(ReactiveJShell::shutdown)
+                .exceptionally(t -> {
+                    Logger.getLogger(ReactiveJShellPool.class.getName()).log(Level.SEVERE, null, t);
+                    return null;
+                }));
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2024-2025 JTaccuino Contributors
+ * Copyright 2024-2026 JTaccuino Contributors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,8 +16,15 @@
 package org.jtaccuino.jshell;
 
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jdk.jshell.Snippet;
 import org.jtaccuino.jshell.extensions.JShellExtension;
 
 /**
@@ -28,12 +35,97 @@ public class ReactiveJShellProvider {
     private static final String OS_NAME = System.getProperty("os.name").toLowerCase(Locale.ROOT);
     private static final boolean IS_WINDOWS = OS_NAME.contains("windows");
 
+    private static final Map<KernelConfiguration.Engine, BootstrapSnapshot.Key> BOOTSTRAP_KEYS = new ConcurrentHashMap<>();
+    private static final Map<BootstrapSnapshot.Key, BootstrapSnapshot> BOOTSTRAP_SNAPSHOTS = new ConcurrentHashMap<>();
+    private static volatile List<JShellExtension.Factory> systemExtensionFactories;
+
     public static ReactiveJShell createReactiveShell(UUID uuid, Path path) {
-        ReactiveJShell rjs = ReactiveJShell.create(uuid);
-        return initShell(rjs, uuid, path);
+        ReactiveJShell rjs = bootstrap(ReactiveJShell.create(uuid));
+        return initWorkingDirectory(rjs, path);
+    }
+
+    /**
+     * Hands out a pre-initialized shell of the default kernel pool, only the
+     * working directory is set on the caller thread.
+     */
+    public static ReactiveJShell acquireReactiveShell(Path path) {
+        return initWorkingDirectory(ReactiveJShellPool.getDefault().acquire(), path);
+    }
+
+    /**
+     * Creates a shell initialized with everything not depending on the
+     * notebook using it.
+     */
+    static ReactiveJShell createInitializedShell(KernelConfiguration configuration) {
+        var uuid = UUID.randomUUID();
+        ReactiveJShell rjs = ReactiveJShell.create(uuid, configuration);
+        return bootstrap(rjs);
+    }
+
+    /**
+     * Bootstraps the shell by replaying the snapshot recorded for the current
+     * environment, the first shell of an environment records it. If the
+     * replay fails, the snapshot is dropped and a fresh shell is bootstrapped
+     * instead.
+     *
+     * @return the bootstrapped shell, not necessarily the given one
+     */
+    private static ReactiveJShell bootstrap(ReactiveJShell rjs) {
+        long start = System.nanoTime();
+        var key = BOOTSTRAP_KEYS.computeIfAbsent(rjs.getConfiguration().engine(),
+                engine -> BootstrapSnapshot.Key.of(engine, getSystemExtensionFactories()));
+        var snapshot = BOOTSTRAP_SNAPSHOTS.get(key);
+        if (null != snapshot) {
+            var extensions = getSystemExtensionFactories().stream().map(rjs::registerExtension).toList();
+            if (snapshot.replay(rjs)) {
+                rjs.restoreExtensions(extensions, snapshot.remoteExtensions(), snapshot.unavailableExtensions());
+                registerUuidListener(rjs, snapshot.snippetSources().stream()
+                        .filter(source -> source.contains(snapshot.uuid().toString()))
+                        .findFirst()
+                        .map(source -> source.replace(snapshot.uuid().toString(), rjs.getUuid().toString()))
+                        .orElse(""));
+                logBootstrap("replayed", start);
+                return rjs;
+            }
+            Logger.getLogger(ReactiveJShellProvider.class.getName()).log(Level.WARNING,
+                    "Replaying the shell bootstrap failed, bootstrapping a fresh shell");
+            BOOTSTRAP_SNAPSHOTS.remove(key, snapshot);
+            rjs.shutdown();
+            return bootstrap(ReactiveJShell.create(rjs.getUuid(), rjs.getConfiguration()));
+        }
+        initShell(rjs, rjs.getUuid());
+        var jshell = rjs.getWrappedShell();
+        if (jshell.snippets().allMatch(snippet -> Snippet.Status.VALID == jshell.status(snippet))) {
+            BOOTSTRAP_SNAPSHOTS.putIfAbsent(key, new BootstrapSnapshot(key, rjs.getUuid(),
+                    jshell.snippets().map(Snippet::source).toList(),
+                    rjs.getRemoteExtensionClasses(), rjs.getUnavailableExtensions()));
+        }
+        logBootstrap("recorded", start);
+        return rjs;
+    }
+
+    private static void logBootstrap(String kind, long start) {
+        Logger.getLogger(ReactiveJShellProvider.class.getName()).log(Level.FINE,
+                () -> "Shell bootstrap " + kind + " in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+    }
+
+    private static List<JShellExtension.Factory> getSystemExtensionFactories() {
+        if (null == systemExtensionFactories) {
+            systemExtensionFactories = JShellExtension.Mode.SYSTEM.getExtensionFactories();
+        }
+        return systemExtensionFactories;
+    }
+
+    private static void registerUuidListener(ReactiveJShell rjs, String uuidInitSource) {
+        rjs.getWrappedShell().onSnippetEvent((t) -> {
+            if (t.snippet().source().equals(uuidInitSource)) {
+                System.out.println("Init uuid status changed from " + t.previousStatus() + " to : " + t.status());
+                System.out.println("Caused by: " + t.causeSnippet() == null ? "Empty" : t.causeSnippet().source());
+            }
+        });
     }
 
-    private static ReactiveJShell initShell(ReactiveJShell rjs, UUID uuid, Path path) {
+    private static ReactiveJShell initShell(ReactiveJShell rjs, UUID uuid) {
 
         // add import module java.base by default
         ReactiveJShell.EvaluationResult defaultImportsResult = rjs.eval("import module java.base;");
@@ -47,18 +139,17 @@ public class ReactiveJShellProvider {
         var uuidInitSource = "var _$jsci$uuid = UUID.fromString(\"" + uuid + "\");";
 
         ReactiveJShell.EvaluationResult evalResult = rjs.eval(uuidInitSource);
-        rjs.getWrappedShell().onSnippetEvent((t) -> {
-            if (t.snippet().source().equals(uuidInitSource)) {
-                System.out.println("Init uuid status changed from " + t.previousStatus() + " to : " + t.status());
-                System.out.println("Caused by: " + t.causeSnippet() == null ? "Empty" : t.causeSnippet().source());
-            }
-        });
+        registerUuidListener(rjs, uuidInitSource);
         if (evalResult.status().isSuccess()) {
             System.out.println("JSciUUID successfully set");
         } else {
             System.out.println("JSciUUID failed to set");
             System.out.println(evalResult.snippetEventsCurrent());
         }
+        return addSystemExtensions(rjs);
+    }
+
+    private static ReactiveJShell initWorkingDirectory(ReactiveJShell rjs, Path path) {
         if (path != null) {
             var pathString = path.toString();
             if (IS_WINDOWS) {
@@ -74,12 +165,11 @@ public class ReactiveJShellProvider {
                 System.out.println(cwdDefResult.snippetEventsCurrent());
             }
         }
-
-        return addSystemExtensions(rjs);
+        return rjs;
     }
 
     private static ReactiveJShell addSystemExtensions(ReactiveJShell rjs) {
-        JShellExtension.Mode.SYSTEM.getExtensionFactories()
+        getSystemExtensionFactories()
                 .forEach(rjs::activateExtension);
         return rjs;
     }
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2026 JTaccuino Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jtaccuino.jshell;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.classfile.ClassFile;
+import java.lang.module.ModuleDescriptor;
+import java.lang.reflect.AccessFlag;
+import java.net.URI;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarFile;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Index of the public top level types of {@code java.base} and of the jars
+ * added to the class path of a shell, looked up by simple name. The index is
+ * built on background threads, lookups only see the parts already built and
+ * never block.
+ */
+final class TypeIndex {
+
+    private static final Executor INDEXER = r -> Thread.ofVirtual().name("TypeIndexer").start(r);
+
+    private static final class JavaBase {
+
+        private static final CompletableFuture<Segment> SEGMENT = CompletableFuture.supplyAsync(TypeIndex::indexJavaBase, INDEXER);
+    }
+
+    /**
+     * Types of one indexed source, sorted by simple name.
+     */
+    private static final class Segment {
+
+        private final String[] simpleNames;
+        private final String[] qualifiedNames;
+        private final long[] masks;
+
+        private Segment(String[] simpleNames, String[] qualifiedNames) {
+            this.simpleNames = simpleNames;
+            this.qualifiedNames = qualifiedNames;
+            this.masks = Arrays.stream(simpleNames).mapToLong(CompletionRanker::mask).toArray();
+        }
+
+        static Segment of(List<String> qualifiedNames) {
+            var sorted = qualifiedNames.stream()
+                    .distinct()
+                    .sorted(Comparator.comparing(TypeIndex::simpleName).thenComparing(Comparator.naturalOrder()))
+                    .toArray(String[]::new);
+            return new Segment(Arrays.stream(sorted).map(TypeIndex::simpleName).toArray(String[]::new), sorted);
+        }
+
+        int firstStartingWith(String prefix) {
+            int low = 0;
+            int high = simpleNames.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (simpleNames[middle].compareTo(prefix) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    @FunctionalInterface
+    static interface TypeConsumer {
+
+        void accept(String simpleName, String qualifiedName, long mask);
+    }
+
+    private final List<Segment> jarSegments = new CopyOnWriteArrayList<>();
+
+    TypeIndex() {
+        // starts indexing java.base once, shared by all shells
+        var unused = JavaBase.SEGMENT;
+    }
+
+    /**
+     * Indexes the jars on a background thread.
+     */
+    void addJarsAsync(List<Path> jars) {
+        var unused = CompletableFuture.runAsync(() -> jarSegments.add(indexJars(jars)), INDEXER)
+                .exceptionally(t -> {
+                    Logger.getLogger(TypeIndex.class.getName()).log(Level.SEVERE, null, t);
+                    return null;
+                });
+    }
+
+    /**
+     * Returns the qualified names of the indexed types whose simple name starts
+     * with the prefix, at most limit names.
+     */
+    List<String> typesStartingWith(String prefix, int limit) {
+        List<String> types = new ArrayList<>();
+        for (var segment : segments()) {
+            for (int i = segment.firstStartingWith(prefix);
+                    i < segment.simpleNames.length && types.size() < limit && segment.simpleNames[i].startsWith(prefix); i++) {
+                types.add(segment.qualifiedNames[i]);
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Passes the indexed types whose simple name contains all characters of
+     * the mask to the consumer, see {@link CompletionRanker#mask}.
+     */
+    void forEachType(long requiredMask, TypeConsumer consumer) {
+        for (var segment : segments()) {
+            for (int i = 0; i < segment.simpleNames.length; i++) {
+                if ((requiredMask & ~segment.masks[i]) == 0) {
+                    consumer.accept(segment.simpleNames[i], segment.qualifiedNames[i], segment.masks[i]);
+                }
+            }
+        }
+    }
+
+    private List<Segment> segments() {
+        var javaBase = JavaBase.SEGMENT.getNow(null);
+        return null == javaBase ? jarSegments : Stream.concat(Stream.of(javaBase), jarSegments.stream()).toList();
+    }
+
+    private static Segment indexJavaBase() {
+        long start = System.nanoTime();
+        List<String> types = new ArrayList<>();
+        var javaBase = Object.class.getModule();
+        var modules = FileSystems.getFileSystem(URI.create("jrt:/")).getPath("modules", javaBase.getName());
+        javaBase.getDescriptor().exports().stream()
+                .filter(export -> !export.isQualified())
+                .map(ModuleDescriptor.Exports::source)
+                .forEach(packageName -> {
+                    try (var files = Files.list(modules.resolve(packageName.replace('.', '/')))) {
+                        files.forEach(file -> {
+                            var fileName = file.getFileName().toString();
+                            if (isTopLevelClassFile(fileName)) {
+                                try (var in = Files.newInputStream(file)) {
+                                    if (isPublic(in)) {
+                                        types.add(packageName + "." + fileName.substring(0, fileName.length() - ".class".length()));
+                                    }
+                                } catch (IOException ex) {
+                                    Logger.getLogger(TypeIndex.class.getName()).log(Level.WARNING, null, ex);
+                                }
+                            }
+                        });
+                    } catch (IOException ex) {
+                        Logger.getLogger(TypeIndex.class.getName()).log(Level.WARNING, null, ex);
+                    }
+                });
+        var segment = Segment.of(types);
+        Logger.getLogger(TypeIndex.class.getName()).log(Level.FINE, () -> "Indexed " + types.size() + " types of java.base in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        return segment;
+    }
+
+    private static Segment indexJars(List<Path> jars) {
+        List<String> types = new ArrayList<>();
+        for (var jar : jars) {
+            if (!Files.isRegularFile(jar)) {
+                continue;
+            }
+            try (var jarFile = new JarFile(jar.toFile())) {
+                var entries = jarFile.entries();
+                while (entries.hasMoreElements()) {
+                    var entry = entries.nextElement();
+                    var name = entry.getName();
+                    var fileName = name.substring(name.lastIndexOf('/') + 1);
+                    if (!name.startsWith("META-INF/") && name.contains("/") && isTopLevelClassFile(fileName)) {
+                        try (var in = jarFile.getInputStream(entry)) {
+                            if (isPublic(in)) {
+                                types.add(name.substring(0, name.length() - ".class".length()).replace('/', '.'));
+                            }
+                        }
+                    }
+                }
+            } catch (IOException ex) {
+                Logger.getLogger(TypeIndex.class.getName()).log(Level.WARNING, "Could not index " + jar, ex);
+            }
+        }
+        return Segment.of(types);
+    }
+
+    private static boolean isTopLevelClassFile(String fileName) {
+        return fileName.endsWith(".class") && fileName.indexOf('$') < 0
+                && !"module-info.class".equals(fileName) && !"package-info.class".equals(fileName);
+    }
+
+    /**
+     * Reads the access flags of the class file, a class file that can not be
+     * parsed is not public.
+     */
+    private static boolean isPublic(InputStream classFile) throws IOException {
+        try {
+            var flags = ClassFile.of().parse(classFile.readAllBytes()).flags();
+            return flags.has(AccessFlag.PUBLIC) && !flags.has(AccessFlag.SYNTHETIC) && !flags.has(AccessFlag.MODULE);
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
+    }
+
+    private static String simpleName(String qualifiedName) {
+        return qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1);
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2024-2025 JTaccuino Contributors
+ * Copyright 2024-2026 JTaccuino Contributors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -99,4 +99,21 @@ public interface JShellExtension {
     public default Optional<String> initCodeSnippet() {
         return Optional.empty();
     }
+
+    /**
+     * Code declaring the shell methods of the extension in a remote kernel,
+     * which can not look up the extension in the Studio JVM. Extensions with a
+     * shell variable or init code but without remote code are not available
+     * in remote kernels.
+     */
+    public default Optional<String> remoteCodeSnippet() {
+        return Optional.empty();
+    }
+
+    /**
+     * Called in the Studio JVM after each snippet executed by a remote kernel,
+     * e.g. to take over the requests recorded by the remote code.
+     */
+    public default void remoteSnippetExecuted() {
+    }
 }
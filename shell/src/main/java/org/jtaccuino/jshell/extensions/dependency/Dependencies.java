@@ -1,5 +1,5 @@
 /*
- * Copyright 2024-2025 JTaccuino Contributors
+ * Copyright 2024-2026 JTaccuino Contributors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,7 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.artifact.DefaultArtifact;
@@ -27,8 +28,10 @@ import org.eclipse.aether.collection.CollectRequest;
 import org.eclipse.aether.graph.Dependency;
 import org.eclipse.aether.graph.DependencyFilter;
 import org.eclipse.aether.graph.DependencyNode;
-import org.eclipse.aether.graph.DependencyVisitor;
 import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResult;
 import org.eclipse.aether.resolution.DependencyRequest;
 import org.eclipse.aether.resolution.DependencyResolutionException;
 import org.eclipse.aether.supplier.RepositorySystemSupplier;
@@ -39,6 +42,22 @@ import org.eclipse.aether.util.filter.DependencyFilterUtils;
 
 final class Dependencies {
 
+    private static final int DOWNLOAD_THREADS = Math.max(5, Runtime.getRuntime().availableProcessors());
+
+    private static final boolean OFFLINE = Boolean.getBoolean("jtaccuino.dependencies.offline");
+
+    private static final String DEFAULT_REPOSITORIES = "mavenLocal="
+            + Path.of(System.getProperty("user.home"), ".m2", "repository")
+            + ",central=https://repo1.maven.org/maven2/";
+
+    private static final class Holder {
+
+        private static final RepositorySystem REPOSITORY_SYSTEM = newRepositorySystem();
+        private static final RepositorySystemSession SESSION = newRepositorySystemSession(REPOSITORY_SYSTEM).build();
+        private static final List<RemoteRepository> REPOSITORIES = parseRepositories(
+                System.getProperty("jtaccuino.dependencies.repositories", DEFAULT_REPOSITORIES), OFFLINE);
+    }
+
     private static RepositorySystem newRepositorySystem() {
         var repoSup = new RepositorySystemSupplier();
         return repoSup.get();
@@ -49,29 +68,88 @@ final class Dependencies {
                 .get()
                 .withLocalRepositoryBaseDirectories(Path.of(System.getProperty("user.home")
                         + File.separator + "jtaccuino" + File.separator + "cache" + File.separator + "local-repo"))
-                .setConfigProperty("aether.syncContext.named.factory", "noop");
+                // the session is shared by all kernels of the studio
+                .setConfigProperty("aether.syncContext.named.factory", "rwlock-local")
+                // collects the graph breadth first, downloading poms in parallel
+                .setConfigProperty("aether.dependencyCollector.impl", "bf")
+                .setConfigProperty("aether.dependencyCollector.bf.threads", DOWNLOAD_THREADS)
+                .setConfigProperty("aether.connector.basic.threads", DOWNLOAD_THREADS)
+                // offline only local repositories (e.g. a mirror on a file share) are accessed
+                .setOffline(OFFLINE)
+                .setConfigProperty("aether.offline.protocols", "file");
         return result;
     }
 
     static DependencyArtifact resolve(String mavenCoordinates) {
-        try {
-            RepositorySystem repoSystem = newRepositorySystem();
+        return resolve(List.of(mavenCoordinates)).getFirst();
+    }
 
-            RepositorySystemSession session = newRepositorySystemSession(repoSystem).build();
+    /**
+     * Resolves the coordinates together in one request, answered from the
+     * {@link ResolutionIndex} if resolved before.
+     *
+     * @return the dependency trees of the coordinates in the given order
+     */
+    static List<DependencyArtifact> resolve(List<String> mavenCoordinates) {
+        var indexable = ResolutionIndex.isIndexable(mavenCoordinates);
+        if (indexable) {
+            var indexed = ResolutionIndex.lookup(mavenCoordinates);
+            if (indexed.isPresent()) {
+                return indexed.get();
+            }
+        }
+        var resolved = resolveFromRepositories(mavenCoordinates);
+        if (indexable) {
+            ResolutionIndex.store(mavenCoordinates, resolved);
+        }
+        return resolved;
+    }
 
-            var artifact = new DefaultArtifact(mavenCoordinates);
+    /**
+     * Resolves exactly the given artifacts without walking their dependency
+     * graphs, e.g. to pre-seed the local cache from a lockfile. Missing
+     * artifacts are downloaded in parallel.
+     *
+     * @return the resolved artifacts in the given order
+     */
+    static List<DependencyArtifact> prefetch(List<String> artifactCoordinates) {
+        var requests = artifactCoordinates.stream()
+                .map(coordinates -> new ArtifactRequest(new DefaultArtifact(coordinates), Holder.REPOSITORIES, null))
+                .toList();
+        try {
+            return Holder.REPOSITORY_SYSTEM.resolveArtifacts(Holder.SESSION, requests).stream()
+                    .map(ArtifactResult::getArtifact)
+                    .map(artifact -> new DependencyArtifact(
+                    artifact.getGroupId(),
+                    artifact.getArtifactId(),
+                    artifact.getClassifier(),
+                    artifact.getBaseVersion(),
+                    artifact.getVersion(),
+                    artifact.getPath(),
+                    new ArrayList<>()))
+                    .toList();
+        } catch (ArtifactResolutionException ex) {
+            var failures = ex.getResults().stream()
+                    .filter(ar -> !ar.isResolved())
+                    .flatMap(ar -> ar.getExceptions().stream());
+            throw new DependencyException(describeFailure("Failure prefetching dependencies", failures, ex));
+        }
+    }
 
-            Dependency dependency
-                    = new Dependency(artifact, "compile");
-            RemoteRepository central = new RemoteRepository.Builder("central", "default", "https://repo1.maven.org/maven2/").build();
+    private static List<DependencyArtifact> resolveFromRepositories(List<String> mavenCoordinates) {
+        try {
+            RepositorySystem repoSystem = Holder.REPOSITORY_SYSTEM;
 
-            var localRepoPath = System.getProperty("user.home") + File.separator + ".m2" + File.separator + "repository";
-            RemoteRepository mavenlocal = new RemoteRepository.Builder("mavenLocal", "default", new File(localRepoPath).toURI().toString()).build();
+            RepositorySystemSession session = Holder.SESSION;
 
             CollectRequest collectRequest = new CollectRequest();
-            collectRequest.setRoot(dependency);
-            collectRequest.addRepository(mavenlocal);
-            collectRequest.addRepository(central);
+            mavenCoordinates.forEach(coordinates -> collectRequest.addDependency(new Dependency(new DefaultArtifact(coordinates), "compile")));
+            collectRequest.setRepositories(Holder.REPOSITORIES);
+
+            // the root is a placeholder without artifact
+            DependencyFilter rootFilter = (dn, list) -> {
+                return null == dn.getDependency();
+            };
 
             DependencyFilter javafxFilter = (dn, list) -> {
                 return !"org.openjfx".equals(dn.getArtifact().getGroupId());
@@ -85,59 +163,97 @@ final class Dependencies {
                 return !"runtimeFilter".equals(dn.getDependency().getScope());
             };
 
-            var filter = DependencyFilterUtils.andFilter(javafxFilter, DependencyFilterUtils.orFilter(compileFilter, runtimeFilter));
+            var filter = DependencyFilterUtils.orFilter(rootFilter,
+                    DependencyFilterUtils.andFilter(javafxFilter, DependencyFilterUtils.orFilter(compileFilter, runtimeFilter)));
 
             DependencyRequest dependencyRequest = new DependencyRequest(collectRequest, filter);
 
             var dependencyResult = repoSystem.resolveDependencies(session, dependencyRequest);
 
-            var dv = new DependencyVisitor() {
-
-                List<DependencyArtifact> deps = new ArrayList<>();
-
-                @Override
-                public boolean visitEnter(DependencyNode node) {
-                    DependencyArtifact newDep = new DependencyArtifact(
-                            node.getDependency().getArtifact().getGroupId(),
-                            node.getDependency().getArtifact().getArtifactId(),
-                            node.getDependency().getArtifact().getClassifier(),
-                            node.getDependency().getArtifact().getBaseVersion(),
-                            node.getDependency().getArtifact().getVersion(),
-                            node.getDependency().getArtifact().getPath(),
-                            new ArrayList<>());
-                    if (!deps.isEmpty()) {
-                        deps.getLast().dependencies().add(newDep);
-                    }
-                    deps.addLast(newDep);
-                    return true;
-                }
+            // the root is a placeholder for the requested dependencies
+            return dependencyResult.getRoot().getChildren().stream()
+                    .map(Dependencies::toDependencyArtifact)
+                    .toList();
+        } catch (DependencyResolutionException ex) {
+            var result = ex.getResult();
+            var failures = Stream.concat(result.getCollectExceptions().stream(),
+                    result.getArtifactResults().stream()
+                            .filter(ar -> !ar.isResolved())
+                            .flatMap(ar -> ar.getExceptions().stream()));
+            throw new DependencyException(describeFailure("Failure adding dependencies", failures, ex));
+        }
+    }
+
+    private static String describeFailure(String headline, Stream<Exception> failures, Exception ex) {
+        var message = failures
+                .map(Dependencies::describe)
+                .distinct()
+                .collect(Collectors.joining("\n"));
+        return headline + ":\n" + (message.isEmpty() ? ex.getMessage() : message)
+                + "\nSearched " + (OFFLINE ? "offline " : "") + "in "
+                + Holder.REPOSITORIES.stream()
+                        .map(repository -> repository.getId() + " (" + repository.getUrl() + ")")
+                        .collect(Collectors.joining(", "));
+    }
 
-                @Override
-                public boolean visitLeave(DependencyNode dn) {
-                    if (1 < deps.size()) {
-                        deps.removeLast();
-                    }
-                    return true;
+    private static String describe(Throwable failure) {
+        for (var cause = failure; null != cause; cause = cause.getCause()) {
+            switch (cause) {
+                case ArtifactNotFoundException anfe -> {
+                    return "Artifact not found " + anfe.getMessage();
+                }
+                case RepositoryOfflineException roe -> {
+                    return "Repository offline " + roe.getRepository();
                 }
+                default -> {
+                }
+            }
+        }
+        return failure.getMessage();
+    }
 
-            };
-            dependencyResult.getRoot()
-                    .accept(dv);
-            return dv.deps.getLast();
-        } catch (DependencyResolutionException ex) {
-            var message = ex.getResult().getArtifactResults().stream()
-                    .filter(ar -> !ar.isResolved())
-                    .flatMap(ar -> ar.getExceptions().stream())
-                    .map(e -> switch (e) {
-                case ArtifactNotFoundException anfe ->
-                    "Artifact not found " + anfe.getMessage();
-                case RepositoryOfflineException roe ->
-                    roe.getRepository().toString();
-                default ->
-                    ex.getMessage();
-            })
-                    .collect(Collectors.joining("\n"));
-            throw new DependencyException("Failure adding dependencies:\n" + message);
+    /**
+     * Parses the comma separated list of repositories, each either a url or a
+     * local directory, optionally prefixed with its id, e.g.
+     * {@code central=/mnt/mirror}. Artifacts cached from a repository are only
+     * reused for repositories with the same id. In offline mode only local
+     * repositories are used.
+     */
+    static List<RemoteRepository> parseRepositories(String configuration, boolean offline) {
+        List<RemoteRepository> repositories = new ArrayList<>();
+        for (String entry : configuration.split(",", -1)) {
+            entry = entry.strip();
+            if (entry.isEmpty()) {
+                continue;
+            }
+            var id = "repository" + (repositories.size() + 1);
+            var separator = entry.indexOf('=');
+            if (separator > 0 && entry.substring(0, separator).matches("[\\w.-]+")) {
+                id = entry.substring(0, separator);
+                entry = entry.substring(separator + 1).strip();
+            }
+            // a single letter scheme is a windows drive
+            var url = entry.matches("[a-zA-Z][a-zA-Z0-9+.-]+:.*")
+                    ? entry
+                    : Path.of(entry).toAbsolutePath().toUri().toString();
+            if (!offline || url.startsWith("file:")) {
+                repositories.add(new RemoteRepository.Builder(id, "default", url).build());
+            }
         }
+        return List.copyOf(repositories);
+    }
+
+    private static DependencyArtifact toDependencyArtifact(DependencyNode node) {
+        var artifact = node.getDependency().getArtifact();
+        return new DependencyArtifact(
+                artifact.getGroupId(),
+                artifact.getArtifactId(),
+                artifact.getClassifier(),
+                artifact.getBaseVersion(),
+                artifact.getVersion(),
+                artifact.getPath(),
+                node.getChildren().stream()
+                        .map(Dependencies::toDependencyArtifact)
+                        .collect(Collectors.toCollection(ArrayList::new)));
     }
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2024-2025 JTaccuino Contributors
+ * Copyright 2024-2026 JTaccuino Contributors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,13 +15,15 @@
  */
 package org.jtaccuino.jshell.extensions.dependency;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
-import jdk.jshell.JShell;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import org.jtaccuino.jshell.ReactiveJShell;
 import org.jtaccuino.jshell.extensions.JShellExtension;
 
@@ -31,6 +33,8 @@ public class DependencyExtension implements JShellExtension {
 
     private final Set<String> paths = new TreeSet<>();
     private final List<DependencyArtifact> artifacts = new ArrayList<>();
+    private volatile DependencyLock lock = new DependencyLock();
+    private int remoteRequestsTaken;
 
     @Descriptor(mode = Mode.SYSTEM, type = DependencyExtension.class)
     public static class Factory implements JShellExtension.Factory {
@@ -57,27 +61,106 @@ public class DependencyExtension implements JShellExtension {
         return Optional.of("""
             public void addDependency(String mavenCoordinate) {
                 dependencyManager.resolve(mavenCoordinate);
+            }
+            public void addDependencies(String... mavenCoordinates) {
+                dependencyManager.resolve(java.util.List.of(mavenCoordinates));
             }""");
     }
 
+    // the remote kernel records the requested coordinates, separated by spaces, in this variable
+    private static final String REMOTE_REQUESTS = "_$jsci$dependencyRequests";
+
+    @Override
+    public Optional<String> remoteCodeSnippet() {
+        return Optional.of("String " + REMOTE_REQUESTS + " = \"\";\n" + """
+            public void addDependency(String mavenCoordinate) {
+                %1$s += mavenCoordinate + " ";
+            }
+            public void addDependencies(String... mavenCoordinates) {
+                %1$s += String.join(" ", mavenCoordinates) + " ";
+            }""".formatted(REMOTE_REQUESTS));
+    }
+
+    /**
+     * Resolves the requests the remote kernel recorded while executing the
+     * snippet, the resolved artifacts are added to the class path of the
+     * remote kernel before the next snippet is evaluated.
+     */
+    @Override
+    public void remoteSnippetExecuted() {
+        var shell = reactiveJShell.getWrappedShell();
+        var requests = shell.variables()
+                .filter(variable -> REMOTE_REQUESTS.equals(variable.name()))
+                .filter(variable -> shell.status(variable).isActive())
+                .findFirst()
+                .map(shell::varValue)
+                .orElse("");
+        // the value is a quoted string literal
+        var recorded = requests.length() < 2 ? "" : requests.substring(1, requests.length() - 1);
+        var taken = recorded.substring(Math.min(remoteRequestsTaken, recorded.length())).strip();
+        remoteRequestsTaken = recorded.length();
+        if (!taken.isEmpty()) {
+            try {
+                resolve(List.of(taken.split(" +", -1)));
+            } catch (DependencyException ex) {
+                Logger.getLogger(DependencyExtension.class.getName()).log(Level.WARNING, "Could not add dependencies requested by remote kernel", ex);
+            }
+        }
+    }
+
     public void resolve(String mavenCoordinates) {
-        JShell jshell = reactiveJShell.getWrappedShell();
-        if (null == jshell) {
+        resolve(List.of(mavenCoordinates));
+    }
+
+    /**
+     * Resolves all coordinates in one request, or takes the artifacts locked
+     * for the request, and adds them to the class path in one step.
+     */
+    public void resolve(List<String> mavenCoordinates) {
+        if (null == reactiveJShell.getWrappedShell()) {
             System.out.println("JShell is null");
         } else {
-            System.out.println("Adding deps for " + mavenCoordinates);
-            var depArtifact = Dependencies.resolve(mavenCoordinates);
-            depArtifact.stream()
-                    .filter(d -> !paths.contains(d.identifier()))
+            System.out.println("Adding deps for " + String.join(", ", mavenCoordinates));
+            var currentLock = lock;
+            var resolved = currentLock.lookup(mavenCoordinates).orElseGet(() -> {
+                var trees = Dependencies.resolve(mavenCoordinates);
+                currentLock.record(mavenCoordinates, trees);
+                return trees;
+            });
+            List<String> addedPaths = new ArrayList<>();
+            resolved.stream()
+                    .flatMap(DependencyArtifact::stream)
                     .filter(d -> null != d.path())
+                    .filter(d -> paths.add(d.identifier()))
                     .forEach(d -> {
-                        jshell.addToClasspath(d.path().toString());
-                        paths.add(d.identifier());
+                        addedPaths.add(d.path().toString());
                         artifacts.add(d);
                     });
+            if (!addedPaths.isEmpty()) {
+                reactiveJShell.addToClasspath(String.join(File.pathSeparator, addedPaths));
+            }
         }
     }
 
+    /**
+     * Uses the lock of the notebook evaluated by the shell to add and record
+     * dependencies.
+     */
+    public void setLock(DependencyLock lock) {
+        this.lock = lock;
+    }
+
+    /**
+     * Copies exactly the given artifacts (e.g. those locked by a notebook) into
+     * the local cache, so that resolving them later needs no repository access.
+     *
+     * @throws DependencyException listing the artifacts not found in any of the
+     * configured repositories
+     */
+    public static List<DependencyArtifact> prefetch(List<String> artifactCoordinates) {
+        return Dependencies.prefetch(artifactCoordinates);
+    }
+
     public List<DependencyArtifact> getUsedArtifactTrees() {
         return List.copyOf(artifacts);
     }
@@ -0,0 +1,303 @@
+/*
+ * Copyright 2026 JTaccuino Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jtaccuino.jshell.extensions.dependency;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Lockfile of a notebook, mapping the coordinates requested by its cells to
+ * the dependency trees they were resolved to, stored in the notebook metadata
+ * together with the checksums of the artifacts. The locked artifacts are
+ * prefetched as soon as the notebook is opened, requests found in the lock
+ * are added again without resolving their (possibly ranged) versions.
+ * Requests no longer used by the notebook are dropped when it is saved.
+ */
+public final class DependencyLock {
+
+    public static final String METADATA_KEY = "jtaccuino_dependencies";
+
+    private static final Executor PREFETCHER = r -> Thread.ofVirtual().name("DependencyPrefetcher").start(r);
+
+    // as read from the notebook, only used once prefetched
+    private final Map<List<String>, List<DependencyArtifact>> loaded;
+    // requests resolved or prefetched in this session with local paths
+    private final Map<List<String>, List<DependencyArtifact>> usable = new ConcurrentHashMap<>();
+    private final Map<List<String>, List<DependencyArtifact>> locked = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final Map<String, String> checksums = new ConcurrentHashMap<>();
+    // requests resolved or looked up in this session
+    private final Set<List<String>> used = ConcurrentHashMap.newKeySet();
+    private CompletableFuture<Void> prefetched;
+
+    public DependencyLock() {
+        this(Map.of());
+    }
+
+    private DependencyLock(Map<List<String>, List<DependencyArtifact>> loaded) {
+        this.loaded = loaded;
+        this.locked.putAll(loaded);
+    }
+
+    /**
+     * Reads the lock from its notebook metadata entry, an unreadable entry is
+     * ignored.
+     */
+    public static DependencyLock fromMetadata(Object metadata) {
+        if (!(metadata instanceof List<?> entries)) {
+            return new DependencyLock();
+        }
+        try {
+            Map<List<String>, List<DependencyArtifact>> loaded = new LinkedHashMap<>();
+            Map<String, String> checksums = new HashMap<>();
+            for (var entry : entries) {
+                var lockEntry = (Map<?, ?>) entry;
+                var request = ((List<?>) lockEntry.get("request")).stream()
+                        .map(String.class::cast)
+                        .toList();
+                List<DependencyArtifact> roots = new ArrayList<>();
+                List<DependencyArtifact> parents = new ArrayList<>();
+                for (var artifactEntry : (List<?>) lockEntry.get("artifacts")) {
+                    var fields = (Map<?, ?>) artifactEntry;
+                    int depth = ((Number) fields.get("depth")).intValue();
+                    var path = (String) fields.get("path");
+                    var artifact = new DependencyArtifact(
+                            Objects.requireNonNull((String) fields.get("group_id")),
+                            Objects.requireNonNull((String) fields.get("artifact_id")),
+                            Objects.requireNonNullElse((String) fields.get("classifier"), ""),
+                            Objects.requireNonNull((String) fields.get("base_version")),
+                            Objects.requireNonNull((String) fields.get("version")),
+                            null == path ? null : Path.of(path),
+                            new ArrayList<>());
+                    if (fields.get("sha256") instanceof String sha256) {
+                        checksums.put(coordinates(artifact), sha256);
+                    }
+                    if (0 == depth) {
+                        roots.add(artifact);
+                    } else {
+                        parents.get(depth - 1).dependencies().add(artifact);
+                    }
+                    parents.subList(depth, parents.size()).clear();
+                    parents.add(artifact);
+                }
+                loaded.put(request, roots);
+            }
+            var lock = new DependencyLock(Collections.unmodifiableMap(loaded));
+            lock.checksums.putAll(checksums);
+            return lock;
+        } catch (RuntimeException ex) {
+            Logger.getLogger(DependencyLock.class.getName()).log(Level.WARNING, "Ignoring unreadable dependency lock", ex);
+            return new DependencyLock();
+        }
+    }
+
+    /**
+     * Converts the lock to plain lists and maps to be stored in the notebook
+     * metadata.
+     */
+    public List<Map<String, Object>> toMetadata() {
+        List<Map<String, Object>> entries = new ArrayList<>();
+        synchronized (locked) {
+            locked.forEach((request, trees) -> {
+                List<Map<String, Object>> artifacts = new ArrayList<>();
+                trees.forEach(tree -> addArtifacts(artifacts, tree, 0));
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("request", request);
+                entry.put("artifacts", artifacts);
+                entries.add(entry);
+            });
+        }
+        return entries;
+    }
+
+    private void addArtifacts(List<Map<String, Object>> artifacts, DependencyArtifact artifact, int depth) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("depth", depth);
+        fields.put("group_id", artifact.groupId());
+        fields.put("artifact_id", artifact.artifactId());
+        fields.put("classifier", artifact.classifier());
+        fields.put("base_version", artifact.baseVersion());
+        fields.put("version", artifact.version());
+        if (null != artifact.path()) {
+            fields.put("path", artifact.path().toAbsolutePath().toString());
+        }
+        var checksum = checksums.get(coordinates(artifact));
+        if (null != checksum) {
+            fields.put("sha256", checksum);
+        }
+        artifacts.add(fields);
+        artifact.dependencies().forEach(dependency -> addArtifacts(artifacts, dependency, depth + 1));
+    }
+
+    public boolean isEmpty() {
+        return locked.isEmpty();
+    }
+
+    /**
+     * Drops the locked requests that were neither resolved nor looked up in
+     * this session and whose coordinates are not all mentioned in the given
+     * cell sources any more, e.g. before the lock is saved.
+     */
+    public void retainUsed(List<String> sources) {
+        synchronized (locked) {
+            locked.keySet().removeIf(request -> !used.contains(request)
+                    && !request.stream().allMatch(coordinates -> sources.stream().anyMatch(source -> null != source && source.contains(coordinates))));
+        }
+    }
+
+    /**
+     * Copies all locked artifacts into the local cache in parallel and checks
+     * their checksums, subsequent calls return the same future. Requests
+     * whose artifacts are missing or changed are resolved again.
+     */
+    public synchronized CompletableFuture<Void> prefetchAsync() {
+        if (null == prefetched) {
+            prefetched = loaded.isEmpty()
+                    ? CompletableFuture.completedFuture(null)
+                    : CompletableFuture.runAsync(this::prefetch, PREFETCHER);
+        }
+        return prefetched;
+    }
+
+    private void prefetch() {
+        long start = System.nanoTime();
+        var coordinates = loaded.values().stream()
+                .flatMap(List::stream)
+                .flatMap(DependencyArtifact::stream)
+                .filter(artifact -> null != artifact.path())
+                .map(DependencyLock::coordinates)
+                .distinct()
+                .toList();
+        Map<String, Path> paths = new HashMap<>();
+        try {
+            Dependencies.prefetch(coordinates).forEach(artifact -> paths.put(coordinates(artifact), artifact.path()));
+        } catch (DependencyException ex) {
+            Logger.getLogger(DependencyLock.class.getName()).log(Level.WARNING, "Ignoring dependency lock", ex);
+            return;
+        }
+        loaded.forEach((request, trees) -> {
+            var changed = trees.stream()
+                    .flatMap(DependencyArtifact::stream)
+                    .filter(artifact -> null != artifact.path())
+                    .map(DependencyLock::coordinates)
+                    .filter(artifact -> checksums.containsKey(artifact)
+                    && !checksums.get(artifact).equals(sha256(paths.get(artifact))))
+                    .toList();
+            if (changed.isEmpty()) {
+                usable.put(request, trees.stream().map(tree -> withLocalPaths(tree, paths)).toList());
+            } else {
+                Logger.getLogger(DependencyLock.class.getName()).log(Level.WARNING, () -> "Checksum mismatch of locked " + String.join(", ", changed)
+                        + ", resolving " + String.join(", ", request) + " again");
+            }
+        });
+        Logger.getLogger(DependencyLock.class.getName()).log(Level.FINE, () -> "Prefetched " + coordinates.size() + " locked artifacts in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+    }
+
+    /**
+     * Looks up the dependency trees locked for the request, waiting for the
+     * prefetch to complete.
+     */
+    Optional<List<DependencyArtifact>> lookup(List<String> mavenCoordinates) {
+        prefetchAsync().join();
+        var request = List.copyOf(mavenCoordinates);
+        used.add(request);
+        return Optional.ofNullable(usable.get(request));
+    }
+
+    /**
+     * Locks the dependency trees resolved for the request. Trees containing
+     * other artifacts than jars are not locked, as they could not be
+     * prefetched.
+     */
+    void record(List<String> mavenCoordinates, List<DependencyArtifact> resolved) {
+        var artifacts = resolved.stream()
+                .flatMap(DependencyArtifact::stream)
+                .filter(artifact -> null != artifact.path())
+                .toList();
+        if (artifacts.stream().anyMatch(artifact -> !artifact.path().toString().endsWith(".jar"))) {
+            return;
+        }
+        artifacts.forEach(artifact -> {
+            var checksum = sha256(artifact.path());
+            if (null != checksum) {
+                checksums.put(coordinates(artifact), checksum);
+            }
+        });
+        var request = List.copyOf(mavenCoordinates);
+        used.add(request);
+        usable.put(request, resolved);
+        locked.put(request, resolved);
+    }
+
+    private static DependencyArtifact withLocalPaths(DependencyArtifact artifact, Map<String, Path> paths) {
+        return new DependencyArtifact(
+                artifact.groupId(),
+                artifact.artifactId(),
+                artifact.classifier(),
+                artifact.baseVersion(),
+                artifact.version(),
+                null == artifact.path() ? null : paths.get(coordinates(artifact)),
+                artifact.dependencies().stream()
+                        .map(dependency -> withLocalPaths(dependency, paths))
+                        .collect(Collectors.toCollection(ArrayList::new)));
+    }
+
+    private static String coordinates(DependencyArtifact artifact) {
+        return artifact.groupId() + ":" + artifact.artifactId() + ":jar:"
+                + (artifact.classifier().isEmpty() ? "" : artifact.classifier() + ":")
+                + artifact.version();
+    }
+
+    private static String sha256(Path path) {
+        if (null == path) {
+            return null;
+        }
+        try (var in = Files.newInputStream(path)) {
+            var digest = MessageDigest.getInstance("SHA-256");
+            var buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException ex) {
+            Logger.getLogger(DependencyLock.class.getName()).log(Level.WARNING, null, ex);
+            return null;
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
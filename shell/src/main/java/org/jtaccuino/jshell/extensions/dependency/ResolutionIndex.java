@@ -0,0 +1,132 @@
+/*
+ * Copyright 2026 JTaccuino Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jtaccuino.jshell.extensions.dependency;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.eclipse.aether.artifact.DefaultArtifact;
+
+/**
+ * On disk index from requested maven coordinates to their resolved dependency
+ * trees, so that requests resolved before are answered without walking the
+ * dependency graph again. Requests with version ranges or snapshot versions
+ * are not indexed, entries referring to files no longer present are ignored.
+ */
+final class ResolutionIndex {
+
+    private static final Path INDEX_DIRECTORY = Path.of(System.getProperty("user.home"),
+            "jtaccuino", "cache", "resolution-index");
+
+    private static final String SEPARATOR = "\t";
+
+    private ResolutionIndex() {
+    }
+
+    static boolean isIndexable(List<String> mavenCoordinates) {
+        return mavenCoordinates.stream()
+                .map(coordinates -> new DefaultArtifact(coordinates).getVersion())
+                .noneMatch(version -> version.isEmpty()
+                || version.contains("[") || version.contains("(") || version.contains(",")
+                || version.endsWith("SNAPSHOT") || "LATEST".equals(version) || "RELEASE".equals(version));
+    }
+
+    static Optional<List<DependencyArtifact>> lookup(List<String> mavenCoordinates) {
+        var entry = entryPath(mavenCoordinates);
+        if (!Files.exists(entry)) {
+            return Optional.empty();
+        }
+        try {
+            var lines = Files.readAllLines(entry, StandardCharsets.UTF_8);
+            if (lines.isEmpty() || !lines.getFirst().equals(String.join(" ", mavenCoordinates))) {
+                return Optional.empty();
+            }
+            List<DependencyArtifact> roots = new ArrayList<>();
+            List<DependencyArtifact> parents = new ArrayList<>();
+            for (String line : lines.subList(1, lines.size())) {
+                var fields = line.split(SEPARATOR, -1);
+                int depth = Integer.parseInt(fields[0]);
+                var path = fields[6].isEmpty() ? null : Path.of(fields[6]);
+                if (null != path && !Files.exists(path)) {
+                    return Optional.empty();
+                }
+                var artifact = new DependencyArtifact(fields[1], fields[2], fields[3], fields[4], fields[5], path, new ArrayList<>());
+                if (0 == depth) {
+                    roots.add(artifact);
+                } else {
+                    parents.get(depth - 1).dependencies().add(artifact);
+                }
+                parents.subList(depth, parents.size()).clear();
+                parents.add(artifact);
+            }
+            return Optional.of(roots);
+        } catch (IOException | RuntimeException ex) {
+            Logger.getLogger(ResolutionIndex.class.getName()).log(Level.WARNING, "Ignoring unreadable index entry " + entry, ex);
+            return Optional.empty();
+        }
+    }
+
+    static void store(List<String> mavenCoordinates, List<DependencyArtifact> resolved) {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.join(" ", mavenCoordinates));
+        resolved.forEach(artifact -> addLines(lines, artifact, 0));
+        try {
+            Files.createDirectories(INDEX_DIRECTORY);
+            var entry = entryPath(mavenCoordinates);
+            var tempFile = Files.createTempFile(INDEX_DIRECTORY, entry.getFileName().toString(), ".tmp");
+            try {
+                Files.write(tempFile, lines, StandardCharsets.UTF_8);
+                try {
+                    Files.move(tempFile, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException ex) {
+                    Files.move(tempFile, entry, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException ex) {
+            Logger.getLogger(ResolutionIndex.class.getName()).log(Level.WARNING, null, ex);
+        }
+    }
+
+    private static void addLines(List<String> lines, DependencyArtifact artifact, int depth) {
+        lines.add(String.join(SEPARATOR, String.valueOf(depth), artifact.groupId(), artifact.artifactId(),
+                artifact.classifier(), artifact.baseVersion(), artifact.version(),
+                null == artifact.path() ? "" : artifact.path().toAbsolutePath().toString()));
+        artifact.dependencies().forEach(dependency -> addLines(lines, dependency, depth + 1));
+    }
+
+    private static Path entryPath(List<String> mavenCoordinates) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256")
+                    .digest(String.join(" ", mavenCoordinates).getBytes(StandardCharsets.UTF_8));
+            return INDEX_DIRECTORY.resolve(HexFormat.of().formatHex(digest) + ".tsv");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
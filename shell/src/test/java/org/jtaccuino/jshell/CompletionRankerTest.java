@@ -0,0 +1,68 @@
+/*
+ * Copyright 2026 JTaccuino Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jtaccuino.jshell;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompletionRankerTest {
+
+    private static List<String> rank(String pattern, int limit, String... continuations) {
+        var ranker = new CompletionRanker(pattern, limit);
+        for (var continuation : continuations) {
+            var identifier = CompletionRanker.identifier(continuation);
+            ranker.offer(continuation, identifier, CompletionRanker.mask(identifier), false, 0);
+        }
+        return ranker.ranked().stream().map(CompletionRanker.Ranked::continuation).toList();
+    }
+
+    @Test
+    public void prefixMatchesRankBeforeCamelHumpsAndSubsequences() {
+        assertEquals(List.of("hashCode()", "HashMap", "HashSet", "getHashes("),
+                rank("hash", 10, "getHashes(", "HashSet", "hashCode()", "List", "HashMap"));
+        assertEquals(List.of("HashMap", "ConcurrentHashMap"),
+                rank("HM", 10, "ConcurrentHashMap", "HashSet", "HashMap"));
+        assertEquals(List.of("HashMap"), rank("HaMa", 10, "HashMap", "HashSet"));
+        assertEquals(List.of("WeakHashMap"), rank("hm", 10, "NoSuchMethodError", "WeakHashMap"));
+        assertEquals(List.of("StringBuffer", "StringBuilder"), rank("strbu", 10, "StringBuilder", "String", "StringBuffer"));
+    }
+
+    @Test
+    public void typeMatchesAndRecentlyAcceptedCandidatesRankHigher() {
+        var ranker = new CompletionRanker("si", 10);
+        for (var continuation : List.of("size()", "sin(", "signum(")) {
+            ranker.offer(continuation, CompletionRanker.identifier(continuation), CompletionRanker.mask(continuation),
+                    "signum(".equals(continuation), "sin(".equals(continuation) ? 1 : 0);
+        }
+        assertEquals(List.of("signum(", "sin(", "size()"), ranker.ranked().stream().map(CompletionRanker.Ranked::continuation).toList());
+    }
+
+    @Test
+    public void onlyTheBestCandidatesAreKept() {
+        var candidates = new String[50_000];
+        for (int i = 0; i < candidates.length; i++) {
+            candidates[i] = "Type" + i + "Map";
+        }
+        candidates[31_337] = "TMap";
+        var ranked = rank("tmap", 5, candidates);
+        assertEquals(5, ranked.size());
+        assertEquals("TMap", ranked.getFirst());
+        assertTrue(rank("xyz", 5, candidates).isEmpty());
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2026 JTaccuino Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jtaccuino.jshell;
+
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class DocumentationCacheTest {
+
+    @Test
+    public void classFileOfTheDeclaringTopLevelType() {
+        assertEquals("java/lang/String.class", DocumentationCache.classFile("String String.substring(int beginIndex)"));
+        assertEquals("java/lang/String.class", DocumentationCache.classFile("java.lang.String"));
+        assertEquals("java/lang/String.class", DocumentationCache.classFile("String(byte[] bytes, String charsetName) throws java.io.UnsupportedEncodingException"));
+        assertEquals("java/util/ArrayList.class", DocumentationCache.classFile("java.util.ArrayList<E>(java.util.Collection<? extends E> c)"));
+        assertEquals("java/util/Map.class", DocumentationCache.classFile("java.util.Map.Entry<K,V> java.util.Map<K, V>.<K, V>entry(K k, V v)"));
+        assertEquals("java/lang/Math.class", DocumentationCache.classFile("Math.PI:double"));
+        assertEquals("java/lang/Thread.class", DocumentationCache.classFile("Thread.State.NEW"));
+        assertNull(DocumentationCache.classFile("int foo(int x)"));
+    }
+
+    @Test
+    public void elementsOfUnknownOriginAreForgottenWhenDeclarationsChange() {
+        var cache = new DocumentationCache();
+        cache.store("String String.substring(int beginIndex)", "Returns a substring.");
+        cache.store("int foo(int x)", "");
+        cache.store("void Point.move()", "");
+
+        cache.invalidateDeclarations();
+
+        assertEquals(Optional.of("Returns a substring."), cache.lookup("String String.substring(int beginIndex)"));
+        assertEquals(Optional.empty(), cache.lookup("int foo(int x)"));
+        assertEquals(Optional.empty(), cache.lookup("void Point.move()"));
+        cache.addToClasspath(List.of());
+        assertEquals(Optional.of("Returns a substring."), cache.lookup("String String.substring(int beginIndex)"));
+    }
+}
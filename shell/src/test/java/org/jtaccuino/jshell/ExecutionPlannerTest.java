@@ -0,0 +1,179 @@
+/*
+ * Copyright 2026 JTaccuino Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jtaccuino.jshell;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ExecutionPlannerTest {
+
+    private static final Pattern DECLARATION = Pattern.compile("(var|void)\\s+(\\w+)");
+
+    // poor man's analyzer: "var x" declares a variable, "void x" declares a method
+    private static ExecutionPlanner.CellNames analyze(String source) {
+        var variables = new HashSet<String>();
+        var methods = new HashSet<String>();
+        var matcher = DECLARATION.matcher(source);
+        while (matcher.find()) {
+            ("var".equals(matcher.group(1)) ? variables : methods).add(matcher.group(2));
+        }
+        return new ExecutionPlanner.CellNames(variables, methods, ExecutionPlanner.identifiers(source), source.startsWith("import"));
+    }
+
+    private static ExecutionPlanner.ExecutionPlan plan(List<ExecutionPlanner.CellSource> cells) {
+        return ExecutionPlanner.plan(cells, ExecutionPlannerTest::analyze, Map.of());
+    }
+
+    @Test
+    public void independentCellsShareAWave() {
+        var loadA = UUID.randomUUID();
+        var loadB = UUID.randomUUID();
+        var train = UUID.randomUUID();
+        var modelA = UUID.randomUUID();
+        var modelB = UUID.randomUUID();
+        var plan = plan(List.of(
+                new ExecutionPlanner.CellSource(loadA, "var a = load(\"a\");"),
+                new ExecutionPlanner.CellSource(loadB, "var b = load(\"b\");"),
+                new ExecutionPlanner.CellSource(train, "void train(Object o) {}"),
+                new ExecutionPlanner.CellSource(modelA, "var modelA = train(a);"),
+                new ExecutionPlanner.CellSource(modelB, "var modelB = train(b);")));
+
+        assertEquals(Set.of(), plan.dependenciesOf(loadB));
+        assertEquals(Set.of(loadA, train), plan.dependenciesOf(modelA));
+        assertEquals(Set.of(loadB, train), plan.dependenciesOf(modelB));
+        assertEquals(List.of(List.of(loadA, loadB, train), List.of(modelA, modelB)), plan.waves());
+    }
+
+    @Test
+    public void variableUsagesKeepNotebookOrder() {
+        var declareList = UUID.randomUUID();
+        var addToList = UUID.randomUUID();
+        var displayList = UUID.randomUUID();
+        var redeclareList = UUID.randomUUID();
+        var plan = plan(List.of(
+                new ExecutionPlanner.CellSource(declareList, "var list = new ArrayList<String>();"),
+                new ExecutionPlanner.CellSource(addToList, "list.add(\"b\");"),
+                new ExecutionPlanner.CellSource(displayList, "display(list);"),
+                new ExecutionPlanner.CellSource(redeclareList, "var list = List.of();")));
+
+        assertEquals(Set.of(declareList), plan.dependenciesOf(addToList));
+        assertEquals(Set.of(declareList, addToList), plan.dependenciesOf(displayList));
+        // redeclaration has to wait for all users of the previous declaration
+        assertEquals(Set.of(declareList, addToList, displayList), plan.dependenciesOf(redeclareList));
+    }
+
+    @Test
+    public void barriersAndEnvironmentChangesSerialize() {
+        var declareA = UUID.randomUUID();
+        var addDependency = UUID.randomUUID();
+        var declareB = UUID.randomUUID();
+        var importStreams = UUID.randomUUID();
+        var declareC = UUID.randomUUID();
+        var plan = plan(List.of(
+                new ExecutionPlanner.CellSource(declareA, "var a = 1;"),
+                new ExecutionPlanner.CellSource(addDependency, "addDependency(\"org.dflib:dflib:2.0.0\");"),
+                new ExecutionPlanner.CellSource(declareB, "var b = 2;"),
+                new ExecutionPlanner.CellSource(importStreams, "import java.util.stream.*;"),
+                new ExecutionPlanner.CellSource(declareC, "var c = 3;")));
+
+        assertEquals(Set.of(declareA), plan.dependenciesOf(addDependency));
+        assertEquals(Set.of(addDependency), plan.dependenciesOf(declareB));
+        assertEquals(Set.of(addDependency, declareB), plan.dependenciesOf(importStreams));
+        assertEquals(Set.of(importStreams), plan.dependenciesOf(declareC));
+    }
+
+    @Test
+    public void observedDependenciesOnlyPointUpwards() {
+        var declareA = UUID.randomUUID();
+        var declareB = UUID.randomUUID();
+        var plan = ExecutionPlanner.plan(List.of(
+                new ExecutionPlanner.CellSource(declareA, "var a = 1;"),
+                new ExecutionPlanner.CellSource(declareB, "var b = 2;")),
+                ExecutionPlannerTest::analyze,
+                Map.of(declareB, Set.of(declareA), declareA, Set.of(declareB)));
+
+        assertEquals(Set.of(), plan.dependenciesOf(declareA));
+        assertEquals(Set.of(declareA), plan.dependenciesOf(declareB));
+    }
+
+    @Test
+    public void invalidationFollowsObservedDependencyChains() {
+        var declareA = UUID.randomUUID();
+        var useA = UUID.randomUUID();
+        var useUseA = UUID.randomUUID();
+        var unrelated = UUID.randomUUID();
+        Map<UUID, Set<UUID>> observed = Map.of(useA, Set.of(declareA), useUseA, Set.of(useA), unrelated, Set.of(UUID.randomUUID()));
+
+        assertEquals(Set.of(declareA, useA, useUseA), ExecutionPlanner.invalidationClosure(Set.of(declareA), observed));
+        assertEquals(Set.of(useA, useUseA), ExecutionPlanner.invalidationClosure(Set.of(useA), observed));
+        assertEquals(Set.of(useUseA), ExecutionPlanner.invalidationClosure(Set.of(useUseA), observed));
+    }
+
+    @Test
+    public void staleObservedDependenciesArePruned() {
+        var declareA = UUID.randomUUID();
+        var useA = UUID.randomUUID();
+        var removed = UUID.randomUUID();
+        var removedUser = UUID.randomUUID();
+        Map<UUID, Set<UUID>> observed = new HashMap<>();
+        observed.put(useA, new HashSet<>(Set.of(declareA, removed)));
+        observed.put(declareA, new HashSet<>(Set.of(removed)));
+        observed.put(removedUser, new HashSet<>(Set.of(declareA)));
+
+        ExecutionPlanner.pruneObservedDependencies(observed, Set.of(declareA, useA));
+
+        assertEquals(Map.of(useA, Set.of(declareA)), observed);
+        assertEquals(Set.of(removed), ExecutionPlanner.invalidationClosure(Set.of(removed), observed));
+        assertEquals(Set.of(declareA, useA), ExecutionPlanner.invalidationClosure(Set.of(declareA), observed));
+    }
+
+    @Test
+    public void declarationsAreOrderedBeforeTheirUsers() {
+        var order = ExecutionPlanner.declarationOrder(
+                List.of("main", "Point", "distance", "distance", "origin"),
+                List.of(
+                        "void main() { distance(origin(), origin()); }",
+                        "record Point(int x, int y) {}",
+                        "double distance(Point a, Point b) { return distance(a.x() - b.x(), a.y() - b.y()); }",
+                        "double distance(int dx, int dy) { return Math.hypot(dx, dy); }",
+                        "Point origin() { return new Point(0, 0); }"));
+
+        assertEquals(List.of(1, 2, 3, 4, 0), order);
+    }
+
+    @Test
+    public void identifiersSkipLiteralsCommentsAndMembers() {
+        var identifiers = ExecutionPlanner.identifiers("""
+                // uses hidden
+                var x = text.length() + "hidden" + 'h'; /* hidden */
+                var y = \"""
+                    hidden
+                    \""";
+                """);
+
+        assertEquals(Set.of("var", "x", "text", "y"), identifiers);
+        assertTrue(ExecutionPlanner.identifiers(null).isEmpty());
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2026 JTaccuino Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jtaccuino.jshell;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jtaccuino.jshell.extensions.JShellExtension;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReactiveJShellProviderTest {
+
+    /**
+     * Counts the snippets executed by a remote kernel, registered as system
+     * extension for the tests.
+     */
+    public static class CountingExtension implements JShellExtension {
+
+        private final AtomicInteger executed = new AtomicInteger();
+
+        @Descriptor(mode = Mode.SYSTEM, type = CountingExtension.class)
+        public static class Factory implements JShellExtension.Factory {
+
+            @Override
+            public CountingExtension createExtension(ReactiveJShell jshell) {
+                return new CountingExtension();
+            }
+        }
+
+        @Override
+        public Optional<String> initCodeSnippet() {
+            return Optional.of("int _$jsci$counted = 0;");
+        }
+
+        @Override
+        public Optional<String> remoteCodeSnippet() {
+            return initCodeSnippet();
+        }
+
+        @Override
+        public void remoteSnippetExecuted() {
+            executed.incrementAndGet();
+        }
+    }
+
+    @Test
+    public void remoteExtensionsAreNotifiedInReplayedShells() {
+        var configuration = new KernelConfiguration(KernelConfiguration.Engine.REMOTE, List.of(), 0);
+        var recorded = ReactiveJShellProvider.createInitializedShell(configuration);
+        var replayed = ReactiveJShellProvider.createInitializedShell(configuration);
+        try {
+            assertEquals(recorded.getRemoteExtensionClasses(), replayed.getRemoteExtensionClasses());
+            assertEquals(recorded.getUnavailableExtensions(), replayed.getUnavailableExtensions());
+
+            var extension = replayed.getExtension(CountingExtension.class);
+            int executedBefore = extension.executed.get();
+            assertTrue(replayed.eval("_$jsci$counted++;").status().isSuccess());
+            assertEquals(executedBefore + 1, extension.executed.get());
+        } finally {
+            recorded.shutdown();
+            replayed.shutdown();
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2024-2025 JTaccuino Contributors
+ * Copyright 2024-2026 JTaccuino Contributors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 package org.jtaccuino.core.ui;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import javafx.beans.property.ReadOnlyObjectProperty;
 import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.css.PseudoClass;
@@ -114,7 +115,7 @@ public interface CellFactory {
             return caretRowColumnProperty.get();
         }
 
-        protected abstract void execute();
+        protected abstract CompletableFuture<Boolean> execute();
 
         private static class KeyHandler implements EventHandler<KeyEvent> {
 
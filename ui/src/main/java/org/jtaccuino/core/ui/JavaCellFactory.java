@@ -18,21 +18,25 @@ package org.jtaccuino.core.ui;
 import org.jtaccuino.core.ui.completion.CompletionItem;
 import org.jtaccuino.core.ui.completion.CompletionPopup;
 import org.jtaccuino.core.ui.api.CellData;
+import org.jtaccuino.core.ui.api.OutputBlob;
 import com.gluonhq.richtextarea.RichTextArea;
 import com.gluonhq.richtextarea.Selection;
 import com.gluonhq.richtextarea.model.DecorationModel;
 import com.gluonhq.richtextarea.model.Document;
 import com.gluonhq.richtextarea.model.ParagraphDecoration;
 import com.gluonhq.richtextarea.model.TextDecoration;
-import java.io.ByteArrayInputStream;
 import java.util.Arrays;
-import java.util.Base64;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
@@ -64,7 +68,6 @@ import jdk.jshell.EvalException;
 import jdk.jshell.ExpressionSnippet;
 import jdk.jshell.ImportSnippet;
 import jdk.jshell.Snippet;
-import jdk.jshell.SourceCodeAnalysis;
 import jdk.jshell.StatementSnippet;
 import jdk.jshell.VarSnippet;
 import org.jtaccuino.core.ui.controls.JavaControl;
@@ -72,6 +75,9 @@ import org.jtaccuino.core.ui.documentation.DocumentationItem;
 import org.jtaccuino.core.ui.documentation.DocumentationPopup;
 import org.jtaccuino.core.ui.extensions.DisplayExtension;
 import org.jtaccuino.core.ui.extensions.PrintExtension;
+import org.jtaccuino.core.ui.extensions.StreamOutputSink;
+import org.jtaccuino.jshell.OutputCapture;
+import org.jtaccuino.jshell.ReactiveJShell;
 
 public class JavaCellFactory implements CellFactory {
 
@@ -106,6 +112,16 @@ public class JavaCellFactory implements CellFactory {
 
         private List<String> snippetIds = Collections.emptyList();
 
+        /**
+         * Result of the last execution, kept by the cell so that a recreated
+         * skin shows it again.
+         */
+        enum ExecutionState {
+            NONE, RUNNING, SUCCEEDED, FAILED, CANCELLED
+        }
+
+        private volatile ExecutionState executionState = ExecutionState.NONE;
+
         @SuppressWarnings("this-escape")
         public JavaCell(CellData cellData, VBox parent, Sheet sheet, int cellNumber) {
             super(cellData, sheet, cellNumber);
@@ -136,22 +152,38 @@ public class JavaCellFactory implements CellFactory {
         }
 
         @Override
-        public void execute() {
-            ((JavaCellSkin) getSkin()).execute();
+        public CompletableFuture<Boolean> execute() {
+            return realizedSkin(JavaCellSkin.class).execute();
         }
 
         @Override
         public void markAsOutdated(boolean isOutdated) {
-            ((JavaCellSkin) getSkin()).markAsOutdated(isOutdated);
+            // a skin created later takes the state from the cell
+            if (getSkin() instanceof JavaCellSkin skin) {
+                skin.markAsOutdated(isOutdated);
+            }
             super.markAsOutdated(isOutdated);
         }
 
         @Override
         public void markAsSelected(boolean isSelected) {
-            ((JavaCellSkin) getSkin()).markAsSelected(isSelected);
+            if (getSkin() instanceof JavaCellSkin skin) {
+                skin.markAsSelected(isSelected);
+            }
             super.markAsSelected(isSelected);
         }
 
+        /**
+         * Disposes the skin unless it is executing or shows failures, which
+         * are not recorded in the cell data.
+         */
+        @Override
+        void releaseSkin() {
+            if (null != getSkin() && ExecutionState.RUNNING != executionState && ExecutionState.FAILED != executionState) {
+                setSkin(null);
+            }
+        }
+
         List<String> getSnippetIds() {
             return Collections.unmodifiableList(snippetIds);
         }
@@ -159,6 +191,8 @@ public class JavaCellFactory implements CellFactory {
 
     public static class JavaCellSkin extends AbstractCellSkin<JavaCell> {
 
+        private static final Executor OUTPUT_DECODER = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("OutputDecoder").factory());
+
         static TextDecoration presetDecoration = TextDecoration.builder().presets().fontFamily("Monaspace Argon")
                 .fontWeight(FontWeight.NORMAL).fontSize(13).build();
 
@@ -181,18 +215,25 @@ public class JavaCellFactory implements CellFactory {
         private final DocumentationPopup documentationPopup = new DocumentationPopup();
         private final VBox inputBox;
         private final RichTextArea input;
+        private final SyntaxHighlighter highlighter;
         private final VBox outputBox;
         private final Label streamResult;
+        private StreamOutputSink streamSink;
 //        private final BorderPane output;
         private final Label execResult;
         private final Region success;
         private final Region failure;
+        private final Region cancelled;
         private final ProgressIndicator running;
+        private final ChangeListener<Font> baseEditorFontListener;
 
         private JavaCellSkin(JavaCell javaCell) {
             super(javaCell);
             this.control = javaCell;
-            this.control.baseEditorFontProperty().addListener(new ChangeListener<Font>() {
+            var inputControl = new JavaControl(control.cellNumber);
+            input = inputControl.getInput();
+            highlighter = new SyntaxHighlighter(input, () -> control.getSheet().getReactiveJShell(), JavaCellSkin::decorationFor);
+            baseEditorFontListener = new ChangeListener<Font>() {
                 @Override
                 public void changed(ObservableValue<? extends Font> observable, Font oldValue, Font newValue) {
                     presetDecoration = TextDecoration.builder().presets().fontFamily(newValue.getFamily())
@@ -201,15 +242,14 @@ public class JavaCellFactory implements CellFactory {
                             .underline(Boolean.TRUE).fontWeight(FontWeight.NORMAL).fontSize(newValue.getSize()).build();
                     keywordDecoration = TextDecoration.builder().presets().fontFamily(newValue.getFamily())
                             .fontWeight(FontWeight.BOLD).fontSize(newValue.getSize()).build();
-                    handleSyntaxHighlighting(input.getDocument().getText());
+                    highlighter.refresh();
                 }
-            });
-            var inputControl = new JavaControl(control.cellNumber);
-            input = inputControl.getInput();
+            };
+            this.control.baseEditorFontProperty().addListener(baseEditorFontListener);
             caretRowColumnProperty.bind(input.caretRowColumnProperty());
             input.documentProperty().subscribe((t, u) -> {
                 if (!t.getText().equals(u.getText())) {
-                    handleSyntaxHighlighting(input.getDocument().getText());
+                    highlighter.requestHighlighting();
                 }
             });
 
@@ -251,6 +291,8 @@ public class JavaCellFactory implements CellFactory {
             success.getStyleClass().addAll("toolbar-button-graphics", "code-success");
             failure = new Region();
             failure.getStyleClass().addAll("toolbar-button-graphics", "code-failure");
+            cancelled = new Region();
+            cancelled.getStyleClass().addAll("toolbar-button-graphics", "code-cancelled");
 
             running = new ProgressIndicator();
             running.setProgress(ProgressIndicator.INDETERMINATE_PROGRESS);
@@ -261,12 +303,24 @@ public class JavaCellFactory implements CellFactory {
             AnchorPane.setTopAnchor(toolbar, 0d);
             AnchorPane.setRightAnchor(execResult, 5d);
             AnchorPane.setBottomAnchor(execResult, 2d);
+            var lastResult = switch (control.executionState) {
+                case SUCCEEDED ->
+                    success;
+                case CANCELLED ->
+                    cancelled;
+                default ->
+                    null;
+            };
+            execResult.setGraphic(lastResult);
+            execResult.setVisible(null != lastResult);
 
             streamResult.getStyleClass().add("jshell-stream-result");
             execResult.getStyleClass().add("jshell-exec-result");
             inputBox = new VBox(inputControl); //, outputBox);
 
             inputBox.getStyleClass().add("java-cell-meta");
+            inputBox.pseudoClassStateChanged(OUTDATED, javaCell.isOutdatedProperty().get());
+            inputBox.pseudoClassStateChanged(SELECTED, javaCell.isSelectedProperty().get());
             streamResult.textProperty().addListener((ov, t, t1) -> {
                 Platform.runLater(() -> {
                     if (t1.isEmpty()) {
@@ -292,16 +346,11 @@ public class JavaCellFactory implements CellFactory {
             var outputNodes = javaCell.getCellData().getOutputData().stream().map(outputData
                     -> switch (outputData) {
                 case CellData.MimeTypeBasedOutputData od ->
-                    od.mimeBundle().entrySet().stream().map(me
-                    -> switch (me.getKey()) {
-                        case "image/png" ->
-                            new ImageView(new Image(new ByteArrayInputStream(Base64.getDecoder().decode(me.getValue()))));
-                        case "text/plain" ->
-                            new Label(me.getValue());
-                        default ->
-                            new Label(me.getValue());
-                    }
-                    ).toList();
+                    od.mimeTypes().stream()
+                            .<Node>map(mimeType -> od.binaryBundle().containsKey(mimeType)
+                            ? decodeImageAsync(od.binaryBundle().get(mimeType))
+                            : new Label(od.mimeBundle().get(mimeType)))
+                            .toList();
                 case CellData.StreamBasedOutputData od ->
                     List.of(new Label(od.data()));
             }).toList();
@@ -327,11 +376,18 @@ public class JavaCellFactory implements CellFactory {
                         handleTabCompletion(input.getDocument().getText(), oldCaretPosition,
                                 input.getCaretOrigin().add(0, 13),
                                 (completionUpdate) -> {
-                                    if (null != completionUpdate) {
+                                    if (null != completionUpdate && completionUpdate.replacedSelection().isDefined()) {
+                                        input.getActionFactory().
+                                                selectAndInsertText(completionUpdate.replacedSelection(), completionUpdate.completionToInsert()).
+                                                execute(new ActionEvent());
+                                    } else if (null != completionUpdate) {
                                         input.getActionFactory().
                                                 insertText(completionUpdate.completionToInsert).
                                                 execute(new ActionEvent());
                                     }
+                                    if (null != completionUpdate) {
+                                        this.control.getSheet().getReactiveJShell().completionAccepted(completionUpdate.completion());
+                                    }
                                 });
                     }
                     t.consume();
@@ -363,6 +419,11 @@ public class JavaCellFactory implements CellFactory {
                     Platform.runLater(() -> filterCompletion(input.getDocument().getText(), input.getDocument().getCaretPosition()));
                 }
             });
+            completionPopup.highlightedSuggestionProperty().addListener((observable, oldValue, newValue) -> {
+                if (null != newValue && !CompletionItem.NIL.equals(newValue) && completionPopup.isShowing()) {
+                    prefetchDocumentation(newValue);
+                }
+            });
             input.caretOriginProperty().addListener((observable, oldValue, newValue) -> {
                 if (completionPopup.isShowing()) {
                     Platform.runLater(() -> completionPopup.updateLocation(input.getCaretOrigin().add(0, 13)));
@@ -377,22 +438,31 @@ public class JavaCellFactory implements CellFactory {
         }
 
         @Override
-        protected void execute() {
-            handleExecution();
+        protected CompletableFuture<Boolean> execute() {
+            return handleExecution();
         }
 
-        private void handleExecution() {
+        private CompletableFuture<Boolean> handleExecution() {
             var shell = this.control.getSheet().getReactiveJShell();
             var displayManager = shell.getExtension(DisplayExtension.class);
             var printManager = shell.getExtension(PrintExtension.class);
-            shell.evalAsync(() -> {
+            if (null != streamSink) {
+                streamSink.close();
+            }
+            var sink = new StreamOutputSink(streamResult, control.getCellData());
+            streamSink = sink;
+            // keeps the skin until the execution completed
+            control.executionState = JavaCell.ExecutionState.RUNNING;
+            return shell.evalAsync(() -> {
+                printManager.setActiveStream(sink);
+                OutputCapture.attach(sink);
                 Platform.runLater(() -> {
                     displayManager.setActiveOutput(outputBox);
                     displayManager.setCurrentCellData(control.getCellData());
-                    printManager.setActiveStreamResult(streamResult);
                     printManager.setCurrentCellData(control.getCellData());
                     control.getCellData().getOutputData().clear();
                     streamResult.setText("");
+                    streamResult.setGraphic(null);
                     outputBox.getChildren().clear();
                     execResult.setGraphic(running);
                     execResult.setVisible(true);
@@ -400,12 +470,26 @@ public class JavaCellFactory implements CellFactory {
             },
                     input.getDocument().getText(),
                     evalResult -> {
+                        OutputCapture.detach();
+                        Platform.runLater(sink::complete);
+                        if (ReactiveJShell.ResultStatus.CANCELLED == evalResult.status()) {
+                            if (!evalResult.snippetEventsCurrent().isEmpty()) {
+                                this.control.snippetIds = evalResult.snippetEventsCurrent().stream().map(sne -> sne.snippet().id()).toList();
+                            }
+                            Platform.runLater(() -> {
+                                this.control.markAsOutdated(true);
+                                control.executionState = JavaCell.ExecutionState.CANCELLED;
+                                execResult.setGraphic(cancelled);
+                                execResult.setVisible(true);
+                            });
+                            return;
+                        }
                         this.control.snippetIds = evalResult.snippetEventsCurrent().stream().map(sne -> sne.snippet().id()).toList();
                         var probablyOutdatedIds = evalResult.snippetEventsOutdated().stream().map(sne -> sne.snippet().id())
                                 .filter(id -> !this.control.snippetIds.contains(id)).toList();
                         Platform.runLater(() -> {
                             this.control.markAsOutdated(false);
-                            this.control.getSheet().markCellsAsOutdated(c -> {
+                            this.control.getSheet().markCellsAsOutdated(control, c -> {
                                 if (c instanceof JavaCell jc) {
                                     return probablyOutdatedIds.stream().anyMatch(id -> jc.getSnippetIds().contains(id));
                                 } else {
@@ -414,6 +498,7 @@ public class JavaCellFactory implements CellFactory {
                             });
                             if (evalResult.status().isSuccess()) {
                                 Platform.runLater(() -> {
+                                    control.executionState = JavaCell.ExecutionState.SUCCEEDED;
                                     execResult.setGraphic(success);
                                     execResult.setVisible(true);
                                     this.control.getSheet().moveFocusToNextCell(control);
@@ -494,13 +579,16 @@ public class JavaCellFactory implements CellFactory {
                                             }
                                         });
                                 Platform.runLater(() -> {
+                                    control.executionState = JavaCell.ExecutionState.FAILED;
                                     execResult.setGraphic(failure);
                                     execResult.setVisible(true);
                                 });
                             }
                         }
                         );
-                    });
+                    },
+                    control.getSheet().getCellTimeLimit())
+                    .thenApply(evalResult -> evalResult.status().isSuccess());
         }
 
         @SuppressWarnings("UnusedMethod") // TODO: Remove if really unused
@@ -521,17 +609,48 @@ public class JavaCellFactory implements CellFactory {
             };
         }
 
+        /**
+         * Narrows the shown suggestions while typing, answered from the
+         * suggestions cached by the shell without leaving the fx thread as
+         * long as the completion context does not change.
+         */
         private void filterCompletion(String text, int caretPos) {
-            this.control.getSheet().getReactiveJShell().completionAsync(text, caretPos, result -> {
-                var distinctCompletionSuggestions = result.suggestions().stream().map(s -> CompletionItem.from(s, result.anchor())).distinct().toList();
-                Platform.runLater(() -> completionPopup.setSuggestions(distinctCompletionSuggestions));
-            });
+            var reactiveJShell = this.control.getSheet().getReactiveJShell();
+            reactiveJShell.cachedCompletion(text, caretPos).ifPresentOrElse(
+                    result -> completionPopup.setSuggestions(completionItems(result)),
+                    () -> reactiveJShell.completionAsync(text, caretPos,
+                            result -> Platform.runLater(() -> completionPopup.setSuggestions(completionItems(result)))));
         }
 
-        private CompletionUpdate convert(int startOfcompletionText, int caretPosition, String fullCompletionText) {
-            int offset = caretPosition - startOfcompletionText; // length to strip from full completion text
-            String remainingCompletion = fullCompletionText.substring(offset);
-            return new CompletionUpdate(fullCompletionText, remainingCompletion);
+        private static List<CompletionItem> completionItems(ReactiveJShell.CompletionSuggestion result) {
+            return result.suggestions().stream().map(s -> CompletionItem.from(s, result.anchor())).distinct().toList();
+        }
+
+        private CompletionUpdate convert(String text, int startOfcompletionText, int caretPosition, String fullCompletionText) {
+            var typed = text.substring(startOfcompletionText, caretPosition);
+            if (!fullCompletionText.startsWith(typed) && fullCompletionText.length() < typed.length()) {
+                // e.g. the common prefix of ranked suggestions, would remove typed text
+                return null;
+            } else if (!fullCompletionText.startsWith(typed)) {
+                // a ranked suggestion or the qualified name of a type not in scope, replaces the typed text
+                return new CompletionUpdate(fullCompletionText, fullCompletionText, new Selection(startOfcompletionText, caretPosition));
+            }
+            String remainingCompletion = fullCompletionText.substring(typed.length());
+            return new CompletionUpdate(fullCompletionText, remainingCompletion, Selection.UNDEFINED);
+        }
+
+        /**
+         * Prefetches the documentation shown if the suggestion is accepted
+         * and the documentation requested right away.
+         */
+        private void prefetchDocumentation(CompletionItem item) {
+            var text = input.getDocument().getText();
+            int caretPosition = input.getCaretPosition();
+            if (item.anchor() > caretPosition || caretPosition > text.length()) {
+                return;
+            }
+            var accepted = text.substring(0, item.anchor()) + item.completion() + text.substring(caretPosition);
+            this.control.getSheet().getReactiveJShell().prefetchDocumentation(accepted, item.anchor() + item.completion().length());
         }
 
         private void handleTabDocumentation(String text, int caretPos, Point2D caretOrigin) {
@@ -549,7 +668,7 @@ public class JavaCellFactory implements CellFactory {
 
         private void handleTabCompletion(String text, int caretPos, Point2D caretOrigin, Consumer<CompletionUpdate> consumer) {
             this.control.getSheet().getReactiveJShell().completionAsync(text, caretPos, result -> {
-                var distinctCompletionSuggestions = result.suggestions().stream().map(s -> CompletionItem.from(s, result.anchor())).distinct().toList();
+                var distinctCompletionSuggestions = completionItems(result);
                 // no completions
                 if (distinctCompletionSuggestions.isEmpty()) {
                     Platform.runLater(() -> completionPopup.hide());
@@ -557,14 +676,13 @@ public class JavaCellFactory implements CellFactory {
                 }
                 // only one completion - just do it
                 if (distinctCompletionSuggestions.size() == 1) {
-                    Platform.runLater(() -> consumer.accept(convert(result.anchor(), caretPos, distinctCompletionSuggestions.getFirst().completion())));
+                    Platform.runLater(() -> consumer.accept(convert(text, result.anchor(), caretPos, distinctCompletionSuggestions.getFirst().completion())));
                 } else {
                     String completableCommonPrefix = CompletionItem.longestCommonPrefix(distinctCompletionSuggestions);
-                    if (!completableCommonPrefix.isEmpty()
-                            && !text.substring(result.anchor(), caretPos).equals(completableCommonPrefix)) {
-                        Platform.runLater(() -> consumer.accept(convert(result.anchor(), caretPos, completableCommonPrefix)));
+                    if (completableCommonPrefix.length() > caretPos - result.anchor()) {
+                        Platform.runLater(() -> consumer.accept(convert(text, result.anchor(), caretPos, completableCommonPrefix)));
                     } else {
-                        completionPopup.setOnCompletion(event -> Platform.runLater(() -> consumer.accept(convert(event.getAnchor(), input.getCaretPosition(), event.getSuggestion()))));
+                        completionPopup.setOnCompletion(event -> Platform.runLater(() -> consumer.accept(convert(input.getDocument().getText(), event.getAnchor(), input.getCaretPosition(), event.getSuggestion()))));
                         Platform.runLater(() -> {
                             completionPopup.setSuggestions(distinctCompletionSuggestions);
                             completionPopup.show(this.control.getScene().focusOwnerProperty().get(), caretOrigin);
@@ -574,29 +692,31 @@ public class JavaCellFactory implements CellFactory {
             });
         }
 
-        private void handleSyntaxHighlighting(String text) {
-            this.control.getSheet().getReactiveJShell().highlightingAsync(text, highlights -> {
-//                highlights.forEach(System.out::println);
-                Platform.runLater(()
-                        -> input.getActionFactory().selectAndDecorate(
-                                new Selection(0, input.getTextLength()),
-                                presetDecoration).execute(new ActionEvent()));
-                highlights.stream().forEach(h -> {
-                    var attrs = h.attributes();
-                    if (attrs.contains(SourceCodeAnalysis.Attribute.KEYWORD)) {
-                        Platform.runLater(()
-                                -> input.getActionFactory().selectAndDecorate(
-                                        new Selection(h.start(), h.end()),
-                                        keywordDecoration).execute(new ActionEvent()));
-                    } else if (attrs.contains(SourceCodeAnalysis.Attribute.DECLARATION)) {
-                        Platform.runLater(()
-                                -> input.getActionFactory().selectAndDecorate(
-                                        new Selection(h.start(), h.end()),
-                                        declarationDecoration).execute(new ActionEvent()));
-                    }
-//                    Platform.runLater(() -> System.out.println(input.getDocument().getDecorations()));
-                });
-            });
+        /**
+         * Creates an image view showing the base64 encoded png once it is
+         * decoded on a background thread.
+         */
+        private static Node decodeImageAsync(OutputBlob blob) {
+            var imageView = new ImageView();
+            var unused = CompletableFuture.supplyAsync(()
+                    -> new Image(blob.asInputStream()), OUTPUT_DECODER)
+                    .thenAcceptAsync(imageView::setImage, Platform::runLater)
+                    .exceptionally(t -> {
+                        Logger.getLogger(JavaCellFactory.class.getName()).log(Level.SEVERE, null, t);
+                        return null;
+                    });
+            return imageView;
+        }
+
+        private static TextDecoration decorationFor(SyntaxHighlighter.Kind kind) {
+            return switch (kind) {
+                case PRESET ->
+                    presetDecoration;
+                case KEYWORD ->
+                    keywordDecoration;
+                case DECLARATION ->
+                    declarationDecoration;
+            };
         }
 
         @Override
@@ -612,6 +732,7 @@ public class JavaCellFactory implements CellFactory {
 
         @Override
         public void dispose() {
+            control.baseEditorFontProperty().removeListener(baseEditorFontListener);
         }
 
         void markAsOutdated(boolean isOutdated) {
@@ -622,7 +743,7 @@ public class JavaCellFactory implements CellFactory {
             this.getNode().pseudoClassStateChanged(SELECTED, isSelected);
         }
 
-        static record CompletionUpdate(String completion, String completionToInsert) {
+        static record CompletionUpdate(String completion, String completionToInsert, Selection replacedSelection) {
         }
     }
 }
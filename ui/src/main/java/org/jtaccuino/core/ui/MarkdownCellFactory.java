@@ -23,6 +23,7 @@ import com.gluonhq.richtextarea.model.ParagraphDecoration;
 import com.gluonhq.richtextarea.model.TextDecoration;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import javafx.application.Platform;
 import javafx.beans.InvalidationListener;
 import javafx.beans.Observable;
@@ -316,13 +317,13 @@ public class MarkdownCellFactory implements CellFactory {
         }
 
         @Override
-        public void execute() {
-            ((MarkdownCellSkin) getSkin()).execute();
+        public CompletableFuture<Boolean> execute() {
+            return realizedSkin(MarkdownCellSkin.class).execute();
         }
 
         @Override
         public void markAsSelected(boolean isSelected) {
-            ((MarkdownCellSkin) getSkin()).markAsSelected(isSelected);
+            realizedSkin(MarkdownCellSkin.class).markAsSelected(isSelected);
             super.markAsSelected(isSelected);
         }
     }
@@ -342,6 +343,7 @@ public class MarkdownCellFactory implements CellFactory {
         private final MarkdownCell control;
         private final BorderPane pane;
         private final MarkdownControl inputControl;
+        private boolean isRerenderedOnFontChange;
 
         private MarkdownCellSkin(MarkdownCell markdownCell) {
             super(markdownCell);
@@ -451,22 +453,28 @@ public class MarkdownCellFactory implements CellFactory {
         }
 
         @Override
-        public void execute() {
+        public CompletableFuture<Boolean> execute() {
             if (inputControl.getInput().isVisible()) {
-                this.control.markdownBaseFontProperty().addListener(new InvalidationListener() {
-                    @Override
-                    public void invalidated(Observable observable) {
-                        var doc = MdUtils.render(control.getCellData().getSource(), getSkinnable());
-                        inputControl.updateRenderedView(doc);;
-                    }
-                });
+                if (!isRerenderedOnFontChange) {
+                    isRerenderedOnFontChange = true;
+                    this.control.markdownBaseFontProperty().addListener(new InvalidationListener() {
+                        @Override
+                        public void invalidated(Observable observable) {
+                            var unused = control.getSheet().executeAsync(
+                                    () -> MdUtils.render(control.getCellData().getSource(), getSkinnable()),
+                                    doc -> Platform.runLater(() -> inputControl.updateRenderedView(doc)));
+                        }
+                    });
+                }
 
-                this.control.getSheet().executeAsync(
+                return this.control.getSheet().executeAsync(
                         () -> MdUtils.render(this.control.getCellData().getSource(), this.getSkinnable()),
                         doc -> Platform.runLater(() -> {
                             inputControl.switchToRenderedView(doc);
-                        }));
+                        }))
+                        .thenApply(v -> Boolean.TRUE);
             }
+            return CompletableFuture.completedFuture(Boolean.TRUE);
         }
 
         public void requestFocus() {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2024-2025 JTaccuino Contributors
+ * Copyright 2024-2026 JTaccuino Contributors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,15 +15,23 @@
  */
 package org.jtaccuino.core.ui;
 
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import javafx.application.Platform;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.ReadOnlyBooleanProperty;
 import javafx.beans.property.ReadOnlyObjectProperty;
@@ -36,17 +44,42 @@ import javafx.scene.control.Control;
 import javafx.scene.control.Skin;
 import org.jtaccuino.core.ui.api.CellData;
 import org.jtaccuino.core.ui.api.Notebook;
+import org.jtaccuino.core.ui.api.StatusDisplayer;
+import org.jtaccuino.jshell.ExecutionPlanner;
 import org.jtaccuino.jshell.ReactiveJShell;
 import org.jtaccuino.jshell.ReactiveJShellProvider;
+import org.jtaccuino.jshell.extensions.dependency.DependencyExtension;
 
 public class Sheet extends Control {
 
+    public static enum ExecutionMode {
+        /**
+         * Execute all cells one after another in notebook order
+         */
+        SEQUENTIAL,
+        /**
+         * Execute cells in dependency order, i.e. after the cells declaring
+         * names used by them, and skip cells depending on failed cells. All
+         * cells share one shell, so cells are never executed concurrently
+         */
+        DEPENDENCY_ORDERED
+    }
+
+    private static final Duration DEFAULT_CELL_TIME_LIMIT = Duration.ofSeconds(Long.getLong("jtaccuino.execution.cellTimeLimit", 0));
+    private static final Duration DEFAULT_NOTEBOOK_TIME_LIMIT = Duration.ofSeconds(Long.getLong("jtaccuino.execution.notebookTimeLimit", 0));
+
     private final ExecutorService worker = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("SheetWorker").factory());
 
     private final SimpleObjectProperty<ReactiveJShell> reactiveJShellProperty = new SimpleObjectProperty<>();
     private final SimpleObjectProperty<Cell> activeCellProperty = new SimpleObjectProperty<>();
     private final SimpleObjectProperty<Integer> activeCellNumberProperty = new SimpleObjectProperty<>();
-    private final UUID uuid;
+    private final SimpleObjectProperty<ExecutionMode> executionModeProperty = new SimpleObjectProperty<>(ExecutionMode.SEQUENTIAL);
+    private final SimpleObjectProperty<Duration> cellTimeLimitProperty = new SimpleObjectProperty<>(DEFAULT_CELL_TIME_LIMIT);
+    private final SimpleObjectProperty<Duration> notebookTimeLimitProperty = new SimpleObjectProperty<>(DEFAULT_NOTEBOOK_TIME_LIMIT);
+    // incremented on cancellation, runs started before do not execute further cells
+    private final AtomicLong executionRun = new AtomicLong();
+    // dependent cell -> cells whose evaluation invalidated snippets of the dependent cell
+    private final Map<UUID, Set<UUID>> observedDependencies = new ConcurrentHashMap<>();
     private int counter = 0;
     private final Notebook notebook;
 
@@ -55,9 +88,11 @@ public class Sheet extends Control {
     }
 
     private Sheet(Notebook notebook) {
-        this.uuid = UUID.randomUUID();
         this.notebook = notebook;
-        reactiveJShellProperty.set(ReactiveJShellProvider.createReactiveShell(uuid, this.notebook.getStorage().getLocalFolder().orElse(null)));
+        long start = System.nanoTime();
+        acquireReactiveShell();
+        Logger.getLogger(Sheet.class.getName()).log(Level.FINE,
+                () -> "Shell " + getReactiveJShell().getUuid() + " for sheet ready in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
         activeCellProperty.subscribe(c -> {
             if (c != null) {
                 activeCellNumberProperty.set(c.cellNumber);
@@ -65,6 +100,19 @@ public class Sheet extends Control {
         });
     }
 
+    private void acquireReactiveShell() {
+        var shell = ReactiveJShellProvider.acquireReactiveShell(this.notebook.getStorage().getLocalFolder().orElse(null));
+        var dependencyManager = shell.getExtension(DependencyExtension.class);
+        if (null != dependencyManager) {
+            dependencyManager.setLock(this.notebook.getDependencyLock());
+        }
+        var unavailableExtensions = shell.getUnavailableExtensions();
+        if (!unavailableExtensions.isEmpty()) {
+            StatusDisplayer.display("Remote kernel: " + String.join(", ", unavailableExtensions) + " not available");
+        }
+        reactiveJShellProperty.set(shell);
+    }
+
     public Notebook getNotebook() {
         return this.notebook;
     }
@@ -78,13 +126,136 @@ public class Sheet extends Control {
     }
 
     public void execute() {
-        worker.execute(() -> ((SheetSkin) getSkin()).execute());
+        worker.execute(() -> {
+            var execution = switch (getExecutionMode()) {
+                case SEQUENTIAL ->
+                    ((SheetSkin) getSkin()).execute();
+                case DEPENDENCY_ORDERED ->
+                    executeDependencyOrdered();
+            };
+            limitExecutionTime(execution).exceptionally(t -> {
+                Logger.getLogger(Sheet.class.getName()).log(Level.SEVERE, null, t);
+                return null;
+            });
+        });
+    }
+
+    /**
+     * Cancels the current execution of the sheet, the running evaluation is
+     * stopped and all queued cells are dropped.
+     */
+    public void cancelExecution() {
+        executionRun.incrementAndGet();
+        getReactiveJShell().cancel();
+    }
+
+    long currentExecutionRun() {
+        return executionRun.get();
+    }
+
+    boolean isExecutionCancelled(long run) {
+        return run != executionRun.get();
+    }
+
+    private CompletableFuture<Void> limitExecutionTime(CompletableFuture<Void> execution) {
+        var timeLimit = getNotebookTimeLimit();
+        if (timeLimit.isPositive()) {
+            long run = currentExecutionRun();
+            var unused = CompletableFuture.runAsync(() -> {
+                if (!execution.isDone() && !isExecutionCancelled(run)) {
+                    Logger.getLogger(Sheet.class.getName()).log(Level.INFO, "Notebook time limit of {0} exceeded, cancelling execution", timeLimit);
+                    StatusDisplayer.display("Notebook time limit of " + timeLimit.toSeconds() + " s exceeded, execution cancelled.");
+                    cancelExecution();
+                }
+            }, CompletableFuture.delayedExecutor(timeLimit.toMillis(), TimeUnit.MILLISECONDS));
+        }
+        return execution;
+    }
+
+    private CompletableFuture<Void> executeDependencyOrdered() {
+        pruneObservedDependencies();
+        var codeCells = getCells().stream()
+                .filter(cellData -> CellData.Type.CODE == cellData.getType())
+                .map(cellData -> new ExecutionPlanner.CellSource(cellData.getId(), cellData.getSource()))
+                .toList();
+        return getReactiveJShell().planAsync(codeCells, observedDependencies)
+                .thenCompose(plan -> ((SheetSkin) getSkin()).execute(plan));
+    }
+
+    /**
+     * Re-executes all cells marked as outdated together with all cells
+     * transitively invalidated by them in notebook order. Cells becoming
+     * outdated by one of the re-executions are picked up as well.
+     */
+    public void executeOutdated() {
+        Platform.runLater(() -> limitExecutionTime(((SheetSkin) getSkin()).executeOutdated())
+                .exceptionally(t -> {
+                    Logger.getLogger(Sheet.class.getName()).log(Level.SEVERE, null, t);
+                    return null;
+                }));
+    }
+
+    Set<UUID> transitivelyInvalidated(Set<UUID> invalidated) {
+        pruneObservedDependencies();
+        return ExecutionPlanner.invalidationClosure(invalidated, observedDependencies);
+    }
+
+    /**
+     * Forgets the observed dependencies of and on cells removed from the
+     * notebook.
+     */
+    private void pruneObservedDependencies() {
+        ExecutionPlanner.pruneObservedDependencies(observedDependencies,
+                getCells().stream().map(CellData::getId).collect(Collectors.toSet()));
+    }
+
+    public ObjectProperty<ExecutionMode> executionModeProperty() {
+        return executionModeProperty;
+    }
+
+    public ExecutionMode getExecutionMode() {
+        return executionModeProperty.get();
+    }
+
+    public void setExecutionMode(ExecutionMode executionMode) {
+        executionModeProperty.set(executionMode);
+    }
+
+    /**
+     * Maximum duration of a single cell evaluation, zero for no limit.
+     */
+    public ObjectProperty<Duration> cellTimeLimitProperty() {
+        return cellTimeLimitProperty;
+    }
+
+    public Duration getCellTimeLimit() {
+        return cellTimeLimitProperty.get();
+    }
+
+    public void setCellTimeLimit(Duration cellTimeLimit) {
+        cellTimeLimitProperty.set(cellTimeLimit);
+    }
+
+    /**
+     * Maximum duration of executing the whole notebook, zero for no limit.
+     */
+    public ObjectProperty<Duration> notebookTimeLimitProperty() {
+        return notebookTimeLimitProperty;
+    }
+
+    public Duration getNotebookTimeLimit() {
+        return notebookTimeLimitProperty.get();
+    }
+
+    public void setNotebookTimeLimit(Duration notebookTimeLimit) {
+        notebookTimeLimitProperty.set(notebookTimeLimit);
     }
 
     public void resetAndExecute() {
         worker.execute(() -> {
             getReactiveJShell().shutdown();
-            reactiveJShellProperty.set(ReactiveJShellProvider.createReactiveShell(uuid, this.notebook.getStorage().getLocalFolder().orElse(null)));
+            observedDependencies.clear();
+            acquireReactiveShell();
             execute();
         });
     }
@@ -164,15 +335,15 @@ public class Sheet extends Control {
     }
 
     public UUID getUuid() {
-        return uuid;
+        return getReactiveJShell().getUuid();
     }
 
     public int getNextId() {
         return ++counter;
     }
 
-    public <T> void executeAsync(Supplier<T> callable, Consumer<T> consumer) {
-        CompletableFuture.supplyAsync(callable, worker)
+    public <T> CompletableFuture<Void> executeAsync(Supplier<T> callable, Consumer<T> consumer) {
+        return CompletableFuture.supplyAsync(callable, worker)
                 .thenAccept(consumer)
                 .exceptionally(t -> {
                     Logger.getLogger(Sheet.class.getName()).log(Level.SEVERE, null, t);
@@ -190,8 +361,12 @@ public class Sheet extends Control {
         getReactiveJShell().shutdown();
     }
 
-    public void markCellsAsOutdated(Predicate<Cell> isCellOutdated) {
-        ((SheetSkin) getSkin()).markCellsAsOutdated(isCellOutdated);
+    public void markCellsAsOutdated(Cell causingCell, Predicate<Cell> isCellOutdated) {
+        var causingCellId = causingCell.getCellData().getId();
+        ((SheetSkin) getSkin()).markCellsAsOutdated(isCellOutdated)
+                .forEach(outdatedCell -> observedDependencies
+                .computeIfAbsent(outdatedCell.getCellData().getId(), id -> ConcurrentHashMap.newKeySet())
+                .add(causingCellId));
     }
 
     public static abstract class Cell extends Control {
@@ -220,7 +395,44 @@ public class Sheet extends Control {
             return this.sheet;
         }
 
-        public abstract void execute();
+        /**
+         * Returns the skin of the cell, creating it if the cell was not shown
+         * yet. Skins are only created for cells shown in the sheet, cells
+         * outside of the viewport get their skin on demand, e.g. for
+         * execution. The skin is always created on the fx thread, callers on
+         * other threads wait for it.
+         */
+        protected <S extends Skin<?>> S realizedSkin(Class<S> skinType) {
+            if (null == getSkin()) {
+                if (Platform.isFxApplicationThread()) {
+                    setSkin(createDefaultSkin());
+                } else {
+                    var skinCreated = new CompletableFuture<Void>();
+                    Platform.runLater(() -> {
+                        if (null == getSkin()) {
+                            setSkin(createDefaultSkin());
+                        }
+                        skinCreated.complete(null);
+                    });
+                    skinCreated.join();
+                }
+            }
+            return skinType.cast(getSkin());
+        }
+
+        /**
+         * Disposes the skin of a cell far outside of the viewport, if the
+         * skin can be recreated from the cell later. Keeps it by default.
+         */
+        void releaseSkin() {
+        }
+
+        /**
+         * Executes the cell.
+         *
+         * @return a future completing with the success state of the execution
+         */
+        public abstract CompletableFuture<Boolean> execute();
 
         public ReadOnlyBooleanProperty isOutdatedProperty() {
             return isOutdatedProperty;
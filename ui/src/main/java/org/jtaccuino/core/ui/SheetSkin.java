@@ -1,5 +1,5 @@
 /*
- * Copyright 2024-2025 JTaccuino Contributors
+ * Copyright 2024-2026 JTaccuino Contributors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,26 +15,43 @@
  */
 package org.jtaccuino.core.ui;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import javafx.application.Platform;
-import javafx.beans.binding.Bindings;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.geometry.Bounds;
+import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.control.Skin;
 import javafx.scene.control.TextArea;
+import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 import javafx.scene.text.Text;
 import javafx.scene.text.TextBoundsType;
 import org.jtaccuino.core.ui.api.CellData;
+import org.jtaccuino.jshell.ExecutionPlanner;
 
 public class SheetSkin implements Skin<Sheet> {
 
+    private static final double ESTIMATED_CELL_HEIGHT = 40;
+    private static final double ESTIMATED_LINE_HEIGHT = 20;
+
     private final Sheet sheet;
     private final ScrollPane pane;
     private final VBox cellBox;
+    private boolean isRealizationScheduled;
 
     private ObservableList<Sheet.Cell> cells = FXCollections.observableArrayList();
 
@@ -51,7 +68,6 @@ public class SheetSkin implements Skin<Sheet> {
 //        pane.setFitToHeight(true);
         pane.setHbarPolicy(ScrollPane.ScrollBarPolicy.AS_NEEDED);
         pane.setVbarPolicy(ScrollPane.ScrollBarPolicy.AS_NEEDED);
-        Bindings.bindContent(cellBox.getChildren(), cells);
         cells.addAll(sheet.getCells().stream()
                 .map(cellData -> {
                     return switch (cellData.getType()) {
@@ -61,11 +77,148 @@ public class SheetSkin implements Skin<Sheet> {
                             markdownCellFactory.createCell(cellData, cellBox, sheet);
                     };
                 }).toList());
+        // cells are only shown (and get their skin) when they come near the viewport
+        cellBox.getChildren().setAll(cells.stream().map(SheetSkin::slotOf).toList());
+        cells.addListener(this::cellsChanged);
+        pane.vvalueProperty().subscribe(this::scheduleRealization);
+        pane.viewportBoundsProperty().subscribe(this::scheduleRealization);
+        cellBox.heightProperty().subscribe(this::scheduleRealization);
         Platform.runLater(this::moveFocusToFirstCell);
     }
 
-    void execute() {
-        cells.stream().forEach(cell -> cell.execute());
+    private void cellsChanged(ListChangeListener.Change<? extends Sheet.Cell> change) {
+        while (change.next()) {
+            if (change.wasPermutated()) {
+                cellBox.getChildren().setAll(cells.stream().map(SheetSkin::slotOf).toList());
+                continue;
+            }
+            if (change.wasRemoved()) {
+                cellBox.getChildren().remove(change.getFrom(), change.getFrom() + change.getRemovedSize());
+            }
+            if (change.wasAdded()) {
+                // added cells are the result of user interaction next to the current cell
+                var addedSlots = change.getAddedSubList().stream().map(SheetSkin::slotOf).toList();
+                addedSlots.forEach(CellSlot::realize);
+                cellBox.getChildren().addAll(change.getFrom(), addedSlots);
+            }
+        }
+        scheduleRealization();
+    }
+
+    private static CellSlot slotOf(Sheet.Cell cell) {
+        return (CellSlot) cell.getProperties().computeIfAbsent(CellSlot.class, key -> new CellSlot(cell));
+    }
+
+    private void scheduleRealization() {
+        if (!isRealizationScheduled) {
+            isRealizationScheduled = true;
+            Platform.runLater(() -> {
+                isRealizationScheduled = false;
+                updateRealizedCells();
+            });
+        }
+    }
+
+    /**
+     * Shows all cells within one viewport height of the visible area and
+     * replaces cells further away than two viewport heights by placeholders,
+     * releasing their skins.
+     */
+    private void updateRealizedCells() {
+        final double heightOfViewport = pane.getViewportBounds().getHeight();
+        if (heightOfViewport <= 0) {
+            return;
+        }
+        final double oversizedHeight = Math.max(0, cellBox.getHeight() - heightOfViewport);
+        final double currentVisibleMinValue = oversizedHeight * pane.getVvalue();
+        final double currentVisibleMaxValue = currentVisibleMinValue + heightOfViewport;
+        for (Node child : cellBox.getChildren()) {
+            var slot = (CellSlot) child;
+            var bounds = slot.getBoundsInParent();
+            if (bounds.getMaxY() >= currentVisibleMinValue - heightOfViewport
+                    && bounds.getMinY() <= currentVisibleMaxValue + heightOfViewport) {
+                slot.realize();
+            } else if (bounds.getMaxY() < currentVisibleMinValue - 2 * heightOfViewport
+                    || bounds.getMinY() > currentVisibleMaxValue + 2 * heightOfViewport) {
+                slot.release(sheet.getActiveCell());
+            }
+        }
+    }
+
+    private void requestFocus(Sheet.Cell cell) {
+        slotOf(cell).realize();
+        cell.requestFocus();
+    }
+
+    CompletableFuture<Void> execute() {
+        return CompletableFuture.allOf(cells.stream()
+                .map(Sheet.Cell::execute)
+                .toArray(CompletableFuture<?>[]::new));
+    }
+
+    /**
+     * Executes the cells of the plan once the cells they depend on succeeded
+     * and skips them otherwise. The evaluations are still queued on the one
+     * shell of the sheet one after another, the plan only decides their order
+     * and which cells are skipped.
+     */
+    CompletableFuture<Void> execute(ExecutionPlanner.ExecutionPlan plan) {
+        long run = sheet.currentExecutionRun();
+        Map<UUID, Sheet.Cell> cellsById = cells.stream()
+                .collect(Collectors.toMap(cell -> cell.getCellData().getId(), Function.identity()));
+        // cells not taking part in the plan (e.g. markdown) do not depend on anything
+        List<CompletableFuture<Boolean>> executions = new ArrayList<>(cells.stream()
+                .filter(cell -> !plan.dependencies().containsKey(cell.getCellData().getId()))
+                .map(Sheet.Cell::execute)
+                .toList());
+
+        Map<UUID, CompletableFuture<Boolean>> plannedExecutions = new HashMap<>();
+        for (UUID id : plan.order()) {
+            var cell = cellsById.get(id);
+            if (null == cell) {
+                continue;
+            }
+            List<CompletableFuture<Boolean>> dependencies = plan.dependenciesOf(id).stream()
+                    .map(plannedExecutions::get)
+                    .filter(Objects::nonNull)
+                    .toList();
+            plannedExecutions.put(id, CompletableFuture.allOf(dependencies.toArray(CompletableFuture<?>[]::new))
+                    .handle((v, t) -> null == t && dependencies.stream().allMatch(CompletableFuture::join))
+                    // continue on the fx thread, the cell (and its skin) is not accessed from the thread completing the dependencies
+                    .thenComposeAsync(dependenciesSucceeded -> {
+                        if (dependenciesSucceeded && !sheet.isExecutionCancelled(run)) {
+                            return cell.execute();
+                        }
+                        cell.markAsOutdated(true);
+                        return CompletableFuture.completedFuture(Boolean.FALSE);
+                    }, Platform::runLater));
+        }
+        executions.addAll(plannedExecutions.values());
+        return CompletableFuture.allOf(executions.toArray(CompletableFuture<?>[]::new));
+    }
+
+    CompletableFuture<Void> executeOutdated() {
+        var outdatedIds = cells.stream()
+                .filter(cell -> cell.isOutdatedProperty().get())
+                .map(cell -> cell.getCellData().getId())
+                .collect(Collectors.toSet());
+        return executeOutdatedFrom(0, sheet.transitivelyInvalidated(outdatedIds), sheet.currentExecutionRun());
+    }
+
+    private CompletableFuture<Void> executeOutdatedFrom(int index, Set<UUID> invalidatedIds, long run) {
+        if (sheet.isExecutionCancelled(run)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        for (int i = index; i < cells.size(); i++) {
+            var cell = cells.get(i);
+            if (cell.isOutdatedProperty().get() || invalidatedIds.contains(cell.getCellData().getId())) {
+                int nextIndex = i + 1;
+                // continue on the fx thread after the outdated markers of this execution are applied
+                return cell.execute()
+                        .thenComposeAsync(success -> executeOutdatedFrom(nextIndex, invalidatedIds, run), Platform::runLater);
+            }
+        }
+        return CompletableFuture.completedFuture(null);
     }
 
     public void moveFocusToNextCell(Sheet.Cell currentCell) {
@@ -86,15 +239,15 @@ public class SheetSkin implements Skin<Sheet> {
             });
         }
 
-        Platform.runLater(() -> cells.get(indexOfNextCell).requestFocus());
+        Platform.runLater(() -> requestFocus(cells.get(indexOfNextCell)));
     }
 
     public void moveFocusToFirstCell() {
-        Platform.runLater(() -> cells.getFirst().requestFocus());
+        Platform.runLater(() -> requestFocus(cells.getFirst()));
     }
 
     public void moveFocusToLastCell() {
-        Platform.runLater(() -> cells.getLast().requestFocus());
+        Platform.runLater(() -> requestFocus(cells.getLast()));
     }
 
     public Sheet.Cell insertCellAfter(Sheet.Cell currentCell) {
@@ -168,13 +321,20 @@ public class SheetSkin implements Skin<Sheet> {
     }
 
     void scrollTo(Node node) {
+        // a just realized cell has to be laid out to know its position
+        cellBox.applyCss();
+        cellBox.layout();
         final Bounds viewPortBounds = pane.getViewportBounds();
         final double heightOfContent = cellBox.getBoundsInLocal().getHeight();
         final double heightOfViewport = viewPortBounds.getHeight();
 
         final double oversizedHeight = heightOfContent - heightOfViewport;
 
-        final Bounds boundsInParent = node.getBoundsInParent();
+        // cells are wrapped in slots, so the bounds are computed relative to the cell box
+        final Bounds boundsInParent = cellBox.sceneToLocal(node.localToScene(node.getBoundsInLocal()));
+        if (null == boundsInParent || oversizedHeight <= 0) {
+            return;
+        }
         final double maxYValue = boundsInParent.getMaxY();
         final double maxYValueWithPadding = maxYValue + 5;
         final double vValue = pane.getVvalue();
@@ -182,8 +342,11 @@ public class SheetSkin implements Skin<Sheet> {
         final double currentVisibleMinValue = oversizedHeight * vValue;
         final double currentVisibleMaxValue = currentVisibleMinValue + heightOfViewport;
 
-        // node fits in viewport
-        if (boundsInParent.getHeight() < heightOfViewport) {
+        // component completely above the visible area, e.g. after jumping to the first cell
+        if (maxYValue < currentVisibleMinValue) {
+            pane.setVvalue(Math.max(0, boundsInParent.getMinY() - 5) / oversizedHeight);
+        } else if (boundsInParent.getHeight() < heightOfViewport) {
+            // node fits in viewport
             // bottom of component currently not visible
             if (maxYValueWithPadding > currentVisibleMaxValue) {
                 // calculate newVValue
@@ -211,8 +374,49 @@ public class SheetSkin implements Skin<Sheet> {
     public void dispose() {
     }
 
-    void markCellsAsOutdated(Predicate<Sheet.Cell> isCellOutdated) {
-        cells.stream().filter(isCellOutdated).forEach(c -> c.markAsOutdated(true));
+    List<Sheet.Cell> markCellsAsOutdated(Predicate<Sheet.Cell> isCellOutdated) {
+        var outdatedCells = cells.stream().filter(isCellOutdated).toList();
+        outdatedCells.forEach(c -> c.markAsOutdated(true));
+        return outdatedCells;
+    }
+
+    /**
+     * Place of a cell in the cell box, holding either the cell or a
+     * placeholder of the last known (or estimated) height of the cell.
+     */
+    private static final class CellSlot extends StackPane {
+
+        private final Sheet.Cell cell;
+
+        CellSlot(Sheet.Cell cell) {
+            this.cell = cell;
+            getStyleClass().add("cell-slot");
+            setAlignment(Pos.TOP_LEFT);
+            var source = cell.getCellData().getSource();
+            var lines = null == source ? 1 : source.lines().count();
+            setPlaceholderHeight(ESTIMATED_CELL_HEIGHT + lines * ESTIMATED_LINE_HEIGHT);
+        }
+
+        void realize() {
+            if (getChildren().isEmpty()) {
+                setPlaceholderHeight(USE_COMPUTED_SIZE);
+                getChildren().add(cell);
+            }
+        }
+
+        void release(Sheet.Cell activeCell) {
+            if (!getChildren().isEmpty() && !cell.equals(activeCell) && !cell.isFocusWithin()) {
+                double height = getHeight();
+                getChildren().clear();
+                setPlaceholderHeight(height);
+                cell.releaseSkin();
+            }
+        }
+
+        private void setPlaceholderHeight(double height) {
+            setMinHeight(height);
+            setPrefHeight(height);
+        }
     }
 
     public static class ResizingTextArea extends TextArea {
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2026 JTaccuino Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jtaccuino.core.ui;
+
+import com.gluonhq.richtextarea.RichTextArea;
+import com.gluonhq.richtextarea.Selection;
+import com.gluonhq.richtextarea.model.TextDecoration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.event.ActionEvent;
+import javafx.util.Duration;
+import jdk.jshell.SourceCodeAnalysis;
+import org.jtaccuino.jshell.ReactiveJShell;
+
+/**
+ * Highlights the java source of a rich text area. Bursts of edits are
+ * coalesced into one highlighting request, results of outdated requests are
+ * dropped and only paragraphs whose text or highlights changed since the last
+ * highlighting are decorated again.
+ */
+final class SyntaxHighlighter {
+
+    private static final Duration DEBOUNCE_DELAY = Duration.millis(150);
+
+    enum Kind {
+        PRESET, KEYWORD, DECLARATION
+    }
+
+    record Span(int start, int end, Kind kind) {
+    }
+
+    record ParagraphHighlights(String text, List<Span> spans) {
+    }
+
+    private final RichTextArea input;
+    private final Supplier<ReactiveJShell> shell;
+    private final Function<Kind, TextDecoration> decorations;
+    private final PauseTransition debounce = new PauseTransition(DEBOUNCE_DELAY);
+    // incremented with every request, read by the analysis worker to skip outdated requests
+    private final AtomicLong generation = new AtomicLong();
+    private List<ParagraphHighlights> applied = List.of();
+
+    SyntaxHighlighter(RichTextArea input, Supplier<ReactiveJShell> shell, Function<Kind, TextDecoration> decorations) {
+        this.input = input;
+        this.shell = shell;
+        this.decorations = decorations;
+        debounce.setOnFinished(e -> highlight());
+    }
+
+    /**
+     * Requests highlighting of the current text, has to be called on the fx
+     * thread.
+     */
+    void requestHighlighting() {
+        generation.incrementAndGet();
+        debounce.playFromStart();
+    }
+
+    /**
+     * Requests highlighting of all paragraphs, e.g. after the decorations
+     * changed.
+     */
+    void refresh() {
+        applied = List.of();
+        requestHighlighting();
+    }
+
+    private void highlight() {
+        long requestGeneration = generation.get();
+        String text = input.getDocument().getText();
+        shell.get().highlightingAsync(text, () -> requestGeneration != generation.get(), highlights -> {
+            var paragraphs = toParagraphs(text, highlights);
+            Platform.runLater(() -> {
+                if (requestGeneration == generation.get()) {
+                    apply(paragraphs);
+                }
+            });
+        });
+    }
+
+    static List<ParagraphHighlights> toParagraphs(String text, List<SourceCodeAnalysis.Highlight> highlights) {
+        var sortedHighlights = highlights.stream()
+                .sorted(Comparator.comparingInt(SourceCodeAnalysis.Highlight::start))
+                .toList();
+        List<ParagraphHighlights> paragraphs = new ArrayList<>();
+        int paragraphStart = 0;
+        int firstCandidate = 0;
+        while (paragraphStart <= text.length()) {
+            int paragraphEnd = text.indexOf('\n', paragraphStart);
+            paragraphEnd = paragraphEnd < 0 ? text.length() : paragraphEnd;
+            List<Span> spans = new ArrayList<>();
+            while (firstCandidate < sortedHighlights.size() && sortedHighlights.get(firstCandidate).end() <= paragraphStart) {
+                firstCandidate++;
+            }
+            for (int i = firstCandidate; i < sortedHighlights.size() && sortedHighlights.get(i).start() < paragraphEnd; i++) {
+                var highlight = sortedHighlights.get(i);
+                var kind = highlight.attributes().contains(SourceCodeAnalysis.Attribute.KEYWORD) ? Kind.KEYWORD
+                        : highlight.attributes().contains(SourceCodeAnalysis.Attribute.DECLARATION) ? Kind.DECLARATION
+                        : null;
+                if (null != kind && highlight.end() > paragraphStart) {
+                    spans.add(new Span(Math.max(highlight.start(), paragraphStart) - paragraphStart,
+                            Math.min(highlight.end(), paragraphEnd) - paragraphStart, kind));
+                }
+            }
+            paragraphs.add(new ParagraphHighlights(text.substring(paragraphStart, paragraphEnd), List.copyOf(spans)));
+            paragraphStart = paragraphEnd + 1;
+        }
+        return paragraphs;
+    }
+
+    /**
+     * Decorates all paragraphs between the unchanged leading and trailing
+     * paragraphs.
+     */
+    private void apply(List<ParagraphHighlights> paragraphs) {
+        int common = Math.min(applied.size(), paragraphs.size());
+        int prefix = 0;
+        while (prefix < common && applied.get(prefix).equals(paragraphs.get(prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < common - prefix
+                && applied.get(applied.size() - 1 - suffix).equals(paragraphs.get(paragraphs.size() - 1 - suffix))) {
+            suffix++;
+        }
+        int offset = 0;
+        for (int i = 0; i < prefix; i++) {
+            offset += paragraphs.get(i).text().length() + 1;
+        }
+        int changedStart = offset;
+        List<Span> spans = new ArrayList<>();
+        for (int i = prefix; i < paragraphs.size() - suffix; i++) {
+            var paragraph = paragraphs.get(i);
+            for (Span span : paragraph.spans()) {
+                spans.add(new Span(offset + span.start(), offset + span.end(), span.kind()));
+            }
+            offset += paragraph.text().length() + 1;
+        }
+        int changedEnd = Math.min(offset, input.getTextLength());
+        if (changedEnd > changedStart) {
+            decorate(changedStart, changedEnd, Kind.PRESET);
+        }
+        spans.forEach(span -> decorate(span.start(), span.end(), span.kind()));
+        applied = paragraphs;
+    }
+
+    private void decorate(int start, int end, Kind kind) {
+        input.getActionFactory().selectAndDecorate(new Selection(start, end), decorations.apply(kind))
+                .execute(new ActionEvent());
+    }
+}
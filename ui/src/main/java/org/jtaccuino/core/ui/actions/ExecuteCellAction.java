@@ -1,5 +1,5 @@
 /*
- * Copyright 2025 JTaccuino Contributors
+ * Copyright 2025-2026 JTaccuino Contributors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -28,6 +28,6 @@ public class ExecuteCellAction extends CellAction {
 
     @Override
     protected void handle(Sheet.Cell cell) {
-        cell.execute();;
+        var unused = cell.execute();
     }
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2024-2025 JTaccuino Contributors
+ * Copyright 2024-2026 JTaccuino Contributors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 package org.jtaccuino.core.ui.api;
 
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -103,12 +104,42 @@ public class CellData {
 
     public static sealed interface OutputData permits MimeTypeBasedOutputData, StreamBasedOutputData {
 
+        /**
+         * Creates an output from a mime bundle as found in ipynb files, base64
+         * encoded binary entries are moved to the {@link OutputBlobStore}.
+         */
         public static OutputData of(OutputType outputType, Map<String, String> mimeBundle) {
-            return new MimeTypeBasedOutputData(outputType, mimeBundle);
+            Map<String, String> textBundle = new LinkedHashMap<>();
+            Map<String, OutputBlob> binaryBundle = new LinkedHashMap<>();
+            mimeBundle.forEach((mimeType, data) -> {
+                if (MimeTypeBasedOutputData.isBinary(mimeType)) {
+                    try {
+                        binaryBundle.put(mimeType, OutputBlobStore.getDefault().storeBase64(data));
+                        return;
+                    } catch (IllegalArgumentException ex) {
+                        // not valid base64, kept as is
+                    }
+                }
+                textBundle.put(mimeType, data);
+            });
+            return new MimeTypeBasedOutputData(outputType, Collections.unmodifiableMap(textBundle), Collections.unmodifiableMap(binaryBundle),
+                    List.copyOf(mimeBundle.keySet()));
+        }
+
+        public static OutputData of(OutputType outputType, String mimeType, byte[] content) {
+            return new MimeTypeBasedOutputData(outputType, Map.of(), Map.of(mimeType, OutputBlobStore.getDefault().store(content)), List.of(mimeType));
         }
 
         public static OutputData of(OutputType outputType, String data) {
-            return new StreamBasedOutputData(outputType, data);
+            return ofStream(outputType, StreamBasedOutputData.STDOUT, data);
+        }
+
+        /**
+         * Creates the output of a stream, e.g. {@code stdout} or
+         * {@code stderr}.
+         */
+        public static OutputData ofStream(OutputType outputType, String name, String data) {
+            return new StreamBasedOutputData(outputType, null == name ? StreamBasedOutputData.STDOUT : name, data);
         }
 
         public static enum OutputType {
@@ -140,7 +171,42 @@ public class CellData {
         public OutputType type();
     }
 
-    public static record MimeTypeBasedOutputData(OutputType type, Map<String, String> mimeBundle) implements OutputData {
+    /**
+     * Output consisting of one entry per mime type.
+     *
+     * @param type the output type
+     * @param mimeBundle the textual entries of the mime bundle
+     * @param binaryBundle the binary entries of the mime bundle (e.g. images)
+     * @param mimeTypes the mime types of all entries in their original order
+     */
+    public static record MimeTypeBasedOutputData(OutputType type, Map<String, String> mimeBundle, Map<String, OutputBlob> binaryBundle,
+            List<String> mimeTypes) implements OutputData {
+
+        public static boolean isBinary(String mimeType) {
+            return mimeType.startsWith("image/") && !"image/svg+xml".equals(mimeType);
+        }
+
+        /**
+         * The complete mime bundle with binary entries encoded as base64, e.g.
+         * to write ipynb files.
+         */
+        public Map<String, String> inlinedMimeBundle() {
+            if (binaryBundle.isEmpty()) {
+                return mimeBundle;
+            }
+            Map<String, String> inlined = new LinkedHashMap<>();
+            mimeTypes.forEach(mimeType -> inlined.put(mimeType, inlinedEntry(mimeType)));
+            return inlined;
+        }
+
+        /**
+         * Returns the entry of the mime type, binary entries encoded as
+         * base64.
+         */
+        public String inlinedEntry(String mimeType) {
+            var blob = binaryBundle.get(mimeType);
+            return null == blob ? mimeBundle.get(mimeType) : blob.toBase64();
+        }
 
         public static enum MimeType {
             TEXT_PLAIN("text/plain"),
@@ -169,5 +235,17 @@ public class CellData {
         }
     }
 
-    public static record StreamBasedOutputData(OutputData.OutputType type, String data) implements OutputData { }
+    /**
+     * Output written to a stream.
+     *
+     * @param type the output type
+     * @param name the name of the stream, e.g. {@code stdout} or
+     * {@code stderr}
+     * @param data the text written
+     */
+    public static record StreamBasedOutputData(OutputData.OutputType type, String name, String data) implements OutputData {
+
+        public static final String STDOUT = "stdout";
+        public static final String STDERR = "stderr";
+    }
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2024-2025 JTaccuino Contributors
+ * Copyright 2024-2026 JTaccuino Contributors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,8 +19,10 @@ import java.io.File;
 import java.net.URI;
 import java.nio.file.Path;
 import java.util.Optional;
+import javafx.beans.property.ReadOnlyBooleanProperty;
 import javafx.beans.property.ReadOnlyStringProperty;
 import javafx.collections.ObservableList;
+import org.jtaccuino.jshell.extensions.dependency.DependencyLock;
 
 public interface Notebook {
 
@@ -63,11 +65,30 @@ public interface Notebook {
 
     public String getLocation();
 
-    public void save();
+    /**
+     * Whether the notebook has changes that were not saved to its file, e.g.
+     * changes recovered after a crash.
+     */
+    public ReadOnlyBooleanProperty dirtyProperty();
+
+    public boolean isDirty();
+
+    /**
+     * Saves the notebook to its file, returns whether it was written.
+     */
+    public boolean save();
 
     public void saveAs(File selectedFile);
 
     public void export(ExportMode mode, File file);
 
     public Storage getStorage();
+
+    public DependencyLock getDependencyLock();
+
+    /**
+     * Closes the notebook, unsaved changes are kept to be recovered when the
+     * notebook is opened again unless they are discarded.
+     */
+    public void close(boolean discardUnsavedChanges);
 }
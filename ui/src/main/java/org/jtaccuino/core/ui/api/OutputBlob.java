@@ -0,0 +1,92 @@
+/*
+ * Copyright 2026 JTaccuino Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jtaccuino.core.ui.api;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Immutable binary output payload (e.g. a png image) kept outside of the java
+ * heap by the {@link OutputBlobStore}. Blobs are identified by the hash of
+ * their content.
+ */
+public final class OutputBlob {
+
+    private final String hash;
+    private final ByteBuffer content;
+
+    OutputBlob(String hash, ByteBuffer content) {
+        this.hash = hash;
+        this.content = content.asReadOnlyBuffer();
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public int getSize() {
+        return content.capacity();
+    }
+
+    public InputStream asInputStream() {
+        var buffer = content.duplicate();
+        return new InputStream() {
+            @Override
+            public int read() {
+                return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (!buffer.hasRemaining()) {
+                    return -1;
+                }
+                int count = Math.min(len, buffer.remaining());
+                buffer.get(b, off, count);
+                return count;
+            }
+
+            @Override
+            public int available() {
+                return buffer.remaining();
+            }
+        };
+    }
+
+    /**
+     * Encodes the content as base64, e.g. to inline it into an ipynb file.
+     */
+    public String toBase64() {
+        return StandardCharsets.ISO_8859_1.decode(Base64.getEncoder().encode(content.duplicate())).toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof OutputBlob other && hash.equals(other.hash);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "OutputBlob[" + hash + ", " + getSize() + " bytes]";
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2026 JTaccuino Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jtaccuino.core.ui.api;
+
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stores binary outputs deduplicated by content hash. Payloads larger than a
+ * few kilobytes are written once to a cache directory and memory mapped, so
+ * they neither occupy the java heap nor get inflated by base64 encoding. The
+ * cache directory is created below {@code jtaccuino.outputs.cacheDirectory}
+ * (default the temporary directory). Files of collected blobs are deleted
+ * once they are no longer mapped, remaining files are deleted on exit. As
+ * mapped files can not be deleted on all platforms (e.g. Windows), cache
+ * directories left over by earlier runs are removed on startup, unless
+ * another running Studio still holds their lock.
+ */
+public final class OutputBlobStore {
+
+    private static final int MAPPING_THRESHOLD = 16 * 1024;
+    private static final String DIRECTORY_PREFIX = "jtaccuino-outputs";
+    private static final String LOCK_FILE = ".lock";
+    private static final Duration STALE_AGE = Duration.ofMinutes(1);
+
+    private static final OutputBlobStore DEFAULT = new OutputBlobStore();
+
+    public static OutputBlobStore getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Reference of a stored blob, remembering what to clean up once the blob
+     * was collected.
+     */
+    private static final class BlobReference extends WeakReference<OutputBlob> {
+
+        private final String hash;
+        // null if the blob is not memory mapped
+        private final Path file;
+
+        BlobReference(OutputBlob blob, Path file, ReferenceQueue<OutputBlob> queue) {
+            super(blob, queue);
+            this.hash = blob.getHash();
+            this.file = file;
+        }
+    }
+
+    // guarded by this
+    private final Map<String, BlobReference> blobs = new HashMap<>();
+    private final ReferenceQueue<OutputBlob> collected = new ReferenceQueue<>();
+    // files of collected blobs, that could not be deleted yet as they are still mapped
+    private final Set<Path> undeletedFiles = new HashSet<>();
+    private Path cacheDirectory;
+    private FileChannel lockChannel;
+
+    private OutputBlobStore() {
+    }
+
+    public OutputBlob store(byte[] content) {
+        var hash = hash(content);
+        synchronized (this) {
+            pruneCollected();
+            var existing = blobs.get(hash);
+            var blob = null != existing ? existing.get() : null;
+            if (null == blob) {
+                Path file = null;
+                ByteBuffer buffer = null;
+                if (content.length >= MAPPING_THRESHOLD) {
+                    file = writeFile(hash, content);
+                    buffer = null == file ? null : map(file);
+                }
+                if (null == buffer) {
+                    file = null;
+                    buffer = ByteBuffer.wrap(content.clone());
+                }
+                blob = new OutputBlob(hash, buffer);
+                blobs.put(hash, new BlobReference(blob, file, collected));
+            }
+            return blob;
+        }
+    }
+
+    /**
+     * Stores base64 encoded content, line breaks (as found in ipynb files) are
+     * ignored.
+     *
+     * @throws IllegalArgumentException if the content is not valid base64
+     */
+    public OutputBlob storeBase64(String base64) {
+        return store(Base64.getMimeDecoder().decode(base64));
+    }
+
+    /**
+     * Forgets the collected blobs and deletes their files, files still mapped
+     * are retried later.
+     */
+    private void pruneCollected() {
+        BlobReference reference;
+        while (null != (reference = (BlobReference) collected.poll())) {
+            if (blobs.remove(reference.hash, reference) && null != reference.file) {
+                undeletedFiles.add(reference.file);
+            }
+        }
+        undeletedFiles.removeIf(file -> {
+            if (blobs.containsKey(file.getFileName().toString())) {
+                // stored again in the meantime, still in use
+                return true;
+            }
+            try {
+                Files.deleteIfExists(file);
+                return true;
+            } catch (IOException ex) {
+                return false;
+            }
+        });
+    }
+
+    private Path writeFile(String hash, byte[] content) {
+        try {
+            var file = getCacheDirectory().resolve(hash);
+            if (!Files.exists(file)) {
+                var tempFile = Files.createTempFile(getCacheDirectory(), hash, ".tmp");
+                Files.write(tempFile, content);
+                try {
+                    Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException ex) {
+                    Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            undeletedFiles.remove(file);
+            return file;
+        } catch (IOException ex) {
+            Logger.getLogger(OutputBlobStore.class.getName()).log(Level.SEVERE, null, ex);
+            return null;
+        }
+    }
+
+    private static ByteBuffer map(Path file) {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException ex) {
+            Logger.getLogger(OutputBlobStore.class.getName()).log(Level.SEVERE, null, ex);
+            return null;
+        }
+    }
+
+    synchronized Path getCacheDirectory() throws IOException {
+        if (null == cacheDirectory) {
+            var parent = Path.of(System.getProperty("jtaccuino.outputs.cacheDirectory", System.getProperty("java.io.tmpdir")));
+            Files.createDirectories(parent);
+            deleteStaleDirectories(parent);
+            cacheDirectory = Files.createTempDirectory(parent, DIRECTORY_PREFIX);
+            // held until exit, tells running Studios apart from stale directories
+            lockChannel = FileChannel.open(cacheDirectory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            lockChannel.lock();
+            Runtime.getRuntime().addShutdownHook(Thread.ofPlatform().name("OutputBlobStore cleanup").unstarted(this::deleteCacheDirectory));
+        }
+        return cacheDirectory;
+    }
+
+    /**
+     * Deletes the cache directories of Studios no longer running. Recently
+     * modified directories are kept, as a Studio just starting might not hold
+     * the lock of its directory yet.
+     */
+    private static void deleteStaleDirectories(Path parent) {
+        var staleBefore = FileTime.from(Instant.now().minus(STALE_AGE));
+        try (var directories = Files.newDirectoryStream(parent, DIRECTORY_PREFIX + "*")) {
+            for (var directory : directories) {
+                if (!Files.isDirectory(directory) || Files.getLastModifiedTime(directory).compareTo(staleBefore) > 0) {
+                    continue;
+                }
+                try (var channel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                    FileLock lock = channel.tryLock();
+                    if (null == lock) {
+                        continue;
+                    }
+                    try {
+                        deleteFiles(directory);
+                    } finally {
+                        lock.release();
+                    }
+                }
+                Files.deleteIfExists(directory.resolve(LOCK_FILE));
+                Files.deleteIfExists(directory);
+            }
+        } catch (IOException ex) {
+            Logger.getLogger(OutputBlobStore.class.getName()).log(Level.WARNING, "Could not delete stale output cache", ex);
+        }
+    }
+
+    /**
+     * Deletes the files of the directory except the lock file, files that
+     * can not be deleted (e.g. still mapped) are left behind.
+     */
+    private static void deleteFiles(Path directory) throws IOException {
+        try (var files = Files.newDirectoryStream(directory, file -> !LOCK_FILE.equals(file.getFileName().toString()))) {
+            for (var file : files) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException ex) {
+                    // deleted by the next Studio started
+                }
+            }
+        }
+    }
+
+    private synchronized void deleteCacheDirectory() {
+        try {
+            deleteFiles(cacheDirectory);
+            lockChannel.close();
+            Files.deleteIfExists(cacheDirectory.resolve(LOCK_FILE));
+            Files.deleteIfExists(cacheDirectory);
+        } catch (IOException ex) {
+            // deleted by the next Studio started
+        }
+    }
+
+    private static String hash(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
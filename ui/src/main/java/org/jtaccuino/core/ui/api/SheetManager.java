@@ -1,5 +1,5 @@
 /*
- * Copyright 2024-2025 JTaccuino Contributors
+ * Copyright 2024-2026 JTaccuino Contributors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -58,8 +58,9 @@ public class SheetManager {
         return sheetManagerSPI.of();
     }
 
-    public void close(Sheet sheet, boolean makeNotebookRecent) {
+    public void close(Sheet sheet, boolean makeNotebookRecent, boolean discardUnsavedChanges) {
         sheet.close();
+        sheet.getNotebook().close(discardUnsavedChanges);
         if (makeNotebookRecent) {
             sheet.getNotebook().getStorage()
                     .getURI().ifPresent(uri -> addToRecentNotebooks(uri));
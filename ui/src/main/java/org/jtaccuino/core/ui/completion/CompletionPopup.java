@@ -1,5 +1,5 @@
 /*
- * Copyright 2024-2025 JTaccuino Contributors
+ * Copyright 2024-2026 JTaccuino Contributors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,6 +21,8 @@ import javafx.application.Platform;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.ObjectPropertyBase;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -37,6 +39,7 @@ public class CompletionPopup extends PopupControl {
 
     private final ObservableList<CompletionItem> completionSuggestions = FXCollections.observableArrayList();
     private IntegerProperty visibleCompletions = new SimpleIntegerProperty(this, "visibleCompletions", 10);
+    private final ReadOnlyObjectWrapper<CompletionItem> highlightedSuggestion = new ReadOnlyObjectWrapper<>(this, "highlightedSuggestion");
 
     public static class CompletionEvent extends Event {
 
@@ -83,7 +86,11 @@ public class CompletionPopup extends PopupControl {
                 FXCollections.<CompletionItem>observableArrayList(matchList),
                 requiresSep ? FXCollections.<CompletionItem>observableArrayList(CompletionItem.NIL) : FXCollections.<CompletionItem>emptyObservableList(),
                 FXCollections.<CompletionItem>observableArrayList(noMatchlist));
-        Platform.runLater(() -> completionSuggestions.setAll(newList));
+        if (Platform.isFxApplicationThread()) {
+            completionSuggestions.setAll(newList);
+        } else {
+            Platform.runLater(() -> completionSuggestions.setAll(newList));
+        }
     }
 
     @SafeVarargs
@@ -127,6 +134,18 @@ public class CompletionPopup extends PopupControl {
         return visibleCompletions;
     }
 
+    /**
+     * The suggestion currently selected in the list, e.g. to prefetch its
+     * documentation.
+     */
+    public final ReadOnlyObjectProperty<CompletionItem> highlightedSuggestionProperty() {
+        return highlightedSuggestion.getReadOnlyProperty();
+    }
+
+    final void setHighlightedSuggestion(CompletionItem item) {
+        highlightedSuggestion.set(item);
+    }
+
     public final ObjectProperty<EventHandler<CompletionEvent>> onCompletionProperty() {
         return onCompletion;
     }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2024-2025 JTaccuino Contributors
+ * Copyright 2024-2026 JTaccuino Contributors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -46,6 +46,7 @@ class CompletionPopupSkin implements Skin<CompletionPopup> {
         completionList = new ListView<>(control.getSuggestions());
         selectionModel = new CompletionSelectionModel(control.getSuggestions());
         completionList.setSelectionModel(selectionModel);
+        selectionModel.selectedItemProperty().addListener((observable, oldValue, newValue) -> control.setHighlightedSuggestion(newValue));
 
         Text tempText = new Text("Q");
         tempText.setFont(Font.font("Monaspace Argon", 11));
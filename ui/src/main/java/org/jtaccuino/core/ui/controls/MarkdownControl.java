@@ -1,5 +1,5 @@
 /*
- * Copyright 2025 JTaccuino Contributors
+ * Copyright 2025-2026 JTaccuino Contributors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -77,7 +77,7 @@ public final class MarkdownControl extends InputControl {
     }
 
     public void updateRenderedView(Document doc) {
-        if (null != mdRenderArea) {
+        if (null != mdRenderArea && !doc.equals(mdRenderArea.getDocument())) {
             mdRenderArea.getActionFactory().open(doc).execute(new ActionEvent());
         }
     }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2024-2025 JTaccuino Contributors
+ * Copyright 2024-2026 JTaccuino Contributors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,18 +15,25 @@
  */
 package org.jtaccuino.core.ui.extensions;
 
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
-import java.util.Base64;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.ServiceLoader;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.logging.Level;
@@ -36,12 +43,14 @@ import javafx.animation.AnimationTimer;
 import javafx.application.Platform;
 import javafx.beans.InvalidationListener;
 import javafx.beans.Observable;
-import javafx.embed.swing.SwingFXUtils;
 import javafx.scene.Node;
 import javafx.scene.SnapshotParameters;
 import javafx.scene.control.Label;
+import javafx.scene.image.PixelFormat;
 import javafx.scene.layout.VBox;
+import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
 
 import org.jtaccuino.core.ui.api.CellData;
 import org.jtaccuino.jshell.ReactiveJShell;
@@ -63,8 +72,16 @@ public class DisplayExtension implements JShellExtension {
         }
     }
 
+    private static final Executor ENCODER = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("DisplayEncoder").factory());
+
+    // deflate level 0 (fastest) to 9 (smallest), negative for the encoder default
+    private static final int PNG_COMPRESSION_LEVEL = Integer.getInteger("jtaccuino.display.pngCompressionLevel", -1);
+
     private VBox activeOutput;
     private CellData activeCellData;
+    // only accessed on the fx thread
+    private final Map<Node, AtomicBoolean> pendingEncodings = new HashMap<>();
+    private CompletableFuture<Void> lastEncoding = CompletableFuture.completedFuture(null);
     @SuppressWarnings("UnusedVariable") // TODO: Remove if really unused
     private final ReactiveJShell reactiveJShell;
 
@@ -102,24 +119,7 @@ public class DisplayExtension implements JShellExtension {
             Platform.runLater(() -> {
                 try {
                     aO.getChildren().add(node);
-                    var snapshot = node.snapshot(new SnapshotParameters(), null);
-                    var baos = new ByteArrayOutputStream();
-                    var eos = Base64.getEncoder().wrap(baos);
-                    try {
-                        ImageIO.write(
-                                SwingFXUtils.fromFXImage(snapshot, null),
-                                "png",
-                                eos);
-                        baos.flush();
-                        baos.close();
-                        var displayData = new String(baos.toByteArray(), StandardCharsets.UTF_8);
-                        aC.getOutputData().add(CellData.OutputData.of(
-                                CellData.OutputData.OutputType.DISPLAY_DATA,
-                                Map.of("image/png", displayData)
-                        ));
-                    } catch (IOException ex) {
-                        Logger.getLogger(DisplayExtension.class.getName()).log(Level.SEVERE, null, ex);
-                    }
+                    encodeAsync(node, aO, aC);
                 } catch (Throwable t) {
                     Logger.getLogger(DisplayExtension.class.getName()).log(Level.SEVERE, null, t);
                 }
@@ -127,6 +127,66 @@ public class DisplayExtension implements JShellExtension {
         }
     }
 
+    /**
+     * Takes the snapshot of the node on the fx thread and encodes it on a
+     * background thread. The encoded outputs are added to the cell data in
+     * display order, a pending encoding of a node displayed again is dropped.
+     */
+    private void encodeAsync(Node node, VBox output, CellData cellData) {
+        var snapshot = node.snapshot(new SnapshotParameters(), null);
+        int width = (int) snapshot.getWidth();
+        int height = (int) snapshot.getHeight();
+        var pixels = new int[width * height];
+        snapshot.getPixelReader().getPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), pixels, 0, width);
+
+        var dropped = new AtomicBoolean();
+        var superseded = pendingEncodings.put(node, dropped);
+        if (null != superseded) {
+            superseded.set(true);
+        }
+        var encoded = CompletableFuture.supplyAsync(() -> dropped.get() ? null : encodePng(pixels, width, height), ENCODER)
+                .exceptionally(t -> {
+                    Logger.getLogger(DisplayExtension.class.getName()).log(Level.SEVERE, null, t);
+                    return null;
+                });
+        lastEncoding = lastEncoding.thenAcceptBothAsync(encoded, (v, png) -> {
+            pendingEncodings.remove(node, dropped);
+            if (null != png && !dropped.get() && output.getChildren().contains(node)) {
+                cellData.getOutputData().add(CellData.OutputData.of(
+                        CellData.OutputData.OutputType.DISPLAY_DATA,
+                        "image/png",
+                        png
+                ));
+            }
+        }, Platform::runLater).exceptionally(t -> {
+            Logger.getLogger(DisplayExtension.class.getName()).log(Level.SEVERE, null, t);
+            return null;
+        });
+    }
+
+    private static byte[] encodePng(int[] pixels, int width, int height) {
+        // wraps the pixels without copying them
+        var raster = Raster.createPackedRaster(new DataBufferInt(pixels, pixels.length), width, height, width,
+                new int[]{0x00FF0000, 0x0000FF00, 0x000000FF, 0xFF000000}, null);
+        var image = new BufferedImage(ColorModel.getRGBdefault(), raster, false, null);
+        var writer = ImageIO.getImageWritersByFormatName("png").next();
+        var baos = new ByteArrayOutputStream();
+        try (var ios = ImageIO.createImageOutputStream(baos)) {
+            writer.setOutput(ios);
+            var param = writer.getDefaultWriteParam();
+            if (PNG_COMPRESSION_LEVEL >= 0 && param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(1.0f - Math.min(PNG_COMPRESSION_LEVEL, 9) / 9.0f);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            writer.dispose();
+        }
+        return baos.toByteArray();
+    }
+
     private long lastEffect;
 
     @SuppressWarnings({"rawtypes","unchecked"})
@@ -16,9 +16,8 @@
 package org.jtaccuino.core.ui.extensions;
 
 import java.util.Optional;
-import javafx.application.Platform;
-import javafx.scene.control.Label;
 import org.jtaccuino.core.ui.api.CellData;
+import org.jtaccuino.jshell.OutputCapture;
 import org.jtaccuino.jshell.ReactiveJShell;
 import org.jtaccuino.jshell.extensions.JShellExtension;
 
@@ -29,7 +28,7 @@ public class PrintExtension implements JShellExtension {
 
     @SuppressWarnings("UnusedVariable")
     private CellData activeCellData;
-    private Label streamResult;
+    private volatile StreamOutputSink activeStream;
 
     @Descriptor(mode = Mode.SYSTEM, type = PrintExtension.class)
     public static class Factory implements JShellExtension.Factory {
@@ -69,27 +68,30 @@ public class PrintExtension implements JShellExtension {
 
     @SuppressWarnings("AnnotateFormatMethod")
     public void println(String text, Object... args) {
-        var formatted = text.formatted(args);
-        Platform.runLater(() -> {
-            var nextText = streamResult.getText() + formatted + "\n";
-            streamResult.setText(nextText);
-        });
+        append(text.formatted(args) + "\n");
     }
 
     @SuppressWarnings("AnnotateFormatMethod")
     public void print(String text, Object... args) {
-        var formatted = text.formatted(args);
-        Platform.runLater(() -> {
-            var nextText = streamResult.getText() + formatted;
-            streamResult.setText(nextText);
-        });
+        append(text.formatted(args));
     }
 
     public void setCurrentCellData(CellData cellData) {
         this.activeCellData = cellData;
     }
 
-    public void setActiveStreamResult(Label streamResult) {
-        this.streamResult = streamResult;
+    private void append(String text) {
+        var stream = activeStream;
+        if (null != stream) {
+            stream.write(OutputCapture.Stream.STDOUT, text);
+        }
+    }
+
+    /**
+     * Sets the sink receiving the output of the current execution, has to be
+     * called on the shell worker before the execution starts.
+     */
+    public void setActiveStream(StreamOutputSink stream) {
+        this.activeStream = stream;
     }
 }
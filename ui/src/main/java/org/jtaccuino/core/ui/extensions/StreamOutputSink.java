@@ -0,0 +1,218 @@
+/*
+ * Copyright 2026 JTaccuino Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jtaccuino.core.ui.extensions;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import javafx.application.Platform;
+import javafx.scene.control.ContentDisplay;
+import javafx.scene.control.Hyperlink;
+import javafx.scene.control.Label;
+import org.jtaccuino.core.ui.api.CellData;
+import org.jtaccuino.jshell.OutputCapture;
+
+/**
+ * Collects the text printed by one cell execution. Writers only enqueue the
+ * text without locking, the fx thread drains the queue at most once per pulse
+ * into ring buffers retaining the last {@code jtaccuino.output.streamLimit}
+ * characters (default 1M) of the interleaved output and of each stream. The
+ * label showing the output only shows the tail of the interleaved output until
+ * more is requested. The retained text of each stream is recorded as a stream
+ * output of the cell, named {@code stdout} or {@code stderr}.
+ */
+public final class StreamOutputSink implements OutputCapture.Target {
+
+    private static final int RETAINED_LIMIT = Math.max(1024, Integer.getInteger("jtaccuino.output.streamLimit", 1024 * 1024));
+    private static final int VISIBLE_LIMIT = 16 * 1024;
+    private static final long RECORD_INTERVAL = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private static record Chunk(OutputCapture.Stream stream, String text) {
+
+    }
+
+    /**
+     * Retains the last {@link #RETAINED_LIMIT} characters appended.
+     */
+    private static final class RingBuffer {
+
+        private char[] buffer = new char[1024];
+        private int start;
+        private int length;
+
+        void append(String text) {
+            int textStart = Math.max(0, text.length() - RETAINED_LIMIT);
+            int textLength = text.length() - textStart;
+            int required = length + textLength;
+            if (required > buffer.length && buffer.length < RETAINED_LIMIT) {
+                var grown = new char[(int) Math.min(RETAINED_LIMIT, Math.max(required, buffer.length * 2L))];
+                copyTail(length, grown);
+                buffer = grown;
+                start = 0;
+            }
+            int overflow = length + textLength - buffer.length;
+            if (overflow > 0) {
+                start = (start + overflow) % buffer.length;
+                length -= overflow;
+            }
+            int end = (start + length) % buffer.length;
+            int firstPart = Math.min(textLength, buffer.length - end);
+            text.getChars(textStart, textStart + firstPart, buffer, end);
+            text.getChars(textStart + firstPart, text.length(), buffer, 0);
+            length += textLength;
+        }
+
+        private void copyTail(int count, char[] target) {
+            int tailStart = (start + length - count) % buffer.length;
+            int firstPart = Math.min(count, buffer.length - tailStart);
+            System.arraycopy(buffer, tailStart, target, 0, firstPart);
+            System.arraycopy(buffer, 0, target, firstPart, count - firstPart);
+        }
+
+        String tail(int count) {
+            var chars = new char[Math.min(count, length)];
+            copyTail(chars.length, chars);
+            return new String(chars);
+        }
+
+        int length() {
+            return length;
+        }
+    }
+
+    private final Label label;
+    private final CellData cellData;
+    private final Hyperlink showMore = new Hyperlink();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final Queue<Chunk> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pendingLength = new AtomicLong();
+    private volatile boolean closed;
+
+    // only accessed on the fx thread
+    private final RingBuffer shown = new RingBuffer();
+    private final Map<OutputCapture.Stream, RingBuffer> streams = new EnumMap<>(OutputCapture.Stream.class);
+    private final Map<OutputCapture.Stream, Integer> outputIndexes = new EnumMap<>(OutputCapture.Stream.class);
+    private int visibleLimit = VISIBLE_LIMIT;
+    private long lastRecorded = System.nanoTime();
+
+    /**
+     * Creates the sink showing its output in the given label, may be called
+     * from any thread. The label is only accessed once output is flushed on
+     * the fx thread, clearing it before the execution is up to the caller.
+     */
+    public StreamOutputSink(Label label, CellData cellData) {
+        this.label = label;
+        this.cellData = cellData;
+        showMore.setOnAction(e -> {
+            visibleLimit = (int) Math.min(RETAINED_LIMIT, visibleLimit * 4L);
+            flush();
+        });
+    }
+
+    /**
+     * Appends the text written to the stream, may be called from any thread.
+     *
+     * @return false if the sink is closed
+     */
+    @Override
+    public boolean write(OutputCapture.Stream stream, String text) {
+        if (closed) {
+            return false;
+        }
+        pending.add(new Chunk(stream, text));
+        if (pendingLength.addAndGet(text.length()) > 2L * RETAINED_LIMIT) {
+            // the fx thread does not keep up, text beyond the retained limit would be dropped anyway
+            while (pendingLength.get() > RETAINED_LIMIT) {
+                var dropped = pending.poll();
+                if (null == dropped) {
+                    break;
+                }
+                pendingLength.addAndGet(-dropped.text().length());
+            }
+        }
+        if (flushScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::flush);
+        }
+        return true;
+    }
+
+    /**
+     * Shows and records the complete output after the execution finished, has
+     * to be called on the fx thread.
+     */
+    public void complete() {
+        flush();
+        record();
+    }
+
+    /**
+     * Ignores all further output, e.g. once the cell is executed again.
+     */
+    public void close() {
+        closed = true;
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+        if (closed) {
+            return;
+        }
+        Chunk chunk;
+        while (null != (chunk = pending.poll())) {
+            pendingLength.addAndGet(-chunk.text().length());
+            shown.append(chunk.text());
+            streams.computeIfAbsent(chunk.stream(), stream -> new RingBuffer()).append(chunk.text());
+        }
+        var visible = shown.tail(visibleLimit);
+        int hidden = shown.length() - visible.length();
+        if (hidden > 0) {
+            showMore.setText("Show more (" + hidden + " characters hidden)");
+            label.setGraphic(showMore);
+            label.setContentDisplay(ContentDisplay.TOP);
+        } else {
+            label.setGraphic(null);
+        }
+        label.setText(visible);
+        if (System.nanoTime() - lastRecorded > RECORD_INTERVAL) {
+            record();
+        }
+    }
+
+    private void record() {
+        lastRecorded = System.nanoTime();
+        if (closed) {
+            return;
+        }
+        streams.forEach((stream, retained) -> {
+            var streamOutput = CellData.OutputData.ofStream(CellData.OutputData.OutputType.DISPLAY_DATA,
+                    stream.streamName(), retained.tail(retained.length()));
+            var outputData = cellData.getOutputData();
+            int outputIndex = outputIndexes.getOrDefault(stream, -1);
+            if (outputIndex >= 0 && outputIndex < outputData.size()
+                    && outputData.get(outputIndex) instanceof CellData.StreamBasedOutputData recorded
+                    && recorded.name().equals(stream.streamName())) {
+                outputData.set(outputIndex, streamOutput);
+            } else {
+                outputIndexes.put(stream, outputData.size());
+                outputData.add(streamOutput);
+            }
+        });
+    }
+}
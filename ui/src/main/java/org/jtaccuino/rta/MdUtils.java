@@ -1,5 +1,5 @@
 /*
- * Copyright 2024-2025 JTaccuino Contributors
+ * Copyright 2024-2026 JTaccuino Contributors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -46,23 +46,68 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Deque;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.BiConsumer;
 import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
 import javafx.scene.text.FontPosture;
 import static javafx.scene.text.FontWeight.BOLD;
 import javafx.scene.text.TextAlignment;
 
 public class MdUtils {
 
+    private static final int RENDERED_CACHE_SIZE = 256;
+    private static final int RENDERED_BLOCKS_CACHE_SIZE = 4096;
+    private static final int STYLE_CACHE_SIZE = 16;
+
+    // flexmark parsers are thread safe and can be shared by all renderings
+    private static final Parser PARSER = createParser();
+
+    private static final Map<Style, Decorations> DECORATIONS = lruCache(STYLE_CACHE_SIZE);
+    private static final Map<RenderKey, Document> RENDERED = lruCache(RENDERED_CACHE_SIZE);
+    private static final Map<BlockKey, RenderedBlock> RENDERED_BLOCKS = lruCache(RENDERED_BLOCKS_CACHE_SIZE);
+
+    /**
+     * The fonts used for rendering, documents are only reused for equal fonts.
+     */
+    private static record Style(List<Font> fonts) {
+
+        static Style of(StyleableMarkdown styleableMarkdown) {
+            return new Style(List.of(
+                    styleableMarkdown.getMarkdownBaseFont(),
+                    styleableMarkdown.getMarkdownEmphasisFont(),
+                    styleableMarkdown.getMarkdownHeadingOneFont(),
+                    styleableMarkdown.getMarkdownHeadingTwoFont(),
+                    styleableMarkdown.getMarkdownHeadingrThreeFont(),
+                    styleableMarkdown.getMarkdownHeadingrFourFont(),
+                    styleableMarkdown.getMarkdownHeadingFiveFont(),
+                    styleableMarkdown.getMarkdownHeadingSixFont(),
+                    styleableMarkdown.getMarkdownMonospaceFont(),
+                    styleableMarkdown.getMarkdownStrikethroughFont(),
+                    styleableMarkdown.getMarkdownStrongEmphasisFont()));
+        }
+    }
+
+    private static record RenderKey(String source, Style style) {
+
+    }
+
+    private static record BlockKey(String source, boolean last, boolean precededByNewline, Style style) {
+
+    }
+
+    private static record RenderedBlock(String text, List<DecorationModel> decorations) {
+
+    }
+
     private MdUtils() {
         // prevent instantiation
     }
 
-    public static Document render(String text, StyleableMarkdown styleableMarkdown) {
+    private static Parser createParser() {
         MutableDataSet options = new MutableDataSet();
-
-        // uncomment to set optional extensions
         options.set(Parser.EXTENSIONS, List.of(
                 TablesExtension.create(),
                 StrikethroughExtension.create(),
@@ -70,325 +115,432 @@ public class MdUtils {
                 AttributesExtension.create()));
         // uncomment to convert soft-breaks to hard breaks
         //options.set(HtmlRenderer.SOFT_BREAK, "<br />\n");
-        Parser parser = Parser.builder(options).build();
+        return Parser.builder(options).build();
+    }
 
-        // You can re-use parser and renderer instances
-        com.vladsch.flexmark.util.ast.Document document = parser.parse(text);
+    private static <K, V> Map<K, V> lruCache(int size) {
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > size;
+            }
+        });
+    }
+
+    /**
+     * Renders the markdown, documents rendered before with the same fonts are
+     * returned from a cache.
+     */
+    public static Document render(String text, StyleableMarkdown styleableMarkdown) {
+        var style = Style.of(styleableMarkdown);
+        var key = new RenderKey(text, style);
+        var rendered = RENDERED.get(key);
+        if (null == rendered) {
+            var decorations = DECORATIONS.computeIfAbsent(style, s -> new Decorations(styleableMarkdown));
+            rendered = render(PARSER.parse(text), text.length(), style, decorations);
+            RENDERED.put(key, rendered);
+        }
+        return rendered;
+    }
+
+    /**
+     * Renders the markdown in one pass without using the caches, the
+     * reference the cached block by block rendering has to match.
+     */
+    static Document renderUncached(String text, StyleableMarkdown styleableMarkdown) {
+        var decorations = DECORATIONS.computeIfAbsent(Style.of(styleableMarkdown), s -> new Decorations(styleableMarkdown));
+        var rendered = new BlockRenderer(decorations, false).render(PARSER.parse(text));
+        return new Document(rendered.text(), rendered.decorations(), text.length());
+    }
 
+    /**
+     * Renders the document block by block. Rendered top level blocks are
+     * cached, so after an edit only the changed blocks are rendered again.
+     * Besides its source, the rendering of a block only depends on whether it
+     * is the last block and whether the text before it ends with a newline.
+     */
+    private static Document render(com.vladsch.flexmark.util.ast.Document document, int textLength, Style style, Decorations decorations) {
         final List<DecorationModel> decorationList = new ArrayList<>();
         final StringBuilder theText = new StringBuilder();
-        final ParagraphDecoration presetParagraphDecoration = ParagraphDecoration.builder().presets().build();
-
-        final TextDecoration headingOneTextDecoration = TextDecoration.builder().presets()
-                .fontFamily(styleableMarkdown.getMarkdownHeadingOneFont().getFamily())
-                .fontWeight(BOLD)
-                .fontSize(styleableMarkdown.getMarkdownHeadingOneFont().getSize()).build();
-        final ParagraphDecoration headingOneParagraph = ParagraphDecoration.builder().presets().alignment(TextAlignment.LEFT).topInset(0).bottomInset(4).build();
-
-        final TextDecoration headingTwoTextDecoration = TextDecoration.builder().presets()
-                .fontFamily(styleableMarkdown.getMarkdownHeadingTwoFont().getFamily())
-                .fontWeight(BOLD)
-                .fontSize(styleableMarkdown.getMarkdownHeadingTwoFont().getSize()).build();
-        final ParagraphDecoration headingTwoParagraph = ParagraphDecoration.builder().presets().alignment(TextAlignment.LEFT).topInset(5).bottomInset(2).build();
-
-        final TextDecoration headingThreeTextDecoration = TextDecoration.builder().presets().
-                fontFamily(styleableMarkdown.getMarkdownHeadingrThreeFont().getFamily())
-                .fontWeight(BOLD)
-                .fontSize(styleableMarkdown.getMarkdownHeadingrThreeFont().getSize()).build();
-        final ParagraphDecoration headingThreeParagraph = ParagraphDecoration.builder().presets().alignment(TextAlignment.LEFT).topInset(5).bottomInset(0).build();
-
-        final TextDecoration headingFourTextDecoration = TextDecoration.builder().presets()
-                .fontFamily(styleableMarkdown.getMarkdownHeadingrFourFont().getFamily())
-                .fontWeight(BOLD)
-                .fontSize(styleableMarkdown.getMarkdownHeadingrFourFont().getSize()).build();
-        final ParagraphDecoration headingFourParagraph = ParagraphDecoration.builder().presets().alignment(TextAlignment.LEFT).topInset(5).bottomInset(0).build();
-
-        final TextDecoration headingFiveTextDecoration = TextDecoration.builder().presets()
-                .fontFamily(styleableMarkdown.getMarkdownHeadingFiveFont().getFamily())
-                .fontWeight(BOLD)
-                .fontSize(styleableMarkdown.getMarkdownHeadingFiveFont().getSize()).build();
-        final ParagraphDecoration headingFiveParagraph = ParagraphDecoration.builder().presets().alignment(TextAlignment.LEFT).topInset(5).bottomInset(0).build();
-
-        final TextDecoration headingSixTextDecoration = TextDecoration.builder().presets()
-                .fontFamily(styleableMarkdown.getMarkdownHeadingSixFont().getFamily())
-                .fontWeight(BOLD)
-                .fontSize(styleableMarkdown.getMarkdownHeadingSixFont().getSize()).build();
-        final ParagraphDecoration headingSixParagraph = ParagraphDecoration.builder().presets().alignment(TextAlignment.LEFT).topInset(5).bottomInset(0).build();
-
-        final TextDecoration.Builder presetTextDecorationBuilder = TextDecoration.builder().presets()
-                .fontFamily(styleableMarkdown.getMarkdownBaseFont().getFamily())
-                .fontSize(styleableMarkdown.getMarkdownBaseFont().getSize());
-
-        final TextDecoration presetTextDecoration = presetTextDecorationBuilder.build();
-
-        final TextDecoration monospaceDecoration = TextDecoration.builder().presets()
-                .fontFamily(styleableMarkdown.getMarkdownMonospaceFont().getFamily())
-                .background(Color.GAINSBORO.toString())
-                .foreground(Color.BLACK.toString())
-                .fontSize(styleableMarkdown.getMarkdownMonospaceFont().getSize()).build();
-
-        final TextDecoration emphasisDecoration = TextDecoration.builder().presets()
-                .fontFamily(styleableMarkdown.getMarkdownEmphasisFont().getFamily())
-                .fontPosture(FontPosture.ITALIC)
-                .fontSize(styleableMarkdown.getMarkdownEmphasisFont().getSize()).build();
-
-        final TextDecoration strongEmphasisDecoration = TextDecoration.builder().presets()
-                .fontFamily(styleableMarkdown.getMarkdownStrongEmphasisFont().getFamily())
-                .fontWeight(BOLD)
-                .fontSize(styleableMarkdown.getMarkdownStrongEmphasisFont().getSize()).build();
-
-//        @SuppressWarnings("UnusedVariable") // TODO: Check if it is used and remove if not
-//        final TextDecoration bothEmphasisDecoration = TextDecoration.builder().presets().fontFamily("Arial").fontPosture(FontPosture.ITALIC).fontWeight(BOLD).build();
-        final TextDecoration strikethroughDecoration = TextDecoration.builder().presets()
-                .strikethrough(true)
-                .fontFamily(styleableMarkdown.getMarkdownStrikethroughFont().getFamily())
-                .fontSize(styleableMarkdown.getMarkdownStrikethroughFont().getSize()).build();
-
-        final ParagraphDecoration bulletItemLevelOneDecoration = ParagraphDecoration.builder().presets()
-                .graphicType(ParagraphDecoration.GraphicType.BULLETED_LIST)
-                .indentationLevel(1)
-                .build();
-        final ParagraphDecoration bulletItemLevelTwoDecoration = ParagraphDecoration.builder().presets()
-                .graphicType(ParagraphDecoration.GraphicType.BULLETED_LIST)
-                .indentationLevel(2)
-                .build();
-        final ParagraphDecoration bulletItemLevelThreeDecoration = ParagraphDecoration.builder().presets()
-                .graphicType(ParagraphDecoration.GraphicType.BULLETED_LIST)
-                .indentationLevel(3)
-                .build();
-        final ParagraphDecoration orderedItemLevelOneDecoration = ParagraphDecoration.builder().presets()
-                .graphicType(ParagraphDecoration.GraphicType.NUMBERED_LIST)
-                .indentationLevel(1)
-                .build();
-        final ParagraphDecoration orderedItemLevelTwoDecoration = ParagraphDecoration.builder().presets()
-                .graphicType(ParagraphDecoration.GraphicType.NUMBERED_LIST)
-                .indentationLevel(2)
-                .build();
-        final ParagraphDecoration orderedItemLevelThreeDecoration = ParagraphDecoration.builder().presets()
-                .graphicType(ParagraphDecoration.GraphicType.NUMBERED_LIST)
-                .indentationLevel(3)
-                .build();
-
-        NodeVisitor visitor = new NodeVisitor(Collections.emptyList()) {
-            private int bulletListLevel = 0;
-            private int orderedListLevel = 0;
-
-            String indentation = " ";
-
-            Deque<ParagraphDecoration> paragraphDecorations = new ArrayDeque<>();
-            Deque<TextDecoration> textDecorations = new ArrayDeque<>();
 
-            @Override
-            protected void processNode(com.vladsch.flexmark.util.ast.Node node, boolean withChildren, BiConsumer<com.vladsch.flexmark.util.ast.Node, Visitor<com.vladsch.flexmark.util.ast.Node>> processor) {
-                indentation = indentation + " ";
-                switch (node) {
-                    case com.vladsch.flexmark.util.ast.Document d -> {
-                        paragraphDecorations.push(presetParagraphDecoration);
-                        textDecorations.push(presetTextDecoration);
-                        visitChildren(d);
-                    }
-                    case Heading h when h.getLevel() == 1 -> {
-                        paragraphDecorations.push(headingOneParagraph);
-                        textDecorations.push(headingOneTextDecoration);
-                        visitChildren(h);
-                        textDecorations.pop();
-                        paragraphDecorations.pop();
-                        var start = theText.length();
-                        theText.append("\n");
-                        decorationList.add(new DecorationModel(start, 1, presetTextDecoration, presetParagraphDecoration));
-                    }
-                    case Heading h when h.getLevel() == 2 -> {
-                        paragraphDecorations.push(headingTwoParagraph);
-                        textDecorations.push(headingTwoTextDecoration);
-                        visitChildren(h);
-                        paragraphDecorations.pop();
-                        textDecorations.pop();
+        for (var block = document.getFirstChild(); null != block; block = block.getNext()) {
+            var precededByNewline = !theText.isEmpty() && '\n' == theText.charAt(theText.length() - 1);
+            var key = new BlockKey(block.getChars().toString(), null == block.getNext(), precededByNewline, style);
+            var rendered = RENDERED_BLOCKS.get(key);
+            if (null == rendered) {
+                rendered = new BlockRenderer(decorations, precededByNewline).render(block);
+                RENDERED_BLOCKS.put(key, rendered);
+            }
+            var offset = theText.length();
+            theText.append(rendered.text());
+            for (var decoration : rendered.decorations()) {
+                decorationList.add(0 == offset ? decoration : new DecorationModel(decoration.getStart() + offset,
+                        decoration.getLength(), decoration.getDecoration(), decoration.getParagraphDecoration()));
+            }
+        }
+        return new Document(theText.toString(), decorationList, textLength);
+    }
+
+    /**
+     * Decorations for one font configuration, shared by all documents rendered
+     * with it.
+     */
+    private static final class Decorations {
+
+        private final ParagraphDecoration presetParagraphDecoration;
+        private final TextDecoration headingOneTextDecoration;
+        private final ParagraphDecoration headingOneParagraph;
+        private final TextDecoration headingTwoTextDecoration;
+        private final ParagraphDecoration headingTwoParagraph;
+        private final TextDecoration headingThreeTextDecoration;
+        private final ParagraphDecoration headingThreeParagraph;
+        private final TextDecoration headingFourTextDecoration;
+        private final ParagraphDecoration headingFourParagraph;
+        private final TextDecoration headingFiveTextDecoration;
+        private final ParagraphDecoration headingFiveParagraph;
+        private final TextDecoration headingSixTextDecoration;
+        private final ParagraphDecoration headingSixParagraph;
+        private final TextDecoration presetTextDecoration;
+        private final TextDecoration monospaceDecoration;
+        private final TextDecoration emphasisDecoration;
+        private final TextDecoration strongEmphasisDecoration;
+        private final TextDecoration strikethroughDecoration;
+        private final ParagraphDecoration bulletItemLevelOneDecoration;
+        private final ParagraphDecoration bulletItemLevelTwoDecoration;
+        private final ParagraphDecoration bulletItemLevelThreeDecoration;
+        private final ParagraphDecoration orderedItemLevelOneDecoration;
+        private final ParagraphDecoration orderedItemLevelTwoDecoration;
+        private final ParagraphDecoration orderedItemLevelThreeDecoration;
+
+        private Decorations(StyleableMarkdown styleableMarkdown) {
+            presetParagraphDecoration = ParagraphDecoration.builder().presets().build();
+
+            headingOneTextDecoration = TextDecoration.builder().presets()
+                    .fontFamily(styleableMarkdown.getMarkdownHeadingOneFont().getFamily())
+                    .fontWeight(BOLD)
+                    .fontSize(styleableMarkdown.getMarkdownHeadingOneFont().getSize()).build();
+            headingOneParagraph = ParagraphDecoration.builder().presets().alignment(TextAlignment.LEFT).topInset(0).bottomInset(4).build();
+
+            headingTwoTextDecoration = TextDecoration.builder().presets()
+                    .fontFamily(styleableMarkdown.getMarkdownHeadingTwoFont().getFamily())
+                    .fontWeight(BOLD)
+                    .fontSize(styleableMarkdown.getMarkdownHeadingTwoFont().getSize()).build();
+            headingTwoParagraph = ParagraphDecoration.builder().presets().alignment(TextAlignment.LEFT).topInset(5).bottomInset(2).build();
+
+            headingThreeTextDecoration = TextDecoration.builder().presets().
+                    fontFamily(styleableMarkdown.getMarkdownHeadingrThreeFont().getFamily())
+                    .fontWeight(BOLD)
+                    .fontSize(styleableMarkdown.getMarkdownHeadingrThreeFont().getSize()).build();
+            headingThreeParagraph = ParagraphDecoration.builder().presets().alignment(TextAlignment.LEFT).topInset(5).bottomInset(0).build();
+
+            headingFourTextDecoration = TextDecoration.builder().presets()
+                    .fontFamily(styleableMarkdown.getMarkdownHeadingrFourFont().getFamily())
+                    .fontWeight(BOLD)
+                    .fontSize(styleableMarkdown.getMarkdownHeadingrFourFont().getSize()).build();
+            headingFourParagraph = ParagraphDecoration.builder().presets().alignment(TextAlignment.LEFT).topInset(5).bottomInset(0).build();
+
+            headingFiveTextDecoration = TextDecoration.builder().presets()
+                    .fontFamily(styleableMarkdown.getMarkdownHeadingFiveFont().getFamily())
+                    .fontWeight(BOLD)
+                    .fontSize(styleableMarkdown.getMarkdownHeadingFiveFont().getSize()).build();
+            headingFiveParagraph = ParagraphDecoration.builder().presets().alignment(TextAlignment.LEFT).topInset(5).bottomInset(0).build();
+
+            headingSixTextDecoration = TextDecoration.builder().presets()
+                    .fontFamily(styleableMarkdown.getMarkdownHeadingSixFont().getFamily())
+                    .fontWeight(BOLD)
+                    .fontSize(styleableMarkdown.getMarkdownHeadingSixFont().getSize()).build();
+            headingSixParagraph = ParagraphDecoration.builder().presets().alignment(TextAlignment.LEFT).topInset(5).bottomInset(0).build();
+
+            presetTextDecoration = TextDecoration.builder().presets()
+                    .fontFamily(styleableMarkdown.getMarkdownBaseFont().getFamily())
+                    .fontSize(styleableMarkdown.getMarkdownBaseFont().getSize()).build();
+
+            monospaceDecoration = TextDecoration.builder().presets()
+                    .fontFamily(styleableMarkdown.getMarkdownMonospaceFont().getFamily())
+                    .background(Color.GAINSBORO.toString())
+                    .foreground(Color.BLACK.toString())
+                    .fontSize(styleableMarkdown.getMarkdownMonospaceFont().getSize()).build();
+
+            emphasisDecoration = TextDecoration.builder().presets()
+                    .fontFamily(styleableMarkdown.getMarkdownEmphasisFont().getFamily())
+                    .fontPosture(FontPosture.ITALIC)
+                    .fontSize(styleableMarkdown.getMarkdownEmphasisFont().getSize()).build();
+
+            strongEmphasisDecoration = TextDecoration.builder().presets()
+                    .fontFamily(styleableMarkdown.getMarkdownStrongEmphasisFont().getFamily())
+                    .fontWeight(BOLD)
+                    .fontSize(styleableMarkdown.getMarkdownStrongEmphasisFont().getSize()).build();
+
+            strikethroughDecoration = TextDecoration.builder().presets()
+                    .strikethrough(true)
+                    .fontFamily(styleableMarkdown.getMarkdownStrikethroughFont().getFamily())
+                    .fontSize(styleableMarkdown.getMarkdownStrikethroughFont().getSize()).build();
+
+            bulletItemLevelOneDecoration = ParagraphDecoration.builder().presets()
+                    .graphicType(ParagraphDecoration.GraphicType.BULLETED_LIST)
+                    .indentationLevel(1)
+                    .build();
+            bulletItemLevelTwoDecoration = ParagraphDecoration.builder().presets()
+                    .graphicType(ParagraphDecoration.GraphicType.BULLETED_LIST)
+                    .indentationLevel(2)
+                    .build();
+            bulletItemLevelThreeDecoration = ParagraphDecoration.builder().presets()
+                    .graphicType(ParagraphDecoration.GraphicType.BULLETED_LIST)
+                    .indentationLevel(3)
+                    .build();
+            orderedItemLevelOneDecoration = ParagraphDecoration.builder().presets()
+                    .graphicType(ParagraphDecoration.GraphicType.NUMBERED_LIST)
+                    .indentationLevel(1)
+                    .build();
+            orderedItemLevelTwoDecoration = ParagraphDecoration.builder().presets()
+                    .graphicType(ParagraphDecoration.GraphicType.NUMBERED_LIST)
+                    .indentationLevel(2)
+                    .build();
+            orderedItemLevelThreeDecoration = ParagraphDecoration.builder().presets()
+                    .graphicType(ParagraphDecoration.GraphicType.NUMBERED_LIST)
+                    .indentationLevel(3)
+                    .build();
+        }
+    }
+
+    /**
+     * Renders one top level block of a markdown document.
+     */
+    private static final class BlockRenderer extends NodeVisitor {
+
+        private final Decorations decorations;
+        private final boolean precededByNewline;
+        private final List<DecorationModel> decorationList = new ArrayList<>();
+        private final StringBuilder theText = new StringBuilder();
+
+        private int bulletListLevel = 0;
+        private int orderedListLevel = 0;
+
+        String indentation = " ";
+
+        Deque<ParagraphDecoration> paragraphDecorations = new ArrayDeque<>();
+        Deque<TextDecoration> textDecorations = new ArrayDeque<>();
+
+        private BlockRenderer(Decorations decorations, boolean precededByNewline) {
+            super(Collections.emptyList());
+            this.decorations = decorations;
+            this.precededByNewline = precededByNewline;
+            paragraphDecorations.push(decorations.presetParagraphDecoration);
+            textDecorations.push(decorations.presetTextDecoration);
+        }
+
+        private RenderedBlock render(com.vladsch.flexmark.util.ast.Node block) {
+            visit(block);
+            return new RenderedBlock(theText.toString(), decorationList);
+        }
+
+        private boolean endsWithNewline() {
+            return theText.isEmpty() ? precededByNewline : '\n' == theText.charAt(theText.length() - 1);
+        }
+
+        @Override
+        protected void processNode(com.vladsch.flexmark.util.ast.Node node, boolean withChildren, BiConsumer<com.vladsch.flexmark.util.ast.Node, Visitor<com.vladsch.flexmark.util.ast.Node>> processor) {
+            indentation = indentation + " ";
+            switch (node) {
+                case Heading h when h.getLevel() == 1 -> {
+                    paragraphDecorations.push(decorations.headingOneParagraph);
+                    textDecorations.push(decorations.headingOneTextDecoration);
+                    visitChildren(h);
+                    textDecorations.pop();
+                    paragraphDecorations.pop();
+                    var start = theText.length();
+                    theText.append("\n");
+                    decorationList.add(new DecorationModel(start, 1, decorations.presetTextDecoration, decorations.presetParagraphDecoration));
+                }
+                case Heading h when h.getLevel() == 2 -> {
+                    paragraphDecorations.push(decorations.headingTwoParagraph);
+                    textDecorations.push(decorations.headingTwoTextDecoration);
+                    visitChildren(h);
+                    paragraphDecorations.pop();
+                    textDecorations.pop();
+                    var start = theText.length();
+                    theText.append("\n");
+                    decorationList.add(new DecorationModel(start, 1, decorations.presetTextDecoration, decorations.presetParagraphDecoration));
+                }
+                case Heading h when h.getLevel() == 3 -> {
+                    paragraphDecorations.push(decorations.headingThreeParagraph);
+                    textDecorations.push(decorations.headingThreeTextDecoration);
+                    visitChildren(h);
+                    paragraphDecorations.pop();
+                    textDecorations.pop();
+                    var start = theText.length();
+                    theText.append("\n");
+                    decorationList.add(new DecorationModel(start, 1, decorations.presetTextDecoration, decorations.presetParagraphDecoration));
+                }
+                case Heading h when h.getLevel() == 4 -> {
+                    paragraphDecorations.push(decorations.headingFourParagraph);
+                    textDecorations.push(decorations.headingFourTextDecoration);
+                    visitChildren(h);
+                    paragraphDecorations.pop();
+                    textDecorations.pop();
+                    var start = theText.length();
+                    theText.append("\n");
+                    decorationList.add(new DecorationModel(start, 1, decorations.presetTextDecoration, decorations.presetParagraphDecoration));
+                }
+                case Heading h when h.getLevel() == 5 -> {
+                    paragraphDecorations.push(decorations.headingFiveParagraph);
+                    textDecorations.push(decorations.headingFiveTextDecoration);
+                    visitChildren(h);
+                    paragraphDecorations.pop();
+                    textDecorations.pop();
+                    var start = theText.length();
+                    theText.append("\n");
+                    decorationList.add(new DecorationModel(start, 1, decorations.presetTextDecoration, decorations.presetParagraphDecoration));
+                }
+                case Heading h when h.getLevel() == 6 -> {
+                    paragraphDecorations.push(decorations.headingSixParagraph);
+                    textDecorations.push(decorations.headingSixTextDecoration);
+                    visitChildren(h);
+                    paragraphDecorations.pop();
+                    textDecorations.pop();
+                    var start = theText.length();
+                    theText.append("\n");
+                    decorationList.add(new DecorationModel(start, 1, decorations.presetTextDecoration, decorations.presetParagraphDecoration));
+                }
+                case Paragraph p -> {
+                    visitChildren(p);
+                    if (!p.getParent().isOrDescendantOfType(com.vladsch.flexmark.util.ast.Document.class) || !p.getParent().getLastChild().equals(p)) {
                         var start = theText.length();
                         theText.append("\n");
-                        decorationList.add(new DecorationModel(start, 1, presetTextDecoration, presetParagraphDecoration));
+                        decorationList.add(new DecorationModel(start, 1, decorations.presetTextDecoration, paragraphDecorations.peek()));
                     }
-                    case Heading h when h.getLevel() == 3 -> {
-                        paragraphDecorations.push(headingThreeParagraph);
-                        textDecorations.push(headingThreeTextDecoration);
-                        visitChildren(h);
-                        paragraphDecorations.pop();
-                        textDecorations.pop();
+                }
+                case Code c -> {
+                    var start = theText.length();
+                    var text = c.getText();
+                    var length = text.length();
+                    theText.append(text);
+                    decorationList.add(new DecorationModel(start, length, decorations.monospaceDecoration, paragraphDecorations.peek()));
+                }
+                case Emphasis e -> {
+                    var start = theText.length();
+                    var text = e.getText();
+                    var length = text.length();
+                    theText.append(text);
+                    decorationList.add(new DecorationModel(start, length, decorations.emphasisDecoration, paragraphDecorations.peek()));
+                }
+                case StrongEmphasis e -> {
+                    var start = theText.length();
+                    var text = e.getText();
+                    var length = text.length();
+                    theText.append(text);
+                    decorationList.add(new DecorationModel(start, length, decorations.strongEmphasisDecoration, paragraphDecorations.peek()));
+                }
+                case Strikethrough e -> {
+                    var start = theText.length();
+                    var text = e.getText();
+                    var length = text.length();
+                    theText.append(text);
+                    decorationList.add(new DecorationModel(start, length, decorations.strikethroughDecoration, paragraphDecorations.peek()));
+                }
+                case Emoji e -> {
+                    var start = theText.length();
+                    var emojiAsString = EmojiData.emojiFromShortName(e.getText().toString()).map(com.gluonhq.emoji.Emoji::character).orElse("");
+                    var length = emojiAsString.length();
+                    theText.append(emojiAsString);
+                    decorationList.add(new DecorationModel(start, length, textDecorations.peek(), paragraphDecorations.peek()));
+                }
+                case Text t -> {
+                    var start = theText.length();
+                    var text = t.getChars().toString();
+                    var length = text.length();
+                    theText.append(text);
+                    decorationList.add(new DecorationModel(start, length, textDecorations.peek(), paragraphDecorations.peek()));
+                }
+                case BulletList bl -> {
+                    bulletListLevel++;
+                    if (!endsWithNewline()) {
                         var start = theText.length();
                         theText.append("\n");
-                        decorationList.add(new DecorationModel(start, 1, presetTextDecoration, presetParagraphDecoration));
+                        decorationList.add(new DecorationModel(start, 1, decorations.presetTextDecoration, decorations.presetParagraphDecoration));
                     }
-                    case Heading h when h.getLevel() == 4 -> {
-                        paragraphDecorations.push(headingFourParagraph);
-                        textDecorations.push(headingFourTextDecoration);
-                        visitChildren(h);
-                        paragraphDecorations.pop();
-                        textDecorations.pop();
-                        var start = theText.length();
-                        theText.append("\n");
-                        decorationList.add(new DecorationModel(start, 1, presetTextDecoration, presetParagraphDecoration));
+                    switch (bulletListLevel) {
+                        case 1 ->
+                            paragraphDecorations.push(decorations.bulletItemLevelOneDecoration);
+                        case 2 ->
+                            paragraphDecorations.push(decorations.bulletItemLevelTwoDecoration);
+                        case 3 ->
+                            paragraphDecorations.push(decorations.bulletItemLevelThreeDecoration);
+                        default ->
+                            paragraphDecorations.push(decorations.bulletItemLevelThreeDecoration);
                     }
-                    case Heading h when h.getLevel() == 5 -> {
-                        paragraphDecorations.push(headingFiveParagraph);
-                        textDecorations.push(headingFiveTextDecoration);
-                        visitChildren(h);
-                        paragraphDecorations.pop();
-                        textDecorations.pop();
-                        var start = theText.length();
+                    visitChildren(bl);
+
+                    paragraphDecorations.pop();
+                    bulletListLevel--;
+                    if (0 == bulletListLevel && !bl.getParent().getLastChild().equals(bl)) {
+                        var pStart = theText.length();
                         theText.append("\n");
-                        decorationList.add(new DecorationModel(start, 1, presetTextDecoration, presetParagraphDecoration));
+                        decorationList.add(new DecorationModel(pStart, 1, decorations.presetTextDecoration, decorations.presetParagraphDecoration));
                     }
-                    case Heading h when h.getLevel() == 6 -> {
-                        paragraphDecorations.push(headingSixParagraph);
-                        textDecorations.push(headingSixTextDecoration);
-                        visitChildren(h);
-                        paragraphDecorations.pop();
-                        textDecorations.pop();
+                }
+                case OrderedList ol -> {
+                    orderedListLevel++;
+                    if (!endsWithNewline()) {
                         var start = theText.length();
                         theText.append("\n");
-                        decorationList.add(new DecorationModel(start, 1, presetTextDecoration, presetParagraphDecoration));
+                        decorationList.add(new DecorationModel(start, 1, decorations.presetTextDecoration, decorations.presetParagraphDecoration));
                     }
-                    case Paragraph p -> {
-                        visitChildren(p);
-                        if (!p.getParent().isOrDescendantOfType(com.vladsch.flexmark.util.ast.Document.class) || !p.getParent().getLastChild().equals(p)) {
-                            var start = theText.length();
-                            theText.append("\n");
-                            decorationList.add(new DecorationModel(start, 1, presetTextDecoration, paragraphDecorations.peek()));
-                        }
+                    switch (orderedListLevel) {
+                        case 1 ->
+                            paragraphDecorations.push(decorations.orderedItemLevelOneDecoration);
+                        case 2 ->
+                            paragraphDecorations.push(decorations.orderedItemLevelTwoDecoration);
+                        case 3 ->
+                            paragraphDecorations.push(decorations.orderedItemLevelThreeDecoration);
+                        default ->
+                            paragraphDecorations.push(decorations.orderedItemLevelThreeDecoration);
                     }
-                    case Code c -> {
-                        var start = theText.length();
-                        var text = c.getText();
-                        var length = text.length();
-                        theText.append(text);
-                        decorationList.add(new DecorationModel(start, length, monospaceDecoration, paragraphDecorations.peek()));
-                    }
-                    case Emphasis e -> {
-                        var start = theText.length();
-                        var text = e.getText();
-                        var length = text.length();
-                        theText.append(text);
-                        decorationList.add(new DecorationModel(start, length, emphasisDecoration, paragraphDecorations.peek()));
-                    }
-                    case StrongEmphasis e -> {
-                        var start = theText.length();
-                        var text = e.getText();
-                        var length = text.length();
-                        theText.append(text);
-                        decorationList.add(new DecorationModel(start, length, strongEmphasisDecoration, paragraphDecorations.peek()));
-                    }
-                    case Strikethrough e -> {
-                        var start = theText.length();
-                        var text = e.getText();
-                        var length = text.length();
-                        theText.append(text);
-                        decorationList.add(new DecorationModel(start, length, strikethroughDecoration, paragraphDecorations.peek()));
-                    }
-                    case Emoji e -> {
-                        var start = theText.length();
-                        var emojiAsString = EmojiData.emojiFromShortName(e.getText().toString()).map(com.gluonhq.emoji.Emoji::character).orElse("");
-                        var length = emojiAsString.length();
-                        theText.append(emojiAsString);
-                        decorationList.add(new DecorationModel(start, length, textDecorations.peek(), paragraphDecorations.peek()));
-                    }
-                    case Text t -> {
-                        var start = theText.length();
-                        var text = t.getChars().toString();
-                        var length = text.length();
-                        theText.append(text);
-                        decorationList.add(new DecorationModel(start, length, textDecorations.peek(), paragraphDecorations.peek()));
-                    }
-                    case BulletList bl -> {
-                        bulletListLevel++;
-                        if (!theText.toString().endsWith("\n")) {
-                            var start = theText.length();
-                            theText.append("\n");
-                            decorationList.add(new DecorationModel(start, 1, presetTextDecoration, presetParagraphDecoration));
-                        }
-                        switch (bulletListLevel) {
-                            case 1 ->
-                                paragraphDecorations.push(bulletItemLevelOneDecoration);
-                            case 2 ->
-                                paragraphDecorations.push(bulletItemLevelTwoDecoration);
-                            case 3 ->
-                                paragraphDecorations.push(bulletItemLevelThreeDecoration);
-                            default ->
-                                paragraphDecorations.push(bulletItemLevelThreeDecoration);
-                        }
-                        visitChildren(bl);
-
-                        paragraphDecorations.pop();
-                        bulletListLevel--;
-                        if (0 == bulletListLevel && !bl.getParent().getLastChild().equals(bl)) {
-                            var pStart = theText.length();
-                            theText.append("\n");
-                            decorationList.add(new DecorationModel(pStart, 1, presetTextDecoration, presetParagraphDecoration));
-                        }
-                    }
-                    case OrderedList ol -> {
-                        orderedListLevel++;
-                        if (!theText.toString().endsWith("\n")) {
-                            var start = theText.length();
-                            theText.append("\n");
-                            decorationList.add(new DecorationModel(start, 1, presetTextDecoration, presetParagraphDecoration));
-                        }
-                        switch (orderedListLevel) {
-                            case 1 ->
-                                paragraphDecorations.push(orderedItemLevelOneDecoration);
-                            case 2 ->
-                                paragraphDecorations.push(orderedItemLevelTwoDecoration);
-                            case 3 ->
-                                paragraphDecorations.push(orderedItemLevelThreeDecoration);
-                            default ->
-                                paragraphDecorations.push(orderedItemLevelThreeDecoration);
-                        }
-                        visitChildren(ol);
-
-                        paragraphDecorations.pop();
-                        orderedListLevel--;
-                        if (0 == orderedListLevel && !ol.getParent().getLastChild().equals(ol)) {
-                            var pStart = theText.length();
-                            theText.append("\n");
-                            decorationList.add(new DecorationModel(pStart, 1, presetTextDecoration, presetParagraphDecoration));
-                        }
-                    }
-                    case BulletListItem bli -> {
-                        visitChildren(bli);
-                        var start = theText.length();
-                        if (!bli.getParent().getLastChild().equals(bli)) {
-                            theText.append("\n");
-                            decorationList.add(new DecorationModel(start, 1, presetTextDecoration, presetParagraphDecoration));
-                        }
-                    }
-                    case OrderedListItem oli -> {
-                        visitChildren(oli);
-                        var start = theText.length();
-                        if (!oli.getParent().getLastChild().equals(oli)) {
-                            theText.append("\n");
-                            decorationList.add(new DecorationModel(start, 1, presetTextDecoration, presetParagraphDecoration));
-                        }
+                    visitChildren(ol);
+
+                    paragraphDecorations.pop();
+                    orderedListLevel--;
+                    if (0 == orderedListLevel && !ol.getParent().getLastChild().equals(ol)) {
+                        var pStart = theText.length();
+                        theText.append("\n");
+                        decorationList.add(new DecorationModel(pStart, 1, decorations.presetTextDecoration, decorations.presetParagraphDecoration));
                     }
-                    case FencedCodeBlock fcb -> {
-                        var pd = ParagraphDecoration.builder().fromDecoration(presetParagraphDecoration).indentationLevel(fcb.getFenceIndent()).build();
-                        paragraphDecorations.push(pd);
-                        textDecorations.push(monospaceDecoration);
-                        visitChildren(fcb);
-                        paragraphDecorations.pop();
-                        textDecorations.pop();
-                    } case Link l -> {
-                        var url = l.getUrl();
-                        var td = presetTextDecorationBuilder.url(url.toString()).build();
-                        textDecorations.push(td);
-                        visitChildren(l);
-                        textDecorations.pop();
+                }
+                case BulletListItem bli -> {
+                    visitChildren(bli);
+                    var start = theText.length();
+                    if (!bli.getParent().getLastChild().equals(bli)) {
+                        theText.append("\n");
+                        decorationList.add(new DecorationModel(start, 1, decorations.presetTextDecoration, decorations.presetParagraphDecoration));
                     }
-                    default -> {
-                        visitChildren(node);
+                }
+                case OrderedListItem oli -> {
+                    visitChildren(oli);
+                    var start = theText.length();
+                    if (!oli.getParent().getLastChild().equals(oli)) {
+                        theText.append("\n");
+                        decorationList.add(new DecorationModel(start, 1, decorations.presetTextDecoration, decorations.presetParagraphDecoration));
                     }
                 }
-                indentation = indentation.substring(0, indentation.length() - 1);
+                case FencedCodeBlock fcb -> {
+                    var pd = ParagraphDecoration.builder().fromDecoration(decorations.presetParagraphDecoration).indentationLevel(fcb.getFenceIndent()).build();
+                    paragraphDecorations.push(pd);
+                    textDecorations.push(decorations.monospaceDecoration);
+                    visitChildren(fcb);
+                    paragraphDecorations.pop();
+                    textDecorations.pop();
+                } case Link l -> {
+                    var url = l.getUrl();
+                    var td = TextDecoration.builder().fromDecoration(decorations.presetTextDecoration).url(url.toString()).build();
+                    textDecorations.push(td);
+                    visitChildren(l);
+                    textDecorations.pop();
+                }
+                default -> {
+                    visitChildren(node);
+                }
             }
-        };
-        visitor.visit(document);
-        return new Document(theText.toString(), decorationList, text.length());
+            indentation = indentation.substring(0, indentation.length() - 1);
+        }
     }
 }
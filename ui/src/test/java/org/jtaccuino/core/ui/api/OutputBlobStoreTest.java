@@ -0,0 +1,78 @@
+/*
+ * Copyright 2026 JTaccuino Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jtaccuino.core.ui.api;
+
+import java.nio.file.Files;
+import java.util.Base64;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OutputBlobStoreTest {
+
+    private static final int LARGE_SIZE = 64 * 1024;
+
+    public OutputBlobStoreTest() {
+    }
+
+    @Test
+    public void testStoringSameContentTwice() {
+        var store = OutputBlobStore.getDefault();
+        var small = payload(100, 1);
+        var large = payload(LARGE_SIZE, 1);
+        assertSame(store.store(small), store.store(small.clone()));
+        assertSame(store.store(large), store.store(large.clone()));
+        assertSame(store.store(large), store.storeBase64(Base64.getMimeEncoder().encodeToString(large)));
+    }
+
+    @Test
+    public void testLargeContentIsMappedUnchanged() throws Exception {
+        var store = OutputBlobStore.getDefault();
+        var content = payload(LARGE_SIZE, 2);
+        var blob = store.store(content);
+        assertTrue(Files.exists(store.getCacheDirectory().resolve(blob.getHash())));
+        assertEquals(content.length, blob.getSize());
+        try (var in = blob.asInputStream()) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+        assertEquals(Base64.getEncoder().encodeToString(content), blob.toBase64());
+    }
+
+    @Test
+    public void testFilesOfDroppedBlobsAreDeleted() throws Exception {
+        var store = OutputBlobStore.getDefault();
+        var file = store.getCacheDirectory().resolve(store.store(payload(LARGE_SIZE, 3)).getHash());
+        assertTrue(Files.exists(file));
+        for (int i = 0; i < 100 && Files.exists(file); i++) {
+            System.gc();
+            Thread.sleep(10);
+            // storing prunes the collected blobs
+            store.store(new byte[]{(byte) i});
+        }
+        assertFalse(Files.exists(file));
+    }
+
+    private static byte[] payload(int size, long seed) {
+        var content = new byte[size];
+        new Random(seed).nextBytes(content);
+        return content;
+    }
+}
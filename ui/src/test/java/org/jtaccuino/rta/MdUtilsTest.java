@@ -0,0 +1,142 @@
+/*
+ * Copyright 2026 JTaccuino Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jtaccuino.rta;
+
+import com.gluonhq.richtextarea.model.Document;
+import java.util.stream.Stream;
+import javafx.scene.text.Font;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class MdUtilsTest {
+
+    private static final String NOTE = """
+            # Title
+
+            Some *emphasis*, **strong** and ~~struck~~ text with `code`.
+
+            ## Lists
+
+            - one
+            - two
+              - nested
+                - deeper
+            - three
+
+            1. first
+            2. second
+               1. inner
+
+            | name | value |
+            |------|-------|
+            | a    | 1     |
+
+            ```java
+            var x = 1;
+            ```
+
+            Last paragraph
+            """;
+
+    private static final StyleableMarkdown STYLE = new StyleableMarkdown() {
+        @Override
+        public Font getMarkdownBaseFont() {
+            return Font.font("System", 13);
+        }
+
+        @Override
+        public Font getMarkdownEmphasisFont() {
+            return Font.font("System", 13);
+        }
+
+        @Override
+        public Font getMarkdownHeadingOneFont() {
+            return Font.font("System", 24);
+        }
+
+        @Override
+        public Font getMarkdownHeadingTwoFont() {
+            return Font.font("System", 20);
+        }
+
+        @Override
+        public Font getMarkdownHeadingrThreeFont() {
+            return Font.font("System", 18);
+        }
+
+        @Override
+        public Font getMarkdownHeadingrFourFont() {
+            return Font.font("System", 16);
+        }
+
+        @Override
+        public Font getMarkdownHeadingFiveFont() {
+            return Font.font("System", 14);
+        }
+
+        @Override
+        public Font getMarkdownHeadingSixFont() {
+            return Font.font("System", 13);
+        }
+
+        @Override
+        public Font getMarkdownMonospaceFont() {
+            return Font.font("Monospaced", 13);
+        }
+
+        @Override
+        public Font getMarkdownStrikethroughFont() {
+            return Font.font("System", 13);
+        }
+
+        @Override
+        public Font getMarkdownStrongEmphasisFont() {
+            return Font.font("System", 13);
+        }
+    };
+
+    public MdUtilsTest() {
+    }
+
+    static Stream<Arguments> edits() {
+        return Stream.of(
+                Arguments.of("unchanged", NOTE),
+                Arguments.of("paragraph changed", NOTE.replace("with `code`", "with more `code`")),
+                Arguments.of("nested item added", NOTE.replace("    - deeper\n", "    - deeper\n    - deepest\n")),
+                Arguments.of("table row added", NOTE.replace("| a    | 1     |\n", "| a    | 1     |\n| b    | 2     |\n")),
+                Arguments.of("heading inserted", "### Intro\n\n" + NOTE),
+                Arguments.of("paragraph appended", NOTE + "\nAppendix\n"),
+                Arguments.of("list last", NOTE.substring(0, NOTE.indexOf("\n1. first"))),
+                Arguments.of("last block removed", NOTE.replace("\nLast paragraph\n", "")),
+                Arguments.of("trailing newline removed", NOTE.stripTrailing()),
+                Arguments.of("code block last", NOTE.replace("\nLast paragraph\n", "").stripTrailing()));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("edits")
+    public void testCachedRenderingAfterEditMatchesUncached(String edit, String edited) {
+        assertRenderedEqual(MdUtils.renderUncached(NOTE, STYLE), MdUtils.render(NOTE, STYLE));
+        assertRenderedEqual(MdUtils.renderUncached(edited, STYLE), MdUtils.render(edited, STYLE));
+    }
+
+    private static void assertRenderedEqual(Document expected, Document actual) {
+        assertEquals(expected.getText(), actual.getText());
+        assertEquals(expected.getDecorations(), actual.getDecorations());
+    }
+}